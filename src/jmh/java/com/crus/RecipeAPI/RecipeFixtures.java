@@ -0,0 +1,84 @@
+package com.crus.RecipeAPI;
+
+import com.crus.RecipeAPI.models.Ingredient;
+import com.crus.RecipeAPI.models.Recipe;
+import com.crus.RecipeAPI.models.Review;
+import com.crus.RecipeAPI.models.Step;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Builds detached, in-memory recipes for the benchmarks. Shapes roughly follow
+ * the seeded data: a handful of ingredients and steps and a few reviews per
+ * recipe. Names are drawn from small vocabularies so a million recipes still
+ * fit comfortably in the benchmark heap.
+ */
+public final class RecipeFixtures {
+
+    private static final String[] WORDS = {
+            "spicy", "chicken", "tomato", "soup", "lemon", "garlic", "pasta", "roast",
+            "vegan", "curry", "salad", "bread", "chocolate", "cake", "grilled", "salmon"
+    };
+    private static final String[] INGREDIENTS = {
+            "flour", "sugar", "butter", "egg", "milk", "salt", "olive oil", "onion",
+            "garlic", "tomato", "chicken breast", "rice", "lemon", "basil", "pepper", "cream"
+    };
+    private static final String[] USERS = {"idfk", "admin", "alice", "bob", "carol"};
+
+    private RecipeFixtures() {
+    }
+
+    /**
+     * @return {@code count} recipes with ids 1..count, the same for the same seed
+     */
+    public static List<Recipe> recipes(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Recipe> recipes = new ArrayList<>(count);
+        long reviewId = 1;
+        for (int i = 1; i <= count; i++) {
+            List<Ingredient> ingredients = new ArrayList<>();
+            for (int j = 0, n = 3 + random.nextInt(5); j < n; j++) {
+                ingredients.add(Ingredient.builder()
+                        .id((long) i * 10 + j)
+                        .name(INGREDIENTS[random.nextInt(INGREDIENTS.length)])
+                        .amount("1 cup")
+                        .build());
+            }
+            List<Step> steps = new ArrayList<>();
+            for (int j = 1, n = 2 + random.nextInt(4); j <= n; j++) {
+                steps.add(Step.builder()
+                        .id((long) i * 10 + j)
+                        .stepNumber(j)
+                        .description("Mix everything together and wait a little")
+                        .build());
+            }
+            List<Review> reviews = new ArrayList<>();
+            for (int j = 0, n = random.nextInt(5); j < n; j++) {
+                String user = USERS[random.nextInt(USERS.length)];
+                reviews.add(Review.builder()
+                        .id(reviewId++)
+                        .username(user)
+                        .author(user)
+                        .rating(1 + random.nextInt(10))
+                        .description("Would cook again")
+                        .recipeId((long) i)
+                        .build());
+            }
+            Recipe recipe = Recipe.builder()
+                    .id((long) i)
+                    .name(WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)])
+                    .minutesToMake(5 + random.nextInt(120))
+                    .difficultyRating(random.nextInt(11))
+                    .submittedBy(USERS[random.nextInt(USERS.length)])
+                    .ingredients(ingredients)
+                    .steps(steps)
+                    .reviews(reviews)
+                    .build();
+            recipe.recomputeRatingAggregates();
+            recipes.add(recipe);
+        }
+        return recipes;
+    }
+}
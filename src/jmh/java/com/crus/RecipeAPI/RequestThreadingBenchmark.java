@@ -0,0 +1,122 @@
+package com.crus.RecipeAPI;
+
+import com.crus.RecipeAPI.repos.RecipeRepo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load against the running application, once with requests served by Tomcat's
+ * platform thread pool and once on virtual threads
+ * ({@code spring.threads.virtual.enabled}). There are twice as many clients
+ * as Tomcat has worker threads, so the platform mode queues. Throughput mode
+ * gives requests per millisecond; sample mode gives the latency percentiles,
+ * p0.99 among them. Pinned virtual threads are reported on stderr.
+ * <p>
+ * {@code cachedRecipe} is served from the per-recipe cache; {@code ratingLookup}
+ * authenticates through the credential cache and queries MySQL every time.
+ * The application boots against the datasource in application.properties, so
+ * MySQL must be running with some recipes in it, e.g. from POST /recipes/bulk:
+ * <pre>./gradlew jmh -Pjmh.includes=RequestThreadingBenchmark</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Threads(400)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-Djdk.tracePinnedThreads=short"})
+public class RequestThreadingBenchmark {
+
+    // POST /user/quick creates users with this password
+    private static final String USERNAME = "threading-benchmark";
+    private static final String PASSWORD = "password";
+
+    @Param({"false", "true"})
+    boolean virtualThreads;
+
+    ConfigurableApplicationContext context;
+    HttpClient client;
+    String baseUrl;
+    String authorization;
+    Long[] recipeIds;
+
+    @Setup(Level.Trial)
+    public void startApplication() throws IOException, InterruptedException {
+        context = new SpringApplicationBuilder(RecipeApiApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "logging.level.org.hibernate.SQL=WARN")
+                .run();
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        recipeIds = context.getBean(RecipeRepo.class).findAllNameEntries().stream()
+                .map(RecipeRepo.RecipeNameEntry::getId)
+                .toArray(Long[]::new);
+        if (recipeIds.length == 0) {
+            throw new IllegalStateException("The benchmark needs recipes in the database.");
+        }
+
+        // fails harmlessly once the user exists
+        client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/user/quick?username=" + USERNAME))
+                        .POST(HttpRequest.BodyPublishers.noBody())
+                        .build(),
+                HttpResponse.BodyHandlers.discarding());
+        authorization = "Basic " + Base64.getEncoder()
+                .encodeToString((USERNAME + ":" + PASSWORD).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    private Long randomRecipeId() {
+        return recipeIds[ThreadLocalRandom.current().nextInt(recipeIds.length)];
+    }
+
+    private int send(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    @Benchmark
+    public int cachedRecipe() throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/recipes/" + randomRecipeId()))
+                .GET()
+                .build());
+    }
+
+    @Benchmark
+    public int ratingLookup() throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/review/recipeRating/" + randomRecipeId()))
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .GET()
+                .build());
+    }
+}
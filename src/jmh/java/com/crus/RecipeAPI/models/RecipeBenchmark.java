@@ -0,0 +1,64 @@
+package com.crus.RecipeAPI.models;
+
+import com.crus.RecipeAPI.RecipeFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the rating helpers on {@link Recipe} across a whole dataset: reading
+ * the running average the list endpoints use, and re-deriving the aggregates
+ * from the reviews as the create path does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class RecipeBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    int recipeCount;
+
+    List<Recipe> recipes;
+
+    @Setup
+    public void setUp() {
+        recipes = RecipeFixtures.recipes(recipeCount, 42);
+    }
+
+    @Benchmark
+    public void averageRating(Blackhole blackhole) {
+        for (Recipe recipe : recipes) {
+            blackhole.consume(recipe.getAverageRating(recipe.getId()));
+        }
+    }
+
+    @Benchmark
+    public void recipeWithAverageRating(Blackhole blackhole) {
+        for (Recipe recipe : recipes) {
+            blackhole.consume(recipe.recipeWithAverageRating(recipe));
+        }
+    }
+
+    @Benchmark
+    public void recomputeRatingAggregates(Blackhole blackhole) {
+        for (Recipe recipe : recipes) {
+            recipe.recomputeRatingAggregates();
+            blackhole.consume(recipe.getAverageRating());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.crus.RecipeAPI.models;
+
+import com.crus.RecipeAPI.RecipeFixtures;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialisation of {@link RecipeDetail}s with the same defaults Spring Boot
+ * applies to the HTTP message converters: one recipe as GET /recipes/{id}
+ * returns it, one full page of GET /recipes, and the whole dataset as the old
+ * unpaged listing used to.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class RecipeJsonBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"100", "10000", "1000000"})
+    int recipeCount;
+
+    List<RecipeDetail> recipes;
+    List<RecipeDetail> page;
+    RecipeDetail single;
+    ObjectWriter writer;
+
+    @Setup
+    public void setUp() {
+        recipes = RecipeFixtures.recipes(recipeCount, 42).stream()
+                .map(RecipeDetail::of)
+                .toList();
+        page = recipes.subList(0, Math.min(PAGE_SIZE, recipes.size()));
+        single = recipes.get(recipes.size() / 2);
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        writer = objectMapper.writer();
+    }
+
+    @Benchmark
+    public byte[] singleRecipe() throws JsonProcessingException {
+        return writer.writeValueAsBytes(single);
+    }
+
+    @Benchmark
+    public byte[] page() throws JsonProcessingException {
+        return writer.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] allRecipes() throws JsonProcessingException {
+        return writer.writeValueAsBytes(recipes);
+    }
+}
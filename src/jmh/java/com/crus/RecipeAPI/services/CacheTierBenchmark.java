@@ -0,0 +1,136 @@
+package com.crus.RecipeAPI.services;
+
+import com.crus.RecipeAPI.RecipeApiApplication;
+import com.crus.RecipeAPI.RecipeFixtures;
+import com.crus.RecipeAPI.models.RecipeDetail;
+import org.ehcache.Cache;
+import org.ehcache.CacheManager;
+import org.ehcache.core.internal.statistics.DefaultStatisticsService;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hit latency and GC cost of {@code recipeById} with its values on the heap,
+ * off the heap, or both. A heap tier answers hits without copying but keeps
+ * every cached recipe in the live set the collector has to trace; an off-heap
+ * tier pays for deserialising each hit but leaves the heap nearly empty.
+ * <p>
+ * {@code get} reports the collection time spent during each iteration as
+ * {@code gcMillis}; {@code fullGc} times a full collection with the cache
+ * populated. Add {@code -prof gc} for allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-XX:MaxDirectMemorySize=1g"})
+public class CacheTierBenchmark {
+
+    @Param({"100000"})
+    int recipeCount;
+
+    // heap: every recipe on the heap; tiered: the hottest 1000 on the heap,
+    // all of them off it; offheap: nothing on the heap
+    @Param({"heap", "tiered", "offheap"})
+    String tiers;
+
+    CacheManager cacheManager;
+    Cache<Long, RecipeDetail> recipeById;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class GcTime {
+
+        public long gcMillis;
+
+        private long start;
+
+        @Setup(Level.Iteration)
+        public void start() {
+            start = collectionMillis();
+            gcMillis = 0;
+        }
+
+        @TearDown(Level.Iteration)
+        public void stop() {
+            gcMillis = collectionMillis() - start;
+        }
+
+        private static long collectionMillis() {
+            return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                    .mapToLong(GarbageCollectorMXBean::getCollectionTime)
+                    .filter(time -> time > 0)
+                    .sum();
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        MockEnvironment environment = new MockEnvironment();
+        switch (tiers) {
+            case "heap" -> environment
+                    .withProperty("recipe.cache.recipeById.heap-entries", String.valueOf(recipeCount))
+                    .withProperty("recipe.cache.recipeById.offheap", "0MB");
+            case "tiered" -> environment
+                    .withProperty("recipe.cache.recipeById.heap-entries", "1000")
+                    .withProperty("recipe.cache.recipeById.offheap", "512MB");
+            case "offheap" -> environment
+                    .withProperty("recipe.cache.recipeById.heap-entries", "0")
+                    .withProperty("recipe.cache.recipeById.offheap", "512MB");
+            default -> throw new IllegalArgumentException(tiers);
+        }
+        cacheManager = new RecipeApiApplication().cacheManager(
+                new DefaultStatisticsService(), environment, Duration.ofMinutes(5), 10_000);
+        recipeById = cacheManager.getCache("recipeById", Long.class, RecipeDetail.class);
+
+        RecipeFixtures.recipes(recipeCount, 42).stream()
+                .map(RecipeDetail::of)
+                .forEach(recipe -> recipeById.put(recipe.id(), recipe));
+    }
+
+    @TearDown
+    public void tearDown() {
+        cacheManager.close();
+    }
+
+    @Benchmark
+    public RecipeDetail get(GcTime gcTime) {
+        return recipeById.get(1L + ThreadLocalRandom.current().nextInt(recipeCount));
+    }
+
+    // hits skewed towards the first 1% of ids, which fit the tiered heap tier
+    @Benchmark
+    public RecipeDetail getHot(GcTime gcTime) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int range = random.nextInt(10) == 0 ? recipeCount : Math.max(1, recipeCount / 100);
+        return recipeById.get(1L + random.nextInt(range));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 10)
+    public void fullGc() {
+        System.gc();
+    }
+}
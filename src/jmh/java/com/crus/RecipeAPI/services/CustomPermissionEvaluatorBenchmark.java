@@ -0,0 +1,100 @@
+package com.crus.RecipeAPI.services;
+
+import com.crus.RecipeAPI.RecipeApiApplication;
+import com.crus.RecipeAPI.repos.RecipeRepo;
+import com.crus.RecipeAPI.repos.ReviewRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.ehcache.CacheManager;
+import org.ehcache.core.internal.statistics.DefaultStatisticsService;
+import org.ehcache.core.spi.service.StatisticsService;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+
+/**
+ * The decision path behind every {@code @PreAuthorize("hasPermission(...)")}
+ * on the write endpoints: admin short cut, owner allowed, other user denied.
+ * Owners come from the owner caches, so after warm-up this is the cost of a
+ * cache hit plus the checks; the repositories are stubbed and never hit twice
+ * for the same id.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomPermissionEvaluatorBenchmark {
+
+    CacheManager cacheManager;
+    CustomPermissionEvaluator evaluator;
+    Authentication owner;
+    Authentication otherUser;
+    Authentication admin;
+
+    @Setup
+    public void setUp() {
+        StatisticsService statisticsService = new DefaultStatisticsService();
+        cacheManager = new RecipeApiApplication().cacheManager(statisticsService, new StandardEnvironment(), Duration.ofMinutes(5), 10_000);
+        RecipeRepo recipeRepo = Mockito.mock(RecipeRepo.class);
+        ReviewRepo reviewRepo = Mockito.mock(ReviewRepo.class);
+        Mockito.when(recipeRepo.findOwnerUsernameById(anyLong())).thenReturn(Optional.of("idfk"));
+        Mockito.when(reviewRepo.findOwnerUsernameById(anyLong())).thenReturn(Optional.of("idfk"));
+
+        evaluator = new CustomPermissionEvaluator();
+        evaluator.ownershipService = new OwnershipService(recipeRepo, reviewRepo, cacheManager,
+                new CacheMetrics(new SimpleMeterRegistry(), statisticsService, cacheManager));
+
+        owner = new UsernamePasswordAuthenticationToken("idfk", null,
+                List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        otherUser = new UsernamePasswordAuthenticationToken("someone", null,
+                List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        admin = new UsernamePasswordAuthenticationToken("admin", null,
+                List.of(new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_ADMIN")));
+    }
+
+    @TearDown
+    public void tearDown() {
+        cacheManager.close();
+    }
+
+    @Benchmark
+    public boolean recipeOwner() {
+        return evaluator.hasPermission(owner, 1L, "Recipe", "delete");
+    }
+
+    @Benchmark
+    public boolean recipeOtherUser() {
+        return evaluator.hasPermission(otherUser, 1L, "Recipe", "delete");
+    }
+
+    @Benchmark
+    public boolean reviewOwner() {
+        return evaluator.hasPermission(owner, 1L, "Review", "edit");
+    }
+
+    @Benchmark
+    public boolean admin() {
+        return evaluator.hasPermission(admin, 1L, "Recipe", "delete");
+    }
+}
@@ -0,0 +1,100 @@
+package com.crus.RecipeAPI.services;
+
+import com.crus.RecipeAPI.RecipeApiApplication;
+import com.crus.RecipeAPI.models.RecipePageKeys;
+import com.crus.RecipeAPI.models.RecipeSort;
+import org.ehcache.Cache;
+import org.ehcache.CacheManager;
+import org.ehcache.core.internal.statistics.DefaultStatisticsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.data.domain.Sort;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Get/put round trips on {@code allRecipesCache}, configured exactly as the
+ * application configures it. The key space is every page of a dataset of
+ * {@code recipeCount} recipes, so the larger sizes exercise eviction.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecipeCacheBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    int recipeCount;
+
+    CacheManager cacheManager;
+    Cache<String, RecipePageKeys> allRecipesCache;
+    List<String> keys;
+    List<RecipePageKeys> pages;
+
+    @Setup
+    public void setUp() {
+        cacheManager = new RecipeApiApplication().cacheManager(
+                new DefaultStatisticsService(), new StandardEnvironment(), Duration.ofMinutes(5), 10_000);
+        allRecipesCache = cacheManager.getCache("allRecipesCache", String.class, RecipePageKeys.class);
+
+        int pageCount = Math.max(1, recipeCount / RecipeService.MAX_PAGE_SIZE);
+        keys = new ArrayList<>(pageCount);
+        pages = new ArrayList<>(pageCount);
+        for (int i = 0; i < pageCount; i++) {
+            long first = (long) i * RecipeService.MAX_PAGE_SIZE + 1;
+            keys.add("ID|ASC|" + (i == 0 ? "" : "cursor" + i) + "|" + RecipeService.MAX_PAGE_SIZE);
+            pages.add(new RecipePageKeys(RecipeSort.ID, Sort.Direction.ASC, null,
+                    LongStream.range(first, first + RecipeService.MAX_PAGE_SIZE).boxed().toList(),
+                    null, null));
+        }
+        for (int i = 0; i < pageCount; i++) {
+            allRecipesCache.put(keys.get(i), pages.get(i));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        cacheManager.close();
+    }
+
+    @Benchmark
+    public RecipePageKeys get() {
+        return allRecipesCache.get(keys.get(ThreadLocalRandom.current().nextInt(keys.size())));
+    }
+
+    @Benchmark
+    public void put() {
+        int i = ThreadLocalRandom.current().nextInt(keys.size());
+        allRecipesCache.put(keys.get(i), pages.get(i));
+    }
+
+    // the read-through pattern of getRecipePage: look up, store on a miss
+    @Benchmark
+    public RecipePageKeys getOrPut() {
+        int i = ThreadLocalRandom.current().nextInt(keys.size());
+        RecipePageKeys page = allRecipesCache.get(keys.get(i));
+        if (page == null) {
+            page = pages.get(i);
+            allRecipesCache.put(keys.get(i), page);
+        }
+        return page;
+    }
+}
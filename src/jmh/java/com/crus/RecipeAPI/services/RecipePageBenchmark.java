@@ -0,0 +1,75 @@
+package com.crus.RecipeAPI.services;
+
+import com.crus.RecipeAPI.RecipeFixtures;
+import com.crus.RecipeAPI.models.RecipeCursor;
+import com.crus.RecipeAPI.models.RecipePageKeys;
+import com.crus.RecipeAPI.models.RecipeSort;
+import com.crus.RecipeAPI.models.RecipeSummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The in-memory work {@link RecipeService#getRecipePage} does once the
+ * database has returned the summary rows of a page: the next-page cursor and
+ * the cached page keys. Each invocation drains the
+ * whole dataset page by page, as a client walking GET /recipes would, and also
+ * re-sorts it in memory the way the unpaged listing used to.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class RecipePageBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    int recipeCount;
+
+    @Param({"AVERAGE_RATING", "MINUTES_TO_MAKE"})
+    RecipeSort sort;
+
+    List<RecipeSummary> recipes;
+
+    @Setup
+    public void setUp() {
+        recipes = RecipeFixtures.recipes(recipeCount, 42).stream()
+                .map(RecipeSummary::of)
+                .toList();
+    }
+
+    @Benchmark
+    public void pagePostProcessing(Blackhole blackhole) {
+        RecipeCursor previous = null;
+        for (int from = 0; from < recipes.size(); from += RecipeService.MAX_PAGE_SIZE) {
+            List<RecipeSummary> page = recipes.subList(from, Math.min(from + RecipeService.MAX_PAGE_SIZE, recipes.size()));
+            RecipeCursor last = RecipeCursor.of(page.get(page.size() - 1), sort, Sort.Direction.ASC);
+            String nextCursor = last.encode();
+            blackhole.consume(new RecipePageKeys(sort, Sort.Direction.ASC, previous,
+                    page.stream().map(RecipeSummary::id).toList(), last, nextCursor));
+            previous = last;
+        }
+    }
+
+    @Benchmark
+    public List<RecipeSummary> inMemorySort() {
+        List<RecipeSummary> sorted = new ArrayList<>(recipes);
+        sorted.sort(sort.comparator(Sort.Direction.ASC));
+        return sorted;
+    }
+}
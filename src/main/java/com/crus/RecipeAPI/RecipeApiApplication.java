@@ -1,13 +1,31 @@
 package com.crus.RecipeAPI;
 
+import com.crus.RecipeAPI.models.CustomUserDetails;
+import com.crus.RecipeAPI.models.RecipeDetail;
+import com.crus.RecipeAPI.models.RecipePageKeys;
+import com.crus.RecipeAPI.models.RecipeSearch;
+import com.crus.RecipeAPI.services.CacheSerializers;
+import org.ehcache.config.ResourcePools;
+import org.ehcache.config.builders.CacheManagerBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.config.units.EntryUnit;
+import org.ehcache.config.units.MemoryUnit;
 import org.ehcache.core.internal.statistics.DefaultStatisticsService;
 import org.ehcache.core.spi.service.StatisticsService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.PropertyResolver;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.util.unit.DataSize;
 
+import java.io.File;
+import java.time.Duration;
 import java.util.List;
 
 import static org.ehcache.config.builders.CacheConfigurationBuilder.newCacheConfigurationBuilder;
@@ -17,22 +35,108 @@ import static org.hibernate.boot.model.process.spi.MetadataBuildingProcess.build
 
 @Configuration
 @SpringBootApplication
+@EnableScheduling
 public class RecipeApiApplication {
 
+    public static final String PERSISTENCE_ENABLED = "recipe.cache.persistence.enabled";
+    public static final String PERSISTENCE_DIRECTORY = "recipe.cache.persistence.directory";
+    public static final String DEFAULT_PERSISTENCE_DIRECTORY = "cache-data";
+
     @Bean
     public StatisticsService statisticsService() {
         return new DefaultStatisticsService();
     }
 
     @Bean
-    public org.ehcache.CacheManager cacheManager(StatisticsService statisticsService) {
-        return newCacheManagerBuilder()
+    public org.ehcache.CacheManager cacheManager(
+            StatisticsService statisticsService,
+            Environment environment,
+            @Value("${security.credential-cache.ttl:PT5M}") Duration credentialTtl,
+            @Value("${security.credential-cache.max-entries:10000}") long credentialMaxEntries) {
+        // the list and lookup caches that survive a restart when persistence is
+        // on; PersistentCacheValidator drops them if the tables changed meanwhile
+        boolean persistent = environment.getProperty(PERSISTENCE_ENABLED, Boolean.class, false);
+        DataSize none = DataSize.ofBytes(0);
+
+        CacheManagerBuilder<org.ehcache.CacheManager> builder = newCacheManagerBuilder()
                 .using(statisticsService)
-                .withCache("ownersSearch", newCacheConfigurationBuilder(String.class, Long.class, heap(10)))
-                .withCache("allRecipesCache", newCacheConfigurationBuilder(String.class, List.class, heap(100)))
-                .withCache("reviewSearch", newCacheConfigurationBuilder(String.class, Long.class, heap(10)))
-                .withCache("allReviewsCache", newCacheConfigurationBuilder(String.class, List.class, heap(100)))
-                .build(true);
+                .withCache("ownersSearch", newCacheConfigurationBuilder(String.class, Long.class,
+                        tiers(environment, "ownersSearch", 10, none,
+                                persistent ? DataSize.ofMegabytes(16) : none)))
+                .withCache("allRecipesCache", newCacheConfigurationBuilder(String.class, RecipePageKeys.class,
+                                tiers(environment, "allRecipesCache", 100, DataSize.ofMegabytes(8),
+                                        persistent ? DataSize.ofMegabytes(64) : none))
+                        .withValueSerializer(new CacheSerializers.RecipePageKeysSerializer()))
+                .withCache("recipeById", newCacheConfigurationBuilder(Long.class, RecipeDetail.class,
+                                tiers(environment, "recipeById", 1000, DataSize.ofMegabytes(64), none))
+                        .withValueSerializer(new CacheSerializers.RecipeDetailSerializer()))
+                .withCache("recipeSearch", newCacheConfigurationBuilder(String.class, RecipeSearch.class,
+                                tiers(environment, "recipeSearch", 100, DataSize.ofMegabytes(8), none))
+                        .withValueSerializer(new CacheSerializers.RecipeSearchSerializer()))
+                .withCache("reviewSearch", newCacheConfigurationBuilder(String.class, Long.class,
+                        tiers(environment, "reviewSearch", 10, none,
+                                persistent ? DataSize.ofMegabytes(16) : none)))
+                .withCache("allReviewsCache", newCacheConfigurationBuilder(String.class, List.class,
+                                tiers(environment, "allReviewsCache", 1, DataSize.ofMegabytes(32),
+                                        persistent ? DataSize.ofMegabytes(128) : none))
+                        .withValueSerializer(new CacheSerializers.ReviewListSerializer()))
+                .withCache("recipeOwners", newCacheConfigurationBuilder(Long.class, String.class, heap(10000)))
+                .withCache("reviewOwners", newCacheConfigurationBuilder(Long.class, String.class, heap(10000)))
+                .withCache("credentialCache", newCacheConfigurationBuilder(String.class, CustomUserDetails.class, heap(credentialMaxEntries))
+                        .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(credentialTtl)));
+        if (persistent) {
+            return builder.with(CacheManagerBuilder.persistence(new File(
+                    environment.getProperty(PERSISTENCE_DIRECTORY, DEFAULT_PERSISTENCE_DIRECTORY)))).build(true);
+        }
+        return builder.build(true);
+    }
+
+    /**
+     * The storage tiers of a read cache, from {@code recipe.cache.<name>.heap-entries},
+     * {@code recipe.cache.<name>.offheap} and {@code recipe.cache.<name>.disk}.
+     * The heap tier holds live objects and is sized in entries; the off-heap
+     * tier holds serialised values outside the garbage collected heap and the
+     * disk tier persists them across restarts, both sized in megabytes and the
+     * disk larger than the off-heap tier. Any tier may be 0 to leave it out,
+     * but not all of them.
+     */
+    public static ResourcePools tiers(PropertyResolver properties, String cache,
+                                      long defaultHeapEntries, DataSize defaultOffheap, DataSize defaultDisk) {
+        long heapEntries = properties.getProperty(
+                "recipe.cache." + cache + ".heap-entries", Long.class, defaultHeapEntries);
+        long offheapMegabytes = megabytes(properties, "recipe.cache." + cache + ".offheap", defaultOffheap);
+        // a disk tier needs a persistent cache manager, so it is only read when
+        // the caller asked for one
+        long diskMegabytes = defaultDisk.toBytes() > 0
+                ? megabytes(properties, "recipe.cache." + cache + ".disk", defaultDisk)
+                : 0;
+
+        if (heapEntries <= 0 && offheapMegabytes <= 0 && diskMegabytes <= 0) {
+            throw new IllegalArgumentException("Cache " + cache + " needs at least one storage tier.");
+        }
+        if (diskMegabytes > 0 && diskMegabytes <= offheapMegabytes) {
+            throw new IllegalArgumentException("The disk tier of cache " + cache
+                    + " must be larger than its off-heap tier.");
+        }
+        ResourcePoolsBuilder tiers = ResourcePoolsBuilder.newResourcePoolsBuilder();
+        if (heapEntries > 0) {
+            tiers = tiers.heap(heapEntries, EntryUnit.ENTRIES);
+        }
+        if (offheapMegabytes > 0) {
+            tiers = tiers.offheap(offheapMegabytes, MemoryUnit.MB);
+        }
+        if (diskMegabytes > 0) {
+            tiers = tiers.disk(diskMegabytes, MemoryUnit.MB, true);
+        }
+        return tiers.build();
+    }
+
+    // off-heap and disk storage are allocated in whole megabytes
+    private static long megabytes(PropertyResolver properties, String property, DataSize defaultSize) {
+        String value = properties.getProperty(property);
+        DataSize size = value == null ? defaultSize : DataSize.parse(value);
+        long megabyte = DataSize.ofMegabytes(1).toBytes();
+        return (size.toBytes() + megabyte - 1) / megabyte;
     }
 
 	public static void main(String[] args) {
@@ -0,0 +1,44 @@
+package com.crus.RecipeAPI.controllers;
+
+import com.crus.RecipeAPI.services.ResponseBodyCache;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Writes the serialised bodies of {@link ResponseBodyCache} as they are: the
+ * gzipped variant to clients that accept it, the plain JSON to the others.
+ */
+final class CachedResponses {
+
+    private CachedResponses() {
+    }
+
+    /**
+     * @return true if the body for this request will be the gzipped variant,
+     *         which conditional requests have to tell apart from the plain one
+     */
+    static boolean gzip(ResponseBodyCache cache, String acceptEncoding) {
+        return cache.isGzipEnabled() && ExportResponses.acceptsGzip(acceptEncoding);
+    }
+
+    static ResponseEntity.BodyBuilder ok(ResponseBodyCache.CachedBody body, boolean gzip) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON);
+        if (body.gzip() != null) {
+            response.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response;
+    }
+
+    static byte[] content(ResponseBodyCache.CachedBody body, boolean gzip) {
+        return gzip ? body.gzip() : body.json();
+    }
+
+    static ResponseEntity<byte[]> json(ResponseBodyCache.CachedBody body, boolean gzip) {
+        return ok(body, gzip).body(content(body, gzip));
+    }
+}
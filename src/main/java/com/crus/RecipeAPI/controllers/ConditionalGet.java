@@ -0,0 +1,61 @@
+package com.crus.RecipeAPI.controllers;
+
+import com.crus.RecipeAPI.models.ContentVersion;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Conditional GET for endpoints that clients poll. The version of the content
+ * is looked up before the content itself; when it matches the client's
+ * If-None-Match (or, without one, its If-Modified-Since) the request is
+ * answered with 304 Not Modified and nothing is loaded or serialised.
+ */
+final class ConditionalGet {
+
+    private ConditionalGet() {
+    }
+
+    // the gzipped body is a different representation, so it gets its own
+    // strong ETag
+    static String eTag(ContentVersion version, boolean gzip) {
+        return "\"" + version.tag() + (gzip ? "-gzip" : "") + "\"";
+    }
+
+    /**
+     * Checks the request's preconditions against the version and sets the
+     * ETag and Last-Modified headers of the response. The body is read after
+     * the version and may be of another one: a write can commit in between,
+     * and caches evicted before the commit can be refilled with the old state
+     * until they are evicted again after it. Handlers serving cached bodies
+     * therefore cache them per version and check the version of what they
+     * send, see RecipeController.
+     *
+     * @return true if the response is a 304 and the handler should return null
+     */
+    static boolean notModified(WebRequest request, ContentVersion version) {
+        return notModified(request, version, false);
+    }
+
+    /**
+     * @param gzip whether the body will be sent gzip-compressed
+     */
+    static boolean notModified(WebRequest request, ContentVersion version, boolean gzip) {
+        String eTag = eTag(version, gzip);
+        if (version.lastModified() == null) {
+            return request.checkNotModified(eTag);
+        }
+        return request.checkNotModified(eTag, version.lastModified().toEpochMilli());
+    }
+
+    /**
+     * Replaces the ETag and Last-Modified headers {@link #notModified} set,
+     * for a body that turned out to be of another version.
+     */
+    static void sentVersion(HttpServletResponse response, ContentVersion version, boolean gzip) {
+        response.setHeader(HttpHeaders.ETAG, eTag(version, gzip));
+        if (version.lastModified() != null) {
+            response.setDateHeader(HttpHeaders.LAST_MODIFIED, version.lastModified().toEpochMilli());
+        }
+    }
+}
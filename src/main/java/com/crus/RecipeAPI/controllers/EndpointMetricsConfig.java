@@ -0,0 +1,25 @@
+package com.crus.RecipeAPI.controllers;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class EndpointMetricsConfig {
+
+    // registered through a bean method rather than by implementing
+    // WebMvcConfigurer here, so @WebMvcTest slices without a MeterRegistry
+    // don't pick it up
+    @Bean
+    public WebMvcConfigurer endpointMetricsConfigurer(MeterRegistry meterRegistry) {
+        EndpointMetricsInterceptor interceptor = new EndpointMetricsInterceptor(meterRegistry);
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(interceptor);
+            }
+        };
+    }
+}
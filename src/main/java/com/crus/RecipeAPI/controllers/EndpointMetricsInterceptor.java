@@ -0,0 +1,60 @@
+package com.crus.RecipeAPI.controllers;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.Set;
+
+/**
+ * Times every request handled by {@link RecipeController} and
+ * {@link ReviewController} as {@code api.endpoint.requests}, tagged with the
+ * controller, handler method and response status, so each endpoint gets its
+ * own timer regardless of the path variables in its URI.
+ */
+public class EndpointMetricsInterceptor implements HandlerInterceptor {
+
+    private static final String SAMPLE_ATTRIBUTE = EndpointMetricsInterceptor.class.getName() + ".sample";
+
+    private static final Set<Class<?>> TIMED_CONTROLLERS = Set.of(RecipeController.class, ReviewController.class);
+
+    private final MeterRegistry meterRegistry;
+
+    public EndpointMetricsInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // an async dispatch comes through here again; keep timing from the first one
+        if (isTimed(handler) && request.getAttribute(SAMPLE_ATTRIBUTE) == null) {
+            request.setAttribute(SAMPLE_ATTRIBUTE, Timer.start(meterRegistry));
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                Object handler, Exception ex) {
+        if (!(request.getAttribute(SAMPLE_ATTRIBUTE) instanceof Timer.Sample sample)
+                || !(handler instanceof HandlerMethod handlerMethod)) {
+            return;
+        }
+        request.removeAttribute(SAMPLE_ATTRIBUTE);
+        sample.stop(Timer.builder("api.endpoint.requests")
+                .description("Requests handled by the recipe and review endpoints")
+                .tag("controller", handlerMethod.getBeanType().getSimpleName())
+                .tag("method", handlerMethod.getMethod().getName())
+                .tag("status", String.valueOf(response.getStatus()))
+                .tag("exception", ex == null ? "none" : ex.getClass().getSimpleName())
+                .register(meterRegistry));
+    }
+
+    private static boolean isTimed(Object handler) {
+        return handler instanceof HandlerMethod handlerMethod
+                && TIMED_CONTROLLERS.contains(handlerMethod.getBeanType());
+    }
+}
@@ -0,0 +1,53 @@
+package com.crus.RecipeAPI.controllers;
+
+/**
+ * Reads the If-Match header of a write. A client sends back the ETag it got
+ * with a recipe or review, see {@link ConditionalGet}, and the write then only
+ * applies to that version, so it cannot overwrite changes the client has not
+ * seen. A mismatch is answered with 409 Conflict and the current ETag.
+ */
+final class IfMatch {
+
+    private IfMatch() {
+    }
+
+    /**
+     * @param ifMatch the If-Match header, null if the request has none
+     * @param id the id of the recipe or review written
+     * @return the version the client expects, or null without If-Match or
+     *         with {@code If-Match: *}, to write whatever version is current
+     * @throws IllegalArgumentException if the header is not a single ETag of
+     *                                  this recipe or review
+     */
+    static Long expectedVersion(String ifMatch, Long id) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() < 2 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            throw invalid(ifMatch);
+        }
+        tag = tag.substring(1, tag.length() - 1);
+        // the gzipped representation carries the same version
+        if (tag.endsWith("-gzip")) {
+            tag = tag.substring(0, tag.length() - "-gzip".length());
+        }
+        String prefix = id + ".";
+        if (!tag.startsWith(prefix)) {
+            throw invalid(ifMatch);
+        }
+        try {
+            return Long.valueOf(tag.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            throw invalid(ifMatch);
+        }
+    }
+
+    private static IllegalArgumentException invalid(String ifMatch) {
+        return new IllegalArgumentException("If-Match must be * or the single ETag this resource was read with, not "
+                + ifMatch + ".");
+    }
+}
@@ -0,0 +1,26 @@
+package com.crus.RecipeAPI.controllers;
+
+import com.crus.RecipeAPI.services.ReviewWriteBehind;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class ReadYourWritesConfig {
+
+    // only needed while reviews can be queued; see EndpointMetricsConfig for
+    // why this is a bean method
+    @Bean
+    @ConditionalOnProperty(name = "recipe.reviews.write-behind.enabled", havingValue = "true")
+    public WebMvcConfigurer readYourWritesConfigurer(ReviewWriteBehind reviewWriteBehind) {
+        ReadYourWritesInterceptor interceptor = new ReadYourWritesInterceptor(reviewWriteBehind);
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(interceptor);
+            }
+        };
+    }
+}
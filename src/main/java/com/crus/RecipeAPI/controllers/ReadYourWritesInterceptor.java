@@ -0,0 +1,37 @@
+package com.crus.RecipeAPI.controllers;
+
+import com.crus.RecipeAPI.services.ReviewWriteBehind;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Holds a signed-in user's reads until the reviews they posted through the
+ * write-behind queue are in the database, so they always see their own
+ * reviews. Other users' reads are not delayed.
+ */
+class ReadYourWritesInterceptor implements HandlerInterceptor {
+
+    private final ReviewWriteBehind reviewWriteBehind;
+
+    ReadYourWritesInterceptor(ReviewWriteBehind reviewWriteBehind) {
+        this.reviewWriteBehind = reviewWriteBehind;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!HttpMethod.GET.matches(request.getMethod())) {
+            return true;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            reviewWriteBehind.awaitPending(authentication.getName());
+        }
+        return true;
+    }
+}
@@ -1,21 +1,37 @@
 package com.crus.RecipeAPI.controllers;
 
+import com.crus.RecipeAPI.exceptions.ConcurrentUpdateException;
 import com.crus.RecipeAPI.exceptions.NoSuchRecipeException;
 import com.crus.RecipeAPI.models.*;
 import com.crus.RecipeAPI.repos.UserRepo;
+import com.crus.RecipeAPI.services.RecipeImportService;
 import com.crus.RecipeAPI.services.RecipeService;
+import com.crus.RecipeAPI.services.ResponseBodyCache;
+import com.crus.RecipeAPI.services.ResponseBodyCache.Membership;
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
 
 /**
  * RecipeController is a REST controller that manages endpoints for handling
@@ -23,6 +39,10 @@ import java.util.List;
  * and delete recipes. This controller interacts with the RecipeService layer
  * to perform business logic and communicates responses to API clients using
  * ResponseEntity.
+ * <p>
+ * The recipe reads and searches answer from {@link ResponseBodyCache} where
+ * they can, writing the cached JSON (gzipped if the client accepts it)
+ * without serialising anything.
  */
 @RestController
 @RequestMapping("/recipes")
@@ -32,6 +52,94 @@ public class RecipeController {
     RecipeService recipeService;
     @Autowired
     private UserRepo userRepo;
+    @Autowired
+    RecipeImportService recipeImportService;
+    @Autowired
+    ResponseBodyCache responseBodyCache;
+
+    @FunctionalInterface
+    private interface RecipeQuery<T> {
+        T run() throws NoSuchRecipeException;
+    }
+
+    /**
+     * Answers from the response body cache, or runs the query and caches its
+     * serialised result.
+     *
+     * @param recipeIds the recipes the result contains, which its cache entry depends on
+     */
+    private <T> ResponseEntity<byte[]> cachedJson(String key, Membership membership, boolean gzip,
+                                                  RecipeQuery<T> query, Function<T, List<Long>> recipeIds)
+            throws NoSuchRecipeException {
+        ResponseBodyCache.CachedBody body = responseBodyCache.get(key);
+        if (body == null) {
+            long stamp = responseBodyCache.stamp();
+            T result = query.run();
+            body = responseBodyCache.put(key, stamp, result, recipeIds.apply(result), membership, null);
+        }
+        return CachedResponses.json(body, gzip);
+    }
+
+    /**
+     * Like {@link #cachedJson}, for a conditional GET whose validators were
+     * set from {@code version}. Bodies are cached per version. A body that
+     * turns out to be of another version, because the content changed in
+     * between or a cache still held the old state, is sent uncached under
+     * its own ETag and Last-Modified.
+     *
+     * @param key the cache key, which has to include the version's tag
+     * @param versionOf the version the query result represents
+     */
+    private <T> ResponseEntity<byte[]> versionedJson(String key, ContentVersion version, Membership membership,
+                                                     boolean gzip, HttpServletResponse response,
+                                                     RecipeQuery<T> query,
+                                                     Function<T, List<Long>> recipeIds,
+                                                     Function<T, ContentVersion> versionOf)
+            throws NoSuchRecipeException {
+        ResponseBodyCache.CachedBody body = responseBodyCache.get(key);
+        if (body != null) {
+            return CachedResponses.json(body, gzip);
+        }
+        long stamp = responseBodyCache.stamp();
+        T result = query.run();
+        ContentVersion actual = versionOf.apply(result);
+        if (!actual.tag().equals(version.tag())) {
+            ConditionalGet.sentVersion(response, actual, gzip);
+            return CachedResponses.json(
+                    responseBodyCache.serialise(result, recipeIds.apply(result), membership, null), gzip);
+        }
+        body = responseBodyCache.put(key, stamp, result, recipeIds.apply(result), membership, null);
+        return CachedResponses.json(body, gzip);
+    }
+
+    /**
+     * Like {@link #cachedJson}, but only caches once the name index answers
+     * the search; the warm-up fallback matches differently and is served
+     * uncached.
+     */
+    private ResponseEntity<byte[]> nameSearchJson(String key, Membership membership, boolean gzip,
+                                                  RecipeQuery<List<RecipeDetail>> query)
+            throws NoSuchRecipeException {
+        if (recipeService.isNameSearchIndexed()) {
+            return cachedJson(key, membership, gzip, query, RecipeController::recipeIds);
+        }
+        List<RecipeDetail> result = query.run();
+        return CachedResponses.json(
+                responseBodyCache.serialise(result, recipeIds(result), membership, null), gzip);
+    }
+
+    private static List<Long> recipeIds(List<RecipeDetail> recipes) {
+        return recipes.stream().map(RecipeDetail::id).toList();
+    }
+
+    // \u001F keeps user-supplied parts from running into each other
+    private static String cacheKey(Object... parts) {
+        StringBuilder key = new StringBuilder();
+        for (Object part : parts) {
+            key.append(part).append('\u001F');
+        }
+        return key.toString();
+    }
 
     /**
      * Creates a new recipe by validating, saving it to the database, generating a location URI,
@@ -57,20 +165,77 @@ public class RecipeController {
         Recipe savedRecipe = recipeService.createNewRecipe(recipe);
         return ResponseEntity.created(savedRecipe.getLocationURI()).body(savedRecipe);
     }
+    /**
+     * Imports many recipes in one request, for seeding and migrations. The body
+     * is read as it arrives and may be a JSON array of recipes or one recipe per
+     * line (NDJSON), optionally gzip-compressed with Content-Encoding: gzip.
+     * Every recipe is validated and owned by the caller as with POST /recipes;
+     * invalid items are skipped and reported without failing the others.
+     *
+     * @param request the request whose body holds the recipes
+     * @return a ResponseEntity with the number of imported and failed items and
+     *         the per-item errors, or a 400 (Bad Request) if the body cannot be read
+     */
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, "application/x-ndjson"})
+    public ResponseEntity<?> importRecipes(HttpServletRequest request, Authentication authentication) {
+        CustomUserDetails user = userRepo.findByUsername(authentication.getName());
+        try {
+            InputStream body = request.getInputStream();
+            if ("gzip".equalsIgnoreCase(request.getHeader(HttpHeaders.CONTENT_ENCODING))) {
+                body = new GZIPInputStream(body);
+            }
+            return ResponseEntity.ok(recipeImportService.importRecipes(body, user));
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     /**
      * Retrieves a recipe by its unique ID. If the recipe is found, it returns the recipe
      * with an HTTP 200 (OK) status. If no recipe is found with the given ID, it returns
-     * a 404 (Not Found) response with an error message.
+     * a 404 (Not Found) response with an error message. Responses carry a strong ETag
+     * and Last-Modified; a request whose If-None-Match still matches gets a 304 (Not
+     * Modified) without the recipe being loaded.
      *
      * @param id the unique identifier of the recipe to be retrieved; cannot be null
      * @return a ResponseEntity containing the recipe object if found, or an error message
      *         if no recipe is found
      */
     @GetMapping("/{id}")
-    public ResponseEntity<?>  getRecipeById(@PathVariable("id") Long id) {
+    public ResponseEntity<?>  getRecipeById(@PathVariable("id") Long id,
+                                            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                            WebRequest webRequest, HttpServletResponse response) {
+        try {
+            boolean gzip = CachedResponses.gzip(responseBodyCache, acceptEncoding);
+            ContentVersion version = recipeService.getRecipeVersion(id);
+            if (ConditionalGet.notModified(webRequest, version, gzip)) {
+                return null;
+            }
+            return versionedJson(cacheKey("recipe", id, version.tag()), version, Membership.FIXED, gzip, response,
+                    () -> recipeService.getRecipeById(id, version), recipe -> List.of(recipe.id()),
+                    RecipeDetail::contentVersion);
+        } catch (NoSuchRecipeException e) {
+            return ResponseEntity
+                    .status(HttpStatus.NOT_FOUND)
+                    .body(e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the number of reviews of a recipe, their mean rating, its standard
+     * deviation and how many reviews gave each rating from 1 to 10. Served from
+     * counters kept on the recipe, and conditional like {@link #getRecipeById}.
+     *
+     * @param id the unique identifier of the recipe
+     * @return the rating statistics, or 404 (Not Found) if there is no such recipe
+     */
+    @GetMapping("/{id}/rating-stats")
+    public ResponseEntity<?> getRatingStats(@PathVariable("id") Long id, WebRequest webRequest) {
         try {
-            Recipe recipe = recipeService.getRecipeById(id);
-            return ResponseEntity.ok(recipe);
+            if (ConditionalGet.notModified(webRequest, recipeService.getRecipeVersion(id))) {
+                return null;
+            }
+            return ResponseEntity.ok(recipeService.getRatingStats(id));
         } catch (NoSuchRecipeException e) {
             return ResponseEntity
                     .status(HttpStatus.NOT_FOUND)
@@ -79,22 +244,77 @@ public class RecipeController {
     }
 
     /**
-     * Retrieves all recipes available in the system. If recipes are found, it returns
-     * a list of recipes with an HTTP 200 (OK) status. If no recipes are available, it
-     * returns a 404 (Not Found) status with an appropriate error message.
+     * Retrieves one page of recipes, ordered by the requested property and paged
+     * with keyset cursors. The recipes are returned as a list; when more recipes
+     * follow, the cursor of the next page is sent in the {@code X-Next-Cursor}
+     * header and as a {@code Link} header with {@code rel="next"}.
      *
-     * @return a ResponseEntity containing a list of Recipe objects if available,
-     *         or an error message if no recipes are found in the system
+     * @param limit the maximum number of recipes to return, between 1 and 100
+     * @param after the cursor of the previous page; omit it for the first page
+     * @param sort one of id, averageRating, difficultyRating or minutesToMake
+     * @param direction asc or desc
+     * @return a ResponseEntity containing the page of Recipe objects, a 400 (Bad Request)
+     *         for invalid paging parameters, or a 404 (Not Found) if there are no recipes
      */
     @GetMapping
-    public ResponseEntity<?> getAllRecipes() {
+    public ResponseEntity<?> getAllRecipes(
+            @RequestParam(value = "limit", defaultValue = "20") int limit,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "sort", defaultValue = "id") String sort,
+            @RequestParam(value = "direction", defaultValue = "asc") String direction,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         try {
-            List<Recipe> allRecipes = recipeService.getAllRecipes();
-            return ResponseEntity.ok(recipeService.getAllRecipes());
+            RecipeSort recipeSort = RecipeSort.fromProperty(sort);
+            Sort.Direction sortDirection = Sort.Direction.fromString(direction);
+            boolean gzip = CachedResponses.gzip(responseBodyCache, acceptEncoding);
+
+            String key = cacheKey("page", recipeSort, sortDirection, after, limit);
+            ResponseBodyCache.CachedBody body = responseBodyCache.get(key);
+            if (body == null) {
+                long stamp = responseBodyCache.stamp();
+                RecipePage page = recipeService.getRecipePage(recipeSort, sortDirection, after, limit);
+                body = responseBodyCache.put(key, stamp, page.recipes(), recipeIds(page.recipes()),
+                        recipeSort == RecipeSort.AVERAGE_RATING ? Membership.RATINGS : Membership.CATALOGUE,
+                        page.nextCursor());
+            }
+
+            ResponseEntity.BodyBuilder response = CachedResponses.ok(body, gzip);
+            if (body.nextCursor() != null) {
+                String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                        .replaceQueryParam("after", body.nextCursor())
+                        .toUriString();
+                response.header("X-Next-Cursor", body.nextCursor());
+                response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+            }
+            return response.body(CachedResponses.content(body, gzip));
         } catch (NoSuchRecipeException e) {
             return ResponseEntity
                     .status(HttpStatus.NOT_FOUND)
                     .body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Streams the whole recipe catalogue, ordered by id, for bulk consumers such
+     * as the nightly analytics pull. Rows are written as they are read from the
+     * database, so the response can be arbitrarily large without using more heap.
+     *
+     * @param format ndjson (one JSON object per line) or csv
+     * @param acceptEncoding the response is gzip-compressed when this accepts gzip
+     * @return a ResponseEntity streaming the export, or a 400 (Bad Request) for an unknown format
+     */
+    @GetMapping("/export")
+    public ResponseEntity<?> exportRecipes(
+            @RequestParam(value = "format", defaultValue = "ndjson") String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        try {
+            ExportFormat exportFormat = ExportFormat.fromParameter(format);
+            return ExportResponses.stream("recipes", exportFormat, acceptEncoding,
+                    out -> recipeService.exportRecipes(exportFormat, out));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
@@ -103,34 +323,101 @@ public class RecipeController {
      * are found, it returns a list of matching recipes with an HTTP 200 (OK) status.
      * If no recipes match the search criteria, it returns a 404 (Not Found) response
      * with an error message.
+     * <p>
+     * Every word of the keyword has to match the start of a word in the name,
+     * and the best matches come first. For a short while after startup, until
+     * the name index is built, the keyword is instead matched as a substring of
+     * the name and the recipes come in id order; those answers are not cached.
      *
      * @param name the keyword to search for in recipe names; must not be null
      * @return a ResponseEntity containing a list of Recipe objects if matches are found,
      *         or an error message if no recipes match the search criteria
      */
     @GetMapping("/search/{name}")
-    ResponseEntity<?> getRecipesByName(@PathVariable("name") String name) {
+    ResponseEntity<?> getRecipesByName(@PathVariable("name") String name,
+                                       @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         try {
-            List<Recipe> matchingRecipes = recipeService.getRecipesByName(name);
+            return nameSearchJson(cacheKey("name", name), Membership.CATALOGUE,
+                    CachedResponses.gzip(responseBodyCache, acceptEncoding),
+                    () -> recipeService.getRecipesByName(name));
+        } catch (NoSuchRecipeException e) {
+            return ResponseEntity
+                    .status(HttpStatus.NOT_FOUND)
+                    .body(e.getMessage());
+        }
+    }
 
-            return ResponseEntity.ok(matchingRecipes);
+    /**
+     * Finds the recipes that can be cooked with the given ingredients. With
+     * {@code maxMissing} greater than zero, recipes lacking up to that many
+     * ingredients are included as well, each listing what is missing.
+     *
+     * @param have the ingredient names at hand; repeat the parameter or separate with commas
+     * @param maxMissing how many ingredients a recipe may be missing, 0 by default
+     * @return a ResponseEntity with the matches, fewest missing ingredients first, a 404
+     *         (Not Found) if nothing can be made, or a 503 (Service Unavailable) during startup
+     */
+    @GetMapping("/search/ingredients")
+    public ResponseEntity<?> getRecipesByIngredients(
+            @RequestParam("have") List<String> have,
+            @RequestParam(value = "maxMissing", defaultValue = "0") int maxMissing,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        try {
+            return cachedJson(cacheKey("ingredients", String.join(",", have), maxMissing), Membership.CATALOGUE,
+                    CachedResponses.gzip(responseBodyCache, acceptEncoding),
+                    () -> recipeService.getRecipesByIngredients(have, maxMissing),
+                    matches -> matches.stream().map(match -> match.recipe().id()).toList());
         } catch (NoSuchRecipeException e) {
             return ResponseEntity
                     .status(HttpStatus.NOT_FOUND)
                     .body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity
+                    .status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(e.getMessage());
+        }
+    }
+
+    /**
+     * Lists the best rated recipes, optionally within a band of difficulty
+     * ratings. Served from memory, so it is cheap enough to poll.
+     *
+     * @param limit how many recipes to return, between 1 and 100
+     * @param minDifficulty the lowest difficulty rating to include, 0 by default
+     * @param maxDifficulty the highest difficulty rating to include, 10 by default
+     * @return a ResponseEntity with the recipes best rated first, a 400 (Bad Request)
+     *         for invalid parameters, or a 503 (Service Unavailable) during startup
+     */
+    @GetMapping("/top")
+    public ResponseEntity<?> getTopRecipes(
+            @RequestParam(value = "limit", defaultValue = "10") int limit,
+            @RequestParam(value = "minDifficulty", required = false) Integer minDifficulty,
+            @RequestParam(value = "maxDifficulty", required = false) Integer maxDifficulty) {
+        try {
+            return ResponseEntity.ok(recipeService.getTopRecipes(limit, minDifficulty, maxDifficulty));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity
+                    .status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(e.getMessage());
         }
     }
 
     @GetMapping("/search/{name}/minRating/{minRating}")
     public ResponseEntity<?> getRecipesByNameAndMinRating(@PathVariable("name") String name,
-                                                          @PathVariable("minRating") Double minRating) {
+                                                          @PathVariable("minRating") Double minRating,
+                                                          @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         try {
             if (minRating < 0 || minRating > 10) {
                 return ResponseEntity.badRequest()
                         .body("Minimum rating must be between 0 and 10.");
             }
-            List<Recipe> recipes = recipeService.getRecipesByNameAndMinRating(name, minRating);
-            return ResponseEntity.ok(recipes);
+            return nameSearchJson(cacheKey("name", name, "minRating", minRating), Membership.RATINGS,
+                    CachedResponses.gzip(responseBodyCache, acceptEncoding),
+                    () -> recipeService.getRecipesByNameAndMinRating(name, minRating));
         } catch (NoSuchRecipeException e) {
             return ResponseEntity
                     .status(HttpStatus.NOT_FOUND)
@@ -138,12 +425,24 @@ public class RecipeController {
         }
     }
 
+    // conditional like getRecipeById, versioned by an aggregate over the user's
+    // recipes; ETag only, see ContentVersion.ofRecipeList
     @GetMapping("/user/{username}")
-    ResponseEntity<?> getRecipesByUser(@PathVariable("username") String username) {
+    ResponseEntity<?> getRecipesByUser(@PathVariable("username") String username,
+                                       @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                       WebRequest webRequest, HttpServletResponse response) {
 
         try {
-            List<Recipe> userRecipes = recipeService.getRecipesByUser(username);
-            return ResponseEntity.ok(userRecipes);
+            boolean gzip = CachedResponses.gzip(responseBodyCache, acceptEncoding);
+            Optional<ContentVersion> stamp = recipeService.getUserRecipesVersion(username);
+            if (stamp.isPresent() && ConditionalGet.notModified(webRequest, stamp.get(), gzip)) {
+                return null;
+            }
+            // without recipes nothing is cached: the tag of an empty list never matches a body
+            ContentVersion version = stamp.orElse(ContentVersion.ofRecipes(List.of()));
+            return versionedJson(cacheKey("user", username, version.tag()), version, Membership.CATALOGUE, gzip,
+                    response, () -> recipeService.getRecipesByUser(username), RecipeController::recipeIds,
+                    ContentVersion::ofRecipes);
         } catch (NoSuchRecipeException e) {
             return ResponseEntity
                     .status(HttpStatus.NOT_FOUND)
@@ -153,10 +452,12 @@ public class RecipeController {
 
     @GetMapping("/user/{username}/search/{name}")
     public ResponseEntity<?> getRecipesByNameAndUser(@PathVariable("username") String username,
-                                                     @PathVariable("name") String name) {
+                                                     @PathVariable("name") String name,
+                                                     @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         try {
-            List<Recipe> recipes = recipeService.getRecipesByNameAndUser(name, username);
-            return ResponseEntity.ok(recipes);
+            return nameSearchJson(cacheKey("user", username, "name", name), Membership.CATALOGUE,
+                    CachedResponses.gzip(responseBodyCache, acceptEncoding),
+                    () -> recipeService.getRecipesByNameAndUser(name, username));
         } catch (NoSuchRecipeException e) {
             return ResponseEntity
                     .status(HttpStatus.NOT_FOUND)
@@ -167,27 +468,34 @@ public class RecipeController {
     /**
      * Deletes a recipe identified by its unique ID. If the recipe is successfully deleted,
      * it returns a success message with an HTTP 200 (OK) status. If the recipe is not found,
-     * it returns a 400 (Bad Request) response with an error message.
+     * it returns a 400 (Bad Request) response with an error message. With an
+     * If-Match header, a recipe changed since that ETag is answered with 409
+     * (Conflict) instead of being deleted.
      *
      * @param id the unique identifier of the*/
     @DeleteMapping("/{id}")
     @PreAuthorize("hasPermission(#id, 'Recipe', 'delete')")
-    public ResponseEntity<?> deleteRecipeById(@PathVariable("id") Long id) {
+    public ResponseEntity<?> deleteRecipeById(@PathVariable("id") Long id,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            Recipe deletedRecipe = recipeService.deleteRecipeById(id);
+            Recipe deletedRecipe = recipeService.deleteRecipeById(id, IfMatch.expectedVersion(ifMatch, id));
             String successMessage = "The recipe with ID " + deletedRecipe.getId() +
                     " and name " + deletedRecipe.getName() +
                     " was deleted.";
             return ResponseEntity.ok(successMessage);
-        } catch (NoSuchRecipeException e) {
+        } catch (NoSuchRecipeException | IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (ConcurrentUpdateException e) {
+            return conflict(id, e);
         }
     }
 
     /**
      * Updates an existing recipe with the provided details. If the specified recipe
      * does not exist or the update fails due to validation errors, an appropriate
-     * error response is returned.
+     * error response is returned. With an If-Match header, a recipe changed
+     * since that ETag is answered with 409 (Conflict) instead of being
+     * overwritten.
      *
      * @param updatedRecipe the Recipe object containing updated details; must not be null
      * @return a ResponseEntity containing the updated Recipe object if successful,
@@ -195,26 +503,76 @@ public class RecipeController {
      */
     @PatchMapping
     @PreAuthorize("hasPermission(#updatedRecipe.id, 'Recipe', 'edit')")
-    public ResponseEntity<?> updateRecipe(@RequestBody Recipe updatedRecipe) {
+    public ResponseEntity<?> updateRecipe(@RequestBody Recipe updatedRecipe,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            Recipe returnedUpdatedRecipe = recipeService.updateRecipe(updatedRecipe, true);
+            Recipe returnedUpdatedRecipe = recipeService.updateRecipe(updatedRecipe, true,
+                    IfMatch.expectedVersion(ifMatch, updatedRecipe.getId()));
             return ResponseEntity.ok(returnedUpdatedRecipe);
-        } catch (NoSuchRecipeException | IllegalStateException e) {
+        } catch (NoSuchRecipeException | IllegalStateException | IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (ConcurrentUpdateException e) {
+            return conflict(updatedRecipe.getId(), e);
+        }
+    }
+
+    /**
+     * Applies a JSON Merge Patch to a recipe, writing only what it changes.
+     * Ingredients and steps in the patch are matched to the stored ones by
+     * id; elements without one are added and stored ones left out are
+     * removed.
+     *
+     * @param id the unique identifier of the recipe to patch
+     * @param patch the merge patch, sent as application/merge-patch+json
+     * @param ifMatch the ETag the patch was written against, if any
+     * @return the patched recipe, 404 if it does not exist, 400 if the patch
+     *         is invalid, or 409 if the recipe changed since the If-Match ETag
+     *         or kept changing concurrently
+     */
+    @PatchMapping(path = "/{id}", consumes = "application/merge-patch+json")
+    @PreAuthorize("hasPermission(#id, 'Recipe', 'edit')")
+    public ResponseEntity<?> patchRecipe(@PathVariable("id") Long id, @RequestBody JsonNode patch,
+                                         @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        try {
+            return ResponseEntity.ok(recipeService.patchRecipe(id, patch, IfMatch.expectedVersion(ifMatch, id)));
+        } catch (NoSuchRecipeException e) {
+            return ResponseEntity
+                    .status(HttpStatus.NOT_FOUND)
+                    .body(e.getMessage());
+        } catch (IllegalArgumentException | IllegalStateException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (ConcurrentUpdateException e) {
+            return conflict(id, e);
         }
     }
 
     @PatchMapping("/{id}/difficulty")
     @PreAuthorize("hasPermission(#id, 'Recipe', 'edit')")
-    public ResponseEntity<?> updateRecipeDifficulty(@PathVariable("id") Long id, @RequestParam("rating") int difficultyRating) {
+    public ResponseEntity<?> updateRecipeDifficulty(@PathVariable("id") Long id, @RequestParam("rating") int difficultyRating,
+                                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 
         try {
-            Recipe updatedRecipe = recipeService.updateRecipeDifficulty(id, difficultyRating);
+            Recipe updatedRecipe = recipeService.updateRecipeDifficulty(id, difficultyRating,
+                    IfMatch.expectedVersion(ifMatch, id));
             return ResponseEntity.ok(updatedRecipe);
         } catch (NoSuchRecipeException e) {
             return ResponseEntity
                     .status(HttpStatus.NOT_FOUND)
                     .body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (ConcurrentUpdateException e) {
+            return conflict(id, e);
+        }
+    }
+
+    // 409 with the ETag a GET of the recipe would return now, so the client
+    // can tell whether the copy it holds is the current one
+    private static ResponseEntity<?> conflict(Long id, ConcurrentUpdateException e) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.CONFLICT);
+        if (e.getCurrentVersion() != null) {
+            response.eTag(ConditionalGet.eTag(ContentVersion.ofRecipe(id, e.getCurrentVersion(), null), false));
         }
+        return response.body(e.getMessage());
     }
 }
@@ -1,18 +1,25 @@
 package com.crus.RecipeAPI.controllers;
 
+import com.crus.RecipeAPI.exceptions.ConcurrentUpdateException;
 import com.crus.RecipeAPI.exceptions.NoSuchRecipeException;
 import com.crus.RecipeAPI.exceptions.NoSuchReviewException;
+import com.crus.RecipeAPI.models.ContentVersion;
 import com.crus.RecipeAPI.models.CustomUserDetails;
-import com.crus.RecipeAPI.models.Recipe;
+import com.crus.RecipeAPI.models.ExportFormat;
 import com.crus.RecipeAPI.models.Review;
 import com.crus.RecipeAPI.services.ReviewService;
 import jdk.jshell.spi.ExecutionControl;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.net.URI;
 import java.util.Collection;
 import java.util.List;
 
@@ -23,11 +30,12 @@ public class ReviewController {
     @Autowired
     ReviewService reviewService;
 
+    // the ETag can be sent back as If-Match to update or delete this version only
     @GetMapping("/{id}")
     public ResponseEntity<?> getReviewById(@PathVariable("id") Long id) {
         try {
             Review retrievedReview = reviewService.getReviewById(id);
-            return ResponseEntity.ok(retrievedReview);
+            return ResponseEntity.ok().eTag(eTag(retrievedReview)).body(retrievedReview);
         } catch (IllegalStateException | NoSuchReviewException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -45,9 +53,27 @@ public class ReviewController {
         }
     }
 
+    // streams every review as ndjson or csv, see RecipeController.exportRecipes
+    @GetMapping("/export")
+    public ResponseEntity<?> exportReviews(
+            @RequestParam(value = "format", defaultValue = "ndjson") String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        try {
+            ExportFormat exportFormat = ExportFormat.fromParameter(format);
+            return ExportResponses.stream("reviews", exportFormat, acceptEncoding,
+                    out -> reviewService.exportReviews(exportFormat, out));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // conditional like RecipeController.getRecipeById, versioned by the recipe
     @GetMapping("/recipeRating/{recipeId}")
-    public ResponseEntity<?> getAverageReviewRating(@PathVariable("recipeId") Long recipeId) {
+    public ResponseEntity<?> getAverageReviewRating(@PathVariable("recipeId") Long recipeId, WebRequest webRequest) {
         try {
+            if (ConditionalGet.notModified(webRequest, reviewService.getRatingVersion(recipeId))) {
+                return null;
+            }
             double retrievedRating = reviewService.getReviewByRecipeId(recipeId);
             return ResponseEntity.ok(retrievedRating);
         } catch (IllegalStateException | NoSuchRecipeException | NoSuchReviewException e) {
@@ -85,10 +111,17 @@ public class ReviewController {
             @PathVariable("recipeId") Long recipeId, Authentication authentication) {
         try {
             review.setUser((CustomUserDetails) authentication.getPrincipal());
-            Recipe insertedRecipe =
+            if (reviewService.queueNewReview(review, recipeId)) {
+                // written shortly by the write-behind queue
+                return ResponseEntity.accepted().body(review);
+            }
+            Review insertedReview =
                     reviewService.postNewReview(review, recipeId);
-            return ResponseEntity.created(
-                    insertedRecipe.getLocationURI()).body(insertedRecipe);
+            URI location = ServletUriComponentsBuilder.fromCurrentContextPath()
+                    .path("/review/{id}")
+                    .buildAndExpand(insertedReview.getId())
+                    .toUri();
+            return ResponseEntity.created(location).body(insertedReview);
         } catch (NoSuchRecipeException | IllegalStateException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -97,26 +130,48 @@ public class ReviewController {
     @DeleteMapping("/{id}")
     @PreAuthorize("hasPermission(#id, 'Review', 'delete')")
     public ResponseEntity<?> deleteReviewById(
-            @PathVariable("id") Long id) {
+            @PathVariable("id") Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            Review review = reviewService.deleteReviewById(id);
+            Review review = reviewService.deleteReviewById(id, IfMatch.expectedVersion(ifMatch, id));
             return ResponseEntity.ok(review);
-        } catch (NoSuchReviewException e) {
+        } catch (NoSuchReviewException | NoSuchRecipeException | IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (ConcurrentUpdateException e) {
+            return conflict(id, e);
         }
     }
 
+    // with If-Match, a review changed since that ETag is not overwritten but
+    // answered with 409; only the rating and description sent are applied
     @PatchMapping
-    @PreAuthorize("hasPermission(#reviewToUpdate.id, 'Reivew', 'edit')")
+    @PreAuthorize("hasPermission(#reviewToUpdate.id, 'Review', 'edit')")
     public ResponseEntity<?> updateReviewById(
-            @RequestBody Review reviewToUpdate) {
+            @RequestBody Review reviewToUpdate,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            Review review =
-                    reviewService.updateReviewById(reviewToUpdate);
-            return ResponseEntity.ok(review);
-        } catch (NoSuchReviewException e) {
+            Review review = reviewService.updateReviewById(reviewToUpdate,
+                    IfMatch.expectedVersion(ifMatch, reviewToUpdate.getId()));
+            return ResponseEntity.ok().eTag(eTag(review)).body(review);
+        } catch (NoSuchReviewException | NoSuchRecipeException | IllegalArgumentException
+                 | IllegalStateException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (ConcurrentUpdateException e) {
+            return conflict(reviewToUpdate.getId(), e);
+        }
+    }
+
+    private static String eTag(Review review) {
+        return ConditionalGet.eTag(ContentVersion.ofReview(review.getId(), review.getVersion()), false);
+    }
+
+    // 409 with the review's current ETag, like RecipeController's
+    private static ResponseEntity<?> conflict(Long id, ConcurrentUpdateException e) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.CONFLICT);
+        if (e.getCurrentVersion() != null) {
+            response.eTag(ConditionalGet.eTag(ContentVersion.ofReview(id, e.getCurrentVersion()), false));
         }
+        return response.body(e.getMessage());
     }
 }
 
@@ -0,0 +1,23 @@
+package com.crus.RecipeAPI.exceptions;
+
+/**
+ * Thrown when a write kept conflicting with concurrent writes to the same
+ * entity and gave up retrying.
+ */
+public class ConcurrentUpdateException extends Exception {
+
+    private final Long currentVersion;
+
+    public ConcurrentUpdateException(String message, Long currentVersion) {
+        super(message);
+        this.currentVersion = currentVersion;
+    }
+
+    /**
+     * @return the version of the entity when the write gave up, null if it no
+     *         longer exists
+     */
+    public Long getCurrentVersion() {
+        return currentVersion;
+    }
+}
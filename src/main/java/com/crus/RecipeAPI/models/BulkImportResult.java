@@ -0,0 +1,15 @@
+package com.crus.RecipeAPI.models;
+
+import java.util.List;
+
+/**
+ * The outcome of POST /recipes/bulk.
+ *
+ * @param imported how many recipes were inserted
+ * @param failed how many items were rejected
+ * @param errors why items were rejected, in input order; only the first
+ *               {@code RecipeImportService.MAX_REPORTED_ERRORS} are listed
+ * @param errorsTruncated true when more items failed than are listed
+ */
+public record BulkImportResult(long imported, long failed, List<ImportError> errors, boolean errorsTruncated) {
+}
@@ -0,0 +1,41 @@
+package com.crus.RecipeAPI.models;
+
+import com.crus.RecipeAPI.services.CacheInvalidation;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * A row of the shared change log the nodes exchange cache invalidations
+ * through. Ids come from AUTO_INCREMENT, so they grow with insertion order.
+ */
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Table(name = "cache_change_log", indexes = @Index(columnList = "createdAt"))
+public class CacheChangeLogEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private CacheInvalidation.Kind kind;
+
+    private Long entityId;
+
+    @Column(nullable = false, length = 36)
+    private String origin;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    public CacheInvalidation toInvalidation() {
+        return new CacheInvalidation(kind, entityId, origin, createdAt);
+    }
+}
@@ -0,0 +1,42 @@
+package com.crus.RecipeAPI.models;
+
+import java.time.Instant;
+import java.util.Collection;
+
+/**
+ * Identifies the current state of what an endpoint returns, so a client that
+ * already holds it can be answered with 304 Not Modified.
+ *
+ * @param tag changes whenever the content does; sent back quoted as a strong ETag
+ * @param lastModified when the content last changed, null if unknown
+ */
+public record ContentVersion(String tag, Instant lastModified) {
+
+    public static ContentVersion ofRecipe(Long id, Long version, Instant updatedAt) {
+        return new ContentVersion(id + "." + version, updatedAt);
+    }
+
+    public static ContentVersion ofReview(Long id, Long version) {
+        return new ContentVersion(id + "." + version, null);
+    }
+
+    /**
+     * The version of a list of recipes: any insert, delete or update among
+     * them changes at least one of the count, the id sum and the version sum.
+     * It has no Last-Modified: the newest updatedAt of the list does not
+     * advance when a recipe is deleted, so If-Modified-Since would answer 304
+     * for a list that lost one.
+     */
+    public static ContentVersion ofRecipeList(long count, long idSum, long versionSum) {
+        return new ContentVersion(count + "." + idSum + "." + versionSum, null);
+    }
+
+    /**
+     * @return the {@link #ofRecipeList} version of the given recipes
+     */
+    public static ContentVersion ofRecipes(Collection<RecipeDetail> recipes) {
+        return ofRecipeList(recipes.size(),
+                recipes.stream().mapToLong(RecipeDetail::id).sum(),
+                recipes.stream().mapToLong(RecipeDetail::version).sum());
+    }
+}
@@ -1,8 +1,10 @@
 package com.crus.RecipeAPI.models;
 
+import com.crus.RecipeAPI.security.CredentialCacheInvalidator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 import org.springframework.security.core.userdetails.UserDetails;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -14,6 +16,9 @@ import java.util.Collection;
 @AllArgsConstructor
 @NoArgsConstructor
 @Table(name = "user_details")
+@EntityListeners(CredentialCacheInvalidator.class)
+// the authors of a page of reviews are loaded together instead of one by one
+@BatchSize(size = 100)
 public class CustomUserDetails implements UserDetails {
 
     @Id
@@ -57,6 +62,7 @@ public class CustomUserDetails implements UserDetails {
     }
 
     @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    @BatchSize(size = 100)
     @JoinColumn(name = "userId", nullable = false)
     private Collection<Role> authorities = new ArrayList<>();
 
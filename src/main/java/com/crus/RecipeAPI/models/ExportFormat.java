@@ -0,0 +1,37 @@
+package com.crus.RecipeAPI.models;
+
+import java.util.Arrays;
+
+/**
+ * The formats the bulk export endpoints can stream: one JSON object per line,
+ * or CSV with a header row.
+ */
+public enum ExportFormat {
+
+    NDJSON("ndjson", "application/x-ndjson"),
+    CSV("csv", "text/csv;charset=UTF-8");
+
+    private final String extension;
+    private final String mediaType;
+
+    ExportFormat(String extension, String mediaType) {
+        this.extension = extension;
+        this.mediaType = mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public static ExportFormat fromParameter(String format) {
+        return Arrays.stream(values())
+                .filter(exportFormat -> exportFormat.extension.equalsIgnoreCase(format))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(
+                        "Cannot export as " + format + ", use ndjson or csv."));
+    }
+}
@@ -0,0 +1,12 @@
+package com.crus.RecipeAPI.models;
+
+import java.util.List;
+
+/**
+ * A flat row of a bulk export. Serialised as-is for NDJSON; for CSV its
+ * values are written in the order of the export's header.
+ */
+public interface ExportRow {
+
+    List<Object> csvValues();
+}
@@ -0,0 +1,9 @@
+package com.crus.RecipeAPI.models;
+
+/**
+ * Why one item of a bulk import was rejected.
+ *
+ * @param index the zero-based position of the item in the uploaded array or stream
+ */
+public record ImportError(long index, String message) {
+}
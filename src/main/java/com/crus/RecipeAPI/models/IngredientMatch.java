@@ -0,0 +1,10 @@
+package com.crus.RecipeAPI.models;
+
+import java.util.List;
+
+/**
+ * A recipe returned by the ingredient search, together with the ingredients
+ * still missing to cook it.
+ */
+public record IngredientMatch(RecipeDetail recipe, List<String> missingIngredients) {
+}
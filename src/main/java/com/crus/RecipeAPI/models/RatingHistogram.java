@@ -0,0 +1,158 @@
+package com.crus.RecipeAPI.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+/**
+ * How many reviews gave a recipe each rating from 1 to 10, stored as ten
+ * counters on the recipe row next to its rating sum and count. The counters
+ * are not updatable through the entity: the review write paths shift them in
+ * RecipeRepo's atomic aggregate UPDATE, so concurrent reviews never lose an
+ * increment.
+ * <p>
+ * The same type carries those shifts: a review write builds a histogram of
+ * the ratings it adds and removes, e.g. {@code new RatingHistogram().remove(3).add(8)}
+ * for a rating changed from 3 to 8, and its counts may be negative.
+ * <p>
+ * Reviews stored before ratings were validated may have none, i.e. a rating
+ * of {@value #UNRATED}. They are left out of the histogram, and so out of the
+ * rating sum and count kept next to it.
+ */
+@Embeddable
+public class RatingHistogram {
+
+    public static final int MIN_RATING = 1;
+    public static final int MAX_RATING = 10;
+    public static final int UNRATED = 0;
+
+    @Column(name = "rating_1_count", nullable = false, updatable = false)
+    private int ones;
+
+    @Column(name = "rating_2_count", nullable = false, updatable = false)
+    private int twos;
+
+    @Column(name = "rating_3_count", nullable = false, updatable = false)
+    private int threes;
+
+    @Column(name = "rating_4_count", nullable = false, updatable = false)
+    private int fours;
+
+    @Column(name = "rating_5_count", nullable = false, updatable = false)
+    private int fives;
+
+    @Column(name = "rating_6_count", nullable = false, updatable = false)
+    private int sixes;
+
+    @Column(name = "rating_7_count", nullable = false, updatable = false)
+    private int sevens;
+
+    @Column(name = "rating_8_count", nullable = false, updatable = false)
+    private int eights;
+
+    @Column(name = "rating_9_count", nullable = false, updatable = false)
+    private int nines;
+
+    @Column(name = "rating_10_count", nullable = false, updatable = false)
+    private int tens;
+
+    /**
+     * @return whether a review with this rating is counted, see {@link #UNRATED}
+     */
+    public static boolean isRated(int rating) {
+        return rating != UNRATED;
+    }
+
+    // add and remove skip unrated reviews; other ratings outside 1..10 are rejected
+
+    public RatingHistogram add(int rating) {
+        if (isRated(rating)) {
+            shift(rating, 1);
+        }
+        return this;
+    }
+
+    public RatingHistogram remove(int rating) {
+        if (isRated(rating)) {
+            shift(rating, -1);
+        }
+        return this;
+    }
+
+    public int countOf(int rating) {
+        return switch (rating) {
+            case 1 -> ones;
+            case 2 -> twos;
+            case 3 -> threes;
+            case 4 -> fours;
+            case 5 -> fives;
+            case 6 -> sixes;
+            case 7 -> sevens;
+            case 8 -> eights;
+            case 9 -> nines;
+            case 10 -> tens;
+            default -> throw new IllegalArgumentException("Rating must be between 1 and 10.");
+        };
+    }
+
+    private void shift(int rating, int delta) {
+        switch (rating) {
+            case 1 -> ones += delta;
+            case 2 -> twos += delta;
+            case 3 -> threes += delta;
+            case 4 -> fours += delta;
+            case 5 -> fives += delta;
+            case 6 -> sixes += delta;
+            case 7 -> sevens += delta;
+            case 8 -> eights += delta;
+            case 9 -> nines += delta;
+            case 10 -> tens += delta;
+            default -> throw new IllegalArgumentException("Rating must be between 1 and 10.");
+        }
+    }
+
+    /**
+     * @return the number of reviews
+     */
+    public int count() {
+        int count = 0;
+        for (int rating = MIN_RATING; rating <= MAX_RATING; rating++) {
+            count += countOf(rating);
+        }
+        return count;
+    }
+
+    /**
+     * @return the sum of all ratings
+     */
+    public long sum() {
+        long sum = 0;
+        for (int rating = MIN_RATING; rating <= MAX_RATING; rating++) {
+            sum += (long) rating * countOf(rating);
+        }
+        return sum;
+    }
+
+    /**
+     * @return the mean rating, 0.0 without reviews
+     */
+    public double mean() {
+        int count = count();
+        return count == 0 ? 0.0 : (double) sum() / count;
+    }
+
+    /**
+     * @return the population standard deviation of the ratings, 0.0 without reviews
+     */
+    public double standardDeviation() {
+        int count = count();
+        if (count == 0) {
+            return 0.0;
+        }
+        double mean = mean();
+        double squares = 0.0;
+        for (int rating = MIN_RATING; rating <= MAX_RATING; rating++) {
+            squares += countOf(rating) * (rating - mean) * (rating - mean);
+        }
+        return Math.sqrt(squares / count);
+    }
+}
@@ -0,0 +1,27 @@
+package com.crus.RecipeAPI.models;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The review ratings of a recipe, as returned by GET /recipes/{id}/rating-stats.
+ *
+ * @param mean the average rating as stored on the recipe, the same value the
+ *             recipe endpoints report
+ * @param standardDeviation the population standard deviation of the ratings
+ * @param histogram the number of reviews per rating, for every rating from 1 to 10
+ */
+public record RatingStats(Long recipeId,
+                          int count,
+                          double mean,
+                          double standardDeviation,
+                          Map<Integer, Integer> histogram) {
+
+    public static RatingStats of(Long recipeId, double mean, RatingHistogram ratings) {
+        Map<Integer, Integer> histogram = new LinkedHashMap<>();
+        for (int rating = RatingHistogram.MIN_RATING; rating <= RatingHistogram.MAX_RATING; rating++) {
+            histogram.put(rating, ratings.countOf(rating));
+        }
+        return new RatingStats(recipeId, ratings.count(), mean, ratings.standardDeviation(), histogram);
+    }
+}
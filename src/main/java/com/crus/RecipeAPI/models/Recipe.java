@@ -1,17 +1,30 @@
 package com.crus.RecipeAPI.models;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.UpdateTimestamp;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
 import com.fasterxml.jackson.annotation.JsonInclude;
 
 @Entity
+@Table(indexes = {
+        // composite (key, id) indexes back the keyset pages of GET /recipes
+        @Index(name = "idx_recipe_average_rating", columnList = "averageRating, id"),
+        @Index(name = "idx_recipe_difficulty_rating", columnList = "difficultyRating, id"),
+        @Index(name = "idx_recipe_minutes_to_make", columnList = "minutesToMake, id")
+})
+// UPDATEs set only the changed columns
+@DynamicUpdate
 @Getter
 @Setter
 @Builder
@@ -19,10 +32,31 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 @NoArgsConstructor
 public class Recipe {
 
+    // ids are drawn from a pooled sequence (a table on MySQL) in blocks, so
+    // recipe inserts can be JDBC-batched, which IDENTITY rules out
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    // when a session holds several recipes, e.g. during a bulk import, their
+    // collections are initialised with one query per batch of this many
+    private static final int COLLECTION_BATCH_SIZE = 100;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "recipe_seq")
+    @SequenceGenerator(name = "recipe_seq", sequenceName = "recipe_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
+    // bumped on every write that changes what GET /recipes/{id} returns,
+    // including the review writes, which do it in RecipeRepo's aggregate
+    // UPDATEs; never taken from a request body
+    @Version
+    @Column(nullable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
+    @UpdateTimestamp
+    @JsonIgnore
+    private Instant updatedAt;
+
     @Column(nullable = false)
     private String name;
 
@@ -35,16 +69,22 @@ public class Recipe {
     @Column(nullable = false)
     private String submittedBy;
 
-    @OneToMany(cascade = CascadeType.ALL)
+    // children dropped from these collections are deleted, so an update can
+    // remove a single ingredient or step in place
+    @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = COLLECTION_BATCH_SIZE)
     @JoinColumn(name = "recipe_id", nullable = false)
     private Collection<Ingredient> ingredients = new ArrayList<>();
 
-    @OneToMany(cascade = CascadeType.ALL)
+    @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = COLLECTION_BATCH_SIZE)
     @JoinColumn(name = "recipe_id", nullable = false)
     private Collection<Step> steps = new ArrayList<>();
 
-    @OneToMany(cascade = CascadeType.ALL)
-    @JoinColumn(name = "recipe_id", nullable = false)
+    // the foreign key is owned by Review.recipe, so a review can be inserted
+    // without loading and saving the recipe
+    @OneToMany(mappedBy = "recipe", cascade = CascadeType.ALL)
+    @BatchSize(size = COLLECTION_BATCH_SIZE)
     private Collection<Review> reviews;
 
     @JsonInclude(JsonInclude.Include.NON_NULL)
@@ -57,8 +97,31 @@ public class Recipe {
     @JsonIgnore
     private URI locationURI;
 
-    @Transient
-    private Double averageRating;
+    // denormalised ratingSum / ratingCount so GET /recipes can be sorted and
+    // keyset-paged by rating inside the database
+    @Builder.Default
+    @Column(nullable = false, updatable = false)
+    private Double averageRating = 0.0;
+
+    // running totals of every review rating posted against this recipe, kept
+    // in step by the review write paths so the average never needs a scan.
+    // not updatable through the entity: only the atomic UPDATEs in RecipeRepo
+    // may change them, so a stale merge cannot clobber a concurrent review.
+    @Builder.Default
+    @Column(nullable = false, updatable = false)
+    @JsonIgnore
+    private long ratingSum = 0L;
+
+    @Builder.Default
+    @Column(nullable = false, updatable = false)
+    @JsonIgnore
+    private int ratingCount = 0;
+
+    // the same reviews counted per rating, for GET /recipes/{id}/rating-stats
+    @Embedded
+    @Builder.Default
+    @JsonIgnore
+    private RatingHistogram ratingHistogram = new RatingHistogram();
 
 //    public String getAuthor() {
 //        return user.getUsername();
@@ -113,16 +176,10 @@ public class Recipe {
         }
     }
     public double getAverageRating(Long id) {
-
-        if (reviews == null || reviews.isEmpty()) {
+        if (ratingCount == 0) {
             return 0.0;
         }
-
-        long sum = 0;
-        for (Review review : reviews) {
-            sum += review.getRating();
-        }
-        return (double) sum / reviews.size();
+        return (double) ratingSum / ratingCount;
     }
 
     public Recipe recipeWithAverageRating(Recipe recipe) {
@@ -130,4 +187,47 @@ public class Recipe {
         recipe.setAverageRating(avgRating);
         return recipe;
     }
+
+    /**
+     * Points every attached review at this recipe. Reviews own the recipe_id
+     * column, so this has to happen before reviews sent along with a recipe
+     * are cascaded to the database.
+     */
+    public void attachReviews() {
+        if (reviews != null) {
+            reviews.forEach(review -> review.setRecipe(this));
+        }
+    }
+
+    /**
+     * Seeds the rating aggregates from the reviews attached to this recipe.
+     * Only meant for the write path of a brand-new recipe, where the reviews
+     * are already in memory; existing recipes are kept up to date through
+     * {@link com.crus.RecipeAPI.repos.RecipeRepo#adjustRatingAggregates}.
+     */
+    public void recomputeRatingAggregates() {
+        ratingSum = 0L;
+        ratingCount = 0;
+        ratingHistogram = new RatingHistogram();
+        if (reviews != null) {
+            for (Review review : reviews) {
+                if (RatingHistogram.isRated(review.getRating())) {
+                    ratingSum += review.getRating();
+                    ratingCount++;
+                    ratingHistogram.add(review.getRating());
+                }
+            }
+        }
+        recipeWithAverageRating(this);
+    }
+
+    /**
+     * Mirrors an aggregate update that was applied in the database onto this
+     * in-memory copy, so the caller can return it without reloading.
+     */
+    public void applyRatingDelta(long sumDelta, int countDelta) {
+        ratingSum += sumDelta;
+        ratingCount += countDelta;
+        recipeWithAverageRating(this);
+    }
 }
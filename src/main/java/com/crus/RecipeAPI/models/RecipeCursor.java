@@ -0,0 +1,59 @@
+package com.crus.RecipeAPI.models;
+
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset position handed to clients as the {@code after} token of
+ * GET /recipes. It records the sort key and id of the last recipe on a page,
+ * together with the ordering it was issued for.
+ */
+public record RecipeCursor(RecipeSort sort, Sort.Direction direction, Comparable<?> key, Long id) {
+
+    private static final String SEPARATOR = "|";
+
+    public static RecipeCursor of(RecipeSummary recipe, RecipeSort sort, Sort.Direction direction) {
+        return new RecipeCursor(sort, direction, sort.keyOf(recipe), recipe.id());
+    }
+
+    public String encode() {
+        String raw = sort.getProperty() + SEPARATOR + direction + SEPARATOR + key + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static RecipeCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("Malformed page cursor.");
+            }
+            RecipeSort sort = RecipeSort.fromProperty(parts[0]);
+            return new RecipeCursor(
+                    sort,
+                    Sort.Direction.fromString(parts[1]),
+                    sort.parseKey(parts[2]),
+                    Long.valueOf(parts[3]));
+        } catch (IllegalArgumentException e) {
+            // also covers NumberFormatException from the key parsers
+            throw new IllegalArgumentException("Malformed page cursor.", e);
+        }
+    }
+
+    /**
+     * @return true when the recipe sorts strictly after this position, i.e.
+     *         it would appear on a page requested with this cursor
+     */
+    public boolean precedes(RecipeSummary recipe) {
+        RecipeSummary marker = new RecipeSummary(id, null,
+                sort == RecipeSort.MINUTES_TO_MAKE ? (Integer) key : null,
+                sort == RecipeSort.DIFFICULTY_RATING ? (Integer) key : null,
+                null, null,
+                sort == RecipeSort.AVERAGE_RATING ? (Double) key : null,
+                null, null);
+        return sort.comparator(direction).compare(marker, recipe) < 0;
+    }
+}
@@ -0,0 +1,80 @@
+package com.crus.RecipeAPI.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Immutable read model of a recipe with its ingredients, steps and reviews,
+ * as returned by the read endpoints and held in the per-recipe cache. It
+ * serialises to the same JSON as {@link Recipe}, but is assembled from
+ * projections, so nothing on a read path is ever attached to a session.
+ */
+public record RecipeDetail(Long id,
+                           String name,
+                           Integer minutesToMake,
+                           Integer difficultyRating,
+                           String submittedBy,
+                           List<IngredientLine> ingredients,
+                           List<StepLine> steps,
+                           List<ReviewLine> reviews,
+                           Double averageRating,
+                           String author,
+                           Long version,
+                           @JsonIgnore Instant updatedAt) {
+
+    public RecipeDetail {
+        ingredients = List.copyOf(ingredients);
+        steps = List.copyOf(steps);
+        reviews = List.copyOf(reviews);
+    }
+
+    public record IngredientLine(Long id, String name, String amount, String state) {
+    }
+
+    public record StepLine(Long id, int stepNumber, String description) {
+    }
+
+    public record ReviewLine(Long id, String username, String author, int rating, String description) {
+    }
+
+    public static RecipeDetail of(RecipeSummary summary,
+                                  List<IngredientLine> ingredients,
+                                  List<StepLine> steps,
+                                  List<ReviewLine> reviews) {
+        return new RecipeDetail(summary.id(), summary.name(), summary.minutesToMake(),
+                summary.difficultyRating(), summary.submittedBy(),
+                ingredients, steps, reviews, summary.averageRating(), summary.author(),
+                summary.version(), summary.updatedAt());
+    }
+
+    /**
+     * @return the read model of a recipe entity whose collections are loaded
+     */
+    public static RecipeDetail of(Recipe recipe) {
+        return of(RecipeSummary.of(recipe),
+                lines(recipe.getIngredients(), ingredient -> new IngredientLine(
+                        ingredient.getId(), ingredient.getName(), ingredient.getAmount(), ingredient.getState())),
+                lines(recipe.getSteps(), step -> new StepLine(
+                        step.getId(), step.getStepNumber(), step.getDescription())),
+                lines(recipe.getReviews(), review -> new ReviewLine(
+                        review.getId(), review.getUsername(), review.getAuthor(),
+                        review.getRating(), review.getDescription())));
+    }
+
+    private static <E, L> List<L> lines(Collection<E> entities, Function<E, L> line) {
+        return entities == null ? List.of() : entities.stream().map(line).toList();
+    }
+
+    public RecipeSummary summary() {
+        return new RecipeSummary(id, name, minutesToMake, difficultyRating, submittedBy, author, averageRating,
+                version, updatedAt);
+    }
+
+    public ContentVersion contentVersion() {
+        return ContentVersion.ofRecipe(id, version, updatedAt);
+    }
+}
@@ -0,0 +1,20 @@
+package com.crus.RecipeAPI.models;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * One recipe as written by GET /recipes/export. Selected straight into this
+ * record so streaming the table never puts entities in the persistence context.
+ */
+public record RecipeExportRow(Long id, String name, Integer minutesToMake, Integer difficultyRating,
+                              String submittedBy, Double averageRating, int ratingCount) implements ExportRow {
+
+    public static final List<String> COLUMNS = List.of(
+            "id", "name", "minutesToMake", "difficultyRating", "submittedBy", "averageRating", "ratingCount");
+
+    @Override
+    public List<Object> csvValues() {
+        return Arrays.asList(id, name, minutesToMake, difficultyRating, submittedBy, averageRating, ratingCount);
+    }
+}
@@ -0,0 +1,11 @@
+package com.crus.RecipeAPI.models;
+
+import java.util.List;
+
+/**
+ * One keyset page of GET /recipes as handed to the controller.
+ *
+ * @param nextCursor the token for the following page, null on the last page
+ */
+public record RecipePage(List<RecipeDetail> recipes, String nextCursor) {
+}
@@ -0,0 +1,39 @@
+package com.crus.RecipeAPI.models;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+
+/**
+ * The cached form of one keyset page of GET /recipes: only the ids on the
+ * page, which are resolved through the per-recipe cache, plus the slice of
+ * the ordering the page covers. A write only has to evict the pages whose
+ * slice it touches.
+ *
+ * @param after the cursor the page was requested with, null for the first page
+ * @param last the position of the last recipe on the page, null if it is empty
+ * @param nextCursor the token for the following page, null on the last page
+ */
+public record RecipePageKeys(RecipeSort sort,
+                             Sort.Direction direction,
+                             RecipeCursor after,
+                             List<Long> recipeIds,
+                             RecipeCursor last,
+                             String nextCursor) {
+
+    public boolean contains(Long recipeId) {
+        return recipeIds.contains(recipeId);
+    }
+
+    /**
+     * @return true when the recipe's current sort key falls inside the slice
+     *         of the ordering this page was built from
+     */
+    public boolean covers(RecipeSummary recipe) {
+        if (after != null && !after.precedes(recipe)) {
+            return false;
+        }
+        // the last page is open ended
+        return nextCursor == null || last == null || !last.precedes(recipe);
+    }
+}
@@ -0,0 +1,30 @@
+package com.crus.RecipeAPI.models;
+
+import java.util.List;
+
+/**
+ * The cached result of a recipe search: the criteria it was run with and the
+ * ids it matched, which are resolved through the per-recipe cache.
+ *
+ * @param name the name fragment searched for, null when not filtering by name
+ * @param username the submitter searched for, null when not filtering by user
+ */
+public record RecipeSearch(String name, String username, List<Long> recipeIds) {
+
+    public boolean contains(Long recipeId) {
+        return recipeIds.contains(recipeId);
+    }
+
+    /**
+     * Conservative check of whether the recipe satisfies the search criteria.
+     * Comparisons ignore case like the default MySQL collation, so a write can
+     * at worst evict a search that did not need it.
+     */
+    public boolean matches(RecipeSummary recipe) {
+        if (name != null && (recipe.name() == null
+                || !recipe.name().toLowerCase().contains(name.toLowerCase()))) {
+            return false;
+        }
+        return username == null || username.equalsIgnoreCase(recipe.submittedBy());
+    }
+}
@@ -0,0 +1,68 @@
+package com.crus.RecipeAPI.models;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.Function;
+
+/**
+ * The orderings GET /recipes can be paged by. Every ordering is made total by
+ * breaking ties on the recipe id, which is what makes keyset cursors stable.
+ */
+public enum RecipeSort {
+
+    ID("id", RecipeSummary::id, Long::valueOf),
+    AVERAGE_RATING("averageRating", RecipeSummary::averageRating, Double::valueOf),
+    DIFFICULTY_RATING("difficultyRating", RecipeSummary::difficultyRating, Integer::valueOf),
+    MINUTES_TO_MAKE("minutesToMake", RecipeSummary::minutesToMake, Integer::valueOf);
+
+    private final String property;
+    private final Function<RecipeSummary, Comparable<?>> extractor;
+    private final Function<String, Comparable<?>> parser;
+
+    RecipeSort(String property,
+               Function<RecipeSummary, Comparable<?>> extractor,
+               Function<String, Comparable<?>> parser) {
+        this.property = property;
+        this.extractor = extractor;
+        this.parser = parser;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public static RecipeSort fromProperty(String property) {
+        return Arrays.stream(values())
+                .filter(sort -> sort.property.equalsIgnoreCase(property))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(
+                        "Recipes cannot be sorted by " + property + ". " +
+                                "Use one of id, averageRating, difficultyRating or minutesToMake."));
+    }
+
+    public Comparable<?> keyOf(RecipeSummary recipe) {
+        return extractor.apply(recipe);
+    }
+
+    public Comparable<?> parseKey(String value) {
+        return parser.apply(value);
+    }
+
+    public Comparator<RecipeSummary> comparator(Sort.Direction direction) {
+        Comparator<RecipeSummary> byKey = this::compareKeys;
+        Comparator<RecipeSummary> order = byKey.thenComparing(RecipeSummary::id);
+        return direction.isDescending() ? order.reversed() : order;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private int compareKeys(RecipeSummary left, RecipeSummary right) {
+        Comparable leftKey = keyOf(left);
+        Comparable rightKey = keyOf(right);
+        if (leftKey == null || rightKey == null) {
+            return leftKey == rightKey ? 0 : (leftKey == null ? -1 : 1);
+        }
+        return leftKey.compareTo(rightKey);
+    }
+}
@@ -0,0 +1,40 @@
+package com.crus.RecipeAPI.models;
+
+import java.time.Instant;
+
+/**
+ * The scalar columns of a recipe as the read endpoints see them, loaded with
+ * a constructor projection rather than as a managed entity. Also the shape
+ * the keyset orderings and cached page and search slices are evaluated on.
+ *
+ * @param author the username of the owning user, "anonymous" if there is none
+ * @param version the optimistic-lock version, which every write to the recipe
+ *                or its reviews advances
+ */
+public record RecipeSummary(Long id,
+                            String name,
+                            Integer minutesToMake,
+                            Integer difficultyRating,
+                            String submittedBy,
+                            String author,
+                            Double averageRating,
+                            Long version,
+                            Instant updatedAt) {
+
+    /**
+     * @return the summary of a recipe entity, for the write paths that have
+     *         one at hand and need to find what it affects in the caches
+     */
+    public static RecipeSummary of(Recipe recipe) {
+        return new RecipeSummary(
+                recipe.getId(),
+                recipe.getName(),
+                recipe.getMinutesToMake(),
+                recipe.getDifficultyRating(),
+                recipe.getSubmittedBy(),
+                recipe.getAuthor(),
+                recipe.getAverageRating(),
+                recipe.getVersion(),
+                recipe.getUpdatedAt());
+    }
+}
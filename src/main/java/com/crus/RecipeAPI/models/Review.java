@@ -3,9 +3,13 @@ package com.crus.RecipeAPI.models;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.Instant;
 
 @Entity
 @Getter
@@ -19,6 +23,15 @@ public class Review {
     @GeneratedValue
     private Long id;
 
+    @Version
+    @Column(nullable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
+    @UpdateTimestamp
+    @JsonIgnore
+    private Instant updatedAt;
+
     @NotNull
     private String username;
 
@@ -34,13 +47,27 @@ public class Review {
     @JsonIgnore
     private CustomUserDetails user;
 
+    // set to a reference for a direct insert; never updated, so a review sent
+    // back through PATCH /review cannot move to another recipe
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "recipe_id", nullable = false, updatable = false)
+    @JsonIgnore
+    private Recipe recipe;
+
+    // read-only view of the foreign key, so the rating aggregates can be
+    // adjusted without loading the parent recipe
+    @Column(name = "recipe_id", insertable = false, updatable = false)
+    @JsonIgnore
+    private Long recipeId;
+
     public String getAuthor() {
         return user != null ? user.getUsername() : "anonymous";
     }
 
+    // 0 is left for reviews stored before this check, see RatingHistogram.UNRATED
     public void setRating(int rating) {
-        if (rating <= 0 || rating > 10) {
-            throw new IllegalStateException("Rating must be between 0 and 10.");
+        if (rating < RatingHistogram.MIN_RATING || rating > RatingHistogram.MAX_RATING) {
+            throw new IllegalStateException("Rating must be between 1 and 10.");
         }
         this.rating = rating;
     }
@@ -0,0 +1,18 @@
+package com.crus.RecipeAPI.models;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * One review as written by GET /review/export.
+ */
+public record ReviewExportRow(Long id, Long recipeId, String username, int rating, String description)
+        implements ExportRow {
+
+    public static final List<String> COLUMNS = List.of("id", "recipeId", "username", "rating", "description");
+
+    @Override
+    public List<Object> csvValues() {
+        return Arrays.asList(id, recipeId, username, rating, description);
+    }
+}
@@ -0,0 +1,13 @@
+package com.crus.RecipeAPI.models;
+
+/**
+ * One entry of the top-rated recipes leaderboard.
+ *
+ * @param ratingCount the number of reviews the average is taken over
+ */
+public record TopRecipe(Long id,
+                        String name,
+                        Integer difficultyRating,
+                        Double averageRating,
+                        Integer ratingCount) {
+}
@@ -0,0 +1,28 @@
+package com.crus.RecipeAPI.repos;
+
+import com.crus.RecipeAPI.models.CacheChangeLogEntry;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface CacheChangeLogRepo extends JpaRepository<CacheChangeLogEntry, Long> {
+
+    List<CacheChangeLogEntry> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    List<CacheChangeLogEntry> findByIdInOrderByIdAsc(Collection<Long> ids);
+
+    @Query("select coalesce(max(e.id), 0) from CacheChangeLogEntry e")
+    long findMaxId();
+
+    @Modifying
+    @Transactional
+    @Query("delete from CacheChangeLogEntry e where e.createdAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") Instant cutoff);
+}
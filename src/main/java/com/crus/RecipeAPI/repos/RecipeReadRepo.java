@@ -0,0 +1,41 @@
+package com.crus.RecipeAPI.repos;
+
+import com.crus.RecipeAPI.models.RecipeCursor;
+import com.crus.RecipeAPI.models.RecipeDetail;
+import com.crus.RecipeAPI.models.RecipeSort;
+import com.crus.RecipeAPI.models.RecipeSummary;
+import org.springframework.data.domain.Sort;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Read-model queries of {@link RecipeRepo}. They select columns into records
+ * instead of loading entities, so the persistence context of a read stays
+ * empty and there is nothing to dirty-check or flush.
+ */
+public interface RecipeReadRepo {
+
+    /**
+     * @param after the position to continue from, null for the first page
+     * @return up to {@code limit} recipes following the position in the given order
+     */
+    List<RecipeSummary> findSummaryPage(RecipeSort sort, Sort.Direction direction, RecipeCursor after, int limit);
+
+    List<RecipeSummary> findSummariesById(Collection<Long> ids);
+
+    /**
+     * Completes summaries with their ingredients, steps and reviews using one
+     * query per collection, whatever the number of recipes.
+     *
+     * @return the details in the order of the summaries
+     */
+    List<RecipeDetail> findDetails(List<RecipeSummary> summaries);
+
+    /**
+     * @return the details of the recipes that exist, in no particular order
+     */
+    default List<RecipeDetail> findDetailsById(Collection<Long> ids) {
+        return findDetails(findSummariesById(ids));
+    }
+}
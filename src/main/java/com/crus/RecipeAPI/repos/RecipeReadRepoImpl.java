@@ -0,0 +1,120 @@
+package com.crus.RecipeAPI.repos;
+
+import com.crus.RecipeAPI.models.RecipeCursor;
+import com.crus.RecipeAPI.models.RecipeDetail;
+import com.crus.RecipeAPI.models.RecipeSort;
+import com.crus.RecipeAPI.models.RecipeSummary;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+class RecipeReadRepoImpl implements RecipeReadRepo {
+
+    // mirrors Recipe.getAuthor() for recipes without a user
+    private static final String SUMMARY_SELECT =
+            "select new com.crus.RecipeAPI.models.RecipeSummary(r.id, r.name, r.minutesToMake, " +
+                    "r.difficultyRating, r.submittedBy, coalesce(u.username, 'anonymous'), r.averageRating, " +
+                    "r.version, r.updatedAt) " +
+                    "from Recipe r left join r.user u";
+
+    private static final String INGREDIENT_LINES =
+            "select r.id, i.id, i.name, i.amount, i.state " +
+                    "from Recipe r join r.ingredients i where r.id in :ids order by i.id";
+
+    private static final String STEP_LINES =
+            "select r.id, s.id, s.stepNumber, s.description " +
+                    "from Recipe r join r.steps s where r.id in :ids order by s.id";
+
+    private static final String REVIEW_LINES =
+            "select v.recipeId, v.id, v.username, coalesce(u.username, 'anonymous'), v.rating, v.description " +
+                    "from Review v left join v.user u where v.recipeId in :ids order by v.id";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<RecipeSummary> findSummaryPage(RecipeSort sort, Sort.Direction direction,
+                                               RecipeCursor after, int limit) {
+        // the property comes from the RecipeSort whitelist, never from the client
+        String key = "r." + sort.getProperty();
+        String comparison = direction.isAscending() ? " > " : " < ";
+        String order = direction.isAscending() ? " asc" : " desc";
+
+        StringBuilder jpql = new StringBuilder(SUMMARY_SELECT);
+        if (after != null) {
+            if (sort == RecipeSort.ID) {
+                jpql.append(" where r.id").append(comparison).append(":id");
+            } else {
+                jpql.append(" where (").append(key).append(comparison).append(":key or (")
+                        .append(key).append(" = :key and r.id").append(comparison).append(":id))");
+            }
+        }
+        jpql.append(" order by ").append(key).append(order);
+        if (sort != RecipeSort.ID) {
+            jpql.append(", r.id").append(order);
+        }
+
+        TypedQuery<RecipeSummary> query = entityManager
+                .createQuery(jpql.toString(), RecipeSummary.class)
+                .setMaxResults(limit);
+        if (after != null) {
+            query.setParameter("id", after.id());
+            if (sort != RecipeSort.ID) {
+                query.setParameter("key", after.key());
+            }
+        }
+        return query.getResultList();
+    }
+
+    @Override
+    public List<RecipeSummary> findSummariesById(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return entityManager.createQuery(SUMMARY_SELECT + " where r.id in :ids", RecipeSummary.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
+    @Override
+    public List<RecipeDetail> findDetails(List<RecipeSummary> summaries) {
+        if (summaries.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = summaries.stream().map(RecipeSummary::id).toList();
+        Map<Long, List<RecipeDetail.IngredientLine>> ingredients = linesByRecipe(INGREDIENT_LINES, ids,
+                row -> new RecipeDetail.IngredientLine(row.get(1, Long.class), row.get(2, String.class),
+                        row.get(3, String.class), row.get(4, String.class)));
+        Map<Long, List<RecipeDetail.StepLine>> steps = linesByRecipe(STEP_LINES, ids,
+                row -> new RecipeDetail.StepLine(row.get(1, Long.class), row.get(2, Integer.class),
+                        row.get(3, String.class)));
+        Map<Long, List<RecipeDetail.ReviewLine>> reviews = linesByRecipe(REVIEW_LINES, ids,
+                row -> new RecipeDetail.ReviewLine(row.get(1, Long.class), row.get(2, String.class),
+                        row.get(3, String.class), row.get(4, Integer.class), row.get(5, String.class)));
+
+        return summaries.stream()
+                .map(summary -> RecipeDetail.of(summary,
+                        ingredients.getOrDefault(summary.id(), List.of()),
+                        steps.getOrDefault(summary.id(), List.of()),
+                        reviews.getOrDefault(summary.id(), List.of())))
+                .toList();
+    }
+
+    // the first column of every row is the recipe id the line belongs to
+    private <T> Map<Long, List<T>> linesByRecipe(String jpql, Collection<Long> ids, Function<Tuple, T> line) {
+        Map<Long, List<T>> lines = new HashMap<>();
+        for (Tuple row : entityManager.createQuery(jpql, Tuple.class).setParameter("ids", ids).getResultList()) {
+            lines.computeIfAbsent(row.get(0, Long.class), id -> new ArrayList<>()).add(line.apply(row));
+        }
+        return lines;
+    }
+}
@@ -1,17 +1,237 @@
 package com.crus.RecipeAPI.repos;
 
+import com.crus.RecipeAPI.models.RatingHistogram;
 import com.crus.RecipeAPI.models.Recipe;
+import com.crus.RecipeAPI.models.RecipeExportRow;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface RecipeRepo extends JpaRepository<Recipe, Long> {
+public interface RecipeRepo extends JpaRepository<Recipe, Long>, RecipeReadRepo {
 
-    List<Recipe> findByNameContaining(String name);
+    // the searches only select ids; the recipes themselves are resolved through
+    // the per-recipe cache and the read-model queries of RecipeReadRepo
 
-    List<Recipe> findBySubmittedBy(String username);
+    @Query("select r.id from Recipe r where r.name like %:name% order by r.id")
+    List<Long> findIdsByNameContaining(@Param("name") String name);
 
-    List<Recipe> findByNameContainingIgnoreCaseAndSubmittedByIgnoreCase(String name, String username);
+    @Query("select r.id from Recipe r where r.submittedBy = :username order by r.id")
+    List<Long> findIdsBySubmittedBy(@Param("username") String username);
+
+    @Query("select r.id from Recipe r where upper(r.name) like upper(concat('%', :name, '%')) " +
+            "and upper(r.submittedBy) = upper(:username) order by r.id")
+    List<Long> findIdsByNameContainingIgnoreCaseAndSubmittedByIgnoreCase(@Param("name") String name,
+                                                                       @Param("username") String username);
+
+    @Query("select r.id as id, r.name as name, r.submittedBy as submittedBy from Recipe r")
+    List<RecipeNameEntry> findAllNameEntries();
+
+    @Query("select r.id as recipeId, i.name as name from Recipe r join r.ingredients i")
+    List<RecipeIngredientEntry> findAllIngredientEntries();
+
+    @Query("select r.id as recipeId, i.name as name from Recipe r join r.ingredients i where r.id in :ids")
+    List<RecipeIngredientEntry> findIngredientEntriesById(@Param("ids") Collection<Long> ids);
+
+    @Query("select r.id as id, r.name as name, r.difficultyRating as difficultyRating, " +
+            "r.ratingSum as ratingSum, r.ratingCount as ratingCount from Recipe r")
+    List<RecipeStanding> findAllStandings();
+
+    @Query("select r.id as id, r.name as name, r.difficultyRating as difficultyRating, " +
+            "r.ratingSum as ratingSum, r.ratingCount as ratingCount from Recipe r where r.id in :ids")
+    List<RecipeStanding> findStandingsById(@Param("ids") Collection<Long> ids);
+
+    @Query("select r.version as version, r.updatedAt as updatedAt from Recipe r where r.id = :id")
+    Optional<VersionStamp> findVersionStampById(@Param("id") Long id);
+
+    // a cheap stand-in for the versions of every recipe of a user: any insert,
+    // delete or update among them changes at least one of the aggregates.
+    // max(updatedAt) is left out, it does not advance when a recipe is deleted
+    @Query("select count(r) as count, coalesce(sum(r.id), 0) as idSum, " +
+            "coalesce(sum(r.version), 0) as versionSum " +
+            "from Recipe r where r.submittedBy = :username")
+    ListVersion findListVersionBySubmittedBy(@Param("username") String username);
+
+    // the same stand-in for the whole table, see PersistentCacheValidator
+    @Query("select count(r) as count, coalesce(sum(r.id), 0) as idSum, " +
+            "coalesce(sum(r.version), 0) as versionSum, max(r.updatedAt) as updatedAt from Recipe r")
+    ListVersionStamp findTableVersionStamp();
+
+    @Query("select r.averageRating as averageRating, r.ratingHistogram as ratingHistogram " +
+            "from Recipe r where r.id = :id")
+    Optional<RatingSummary> findRatingSummary(@Param("id") Long id);
+
+    // MySQL Connector/J only streams a result set row by row when the fetch
+    // size is Integer.MIN_VALUE; anything else buffers the whole table
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("select new com.crus.RecipeAPI.models.RecipeExportRow(r.id, r.name, r.minutesToMake, " +
+            "r.difficultyRating, r.submittedBy, r.averageRating, r.ratingCount) from Recipe r order by r.id")
+    Stream<RecipeExportRow> streamExportRows();
+
+    // mirrors Recipe.getAuthor() for recipes without a user
+    @Query("select coalesce(u.username, 'anonymous') from Recipe r left join r.user u where r.id = :id")
+    Optional<String> findOwnerUsernameById(@Param("id") Long id);
+
+    @Query("select r.id as id, coalesce(u.username, 'anonymous') as username " +
+            "from Recipe r left join r.user u where r.id in :ids")
+    List<RecipeOwner> findOwnersById(@Param("ids") Collection<Long> ids);
+
+    // single atomic statement so concurrent review writes never lose an update.
+    // the reviews are part of the recipe's representation, so every review
+    // write also advances the recipe's version, even with zero deltas
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    // MySQL evaluates single-table assignments left to right, so average_rating
+    // is computed from the already incremented sum and count. the division is
+    // done in double precision, as Java does it: integer operands would give a
+    // DECIMAL rounded to four places, and keyset cursors built from the
+    // rounded value would skip or repeat ties
+    @Query(value = "UPDATE recipe SET rating_sum = rating_sum + :#{#delta.sum()}, " +
+            "rating_count = rating_count + :#{#delta.count()}, " +
+            "average_rating = IF(rating_count = 0, 0, CAST(rating_sum AS DOUBLE) / rating_count), " +
+            "rating_1_count = rating_1_count + :#{#delta.countOf(1)}, " +
+            "rating_2_count = rating_2_count + :#{#delta.countOf(2)}, " +
+            "rating_3_count = rating_3_count + :#{#delta.countOf(3)}, " +
+            "rating_4_count = rating_4_count + :#{#delta.countOf(4)}, " +
+            "rating_5_count = rating_5_count + :#{#delta.countOf(5)}, " +
+            "rating_6_count = rating_6_count + :#{#delta.countOf(6)}, " +
+            "rating_7_count = rating_7_count + :#{#delta.countOf(7)}, " +
+            "rating_8_count = rating_8_count + :#{#delta.countOf(8)}, " +
+            "rating_9_count = rating_9_count + :#{#delta.countOf(9)}, " +
+            "rating_10_count = rating_10_count + :#{#delta.countOf(10)}, " +
+            "version = version + 1, updated_at = :now " +
+            "WHERE id = :id",
+            nativeQuery = true)
+    int adjustRatingAggregates(@Param("id") Long id,
+                               @Param("delta") RatingHistogram delta,
+                               @Param("now") Instant now);
+
+    @Query(value = "SELECT r.id FROM recipe r " +
+            "LEFT JOIN (SELECT recipe_id, SUM(rating) AS s, COUNT(*) AS c, " +
+            "SUM(rating = 1) AS c1, " +
+            "SUM(rating = 2) AS c2, " +
+            "SUM(rating = 3) AS c3, " +
+            "SUM(rating = 4) AS c4, " +
+            "SUM(rating = 5) AS c5, " +
+            "SUM(rating = 6) AS c6, " +
+            "SUM(rating = 7) AS c7, " +
+            "SUM(rating = 8) AS c8, " +
+            "SUM(rating = 9) AS c9, " +
+            "SUM(rating = 10) AS c10 " +
+            // unrated reviews, see RatingHistogram.UNRATED, are not counted
+            "FROM review WHERE rating BETWEEN 1 AND 10 GROUP BY recipe_id) v ON v.recipe_id = r.id " +
+            "WHERE r.rating_sum <> COALESCE(v.s, 0) OR r.rating_count <> COALESCE(v.c, 0) " +
+            // averages stored rounded by an earlier version of the UPDATEs
+            "OR r.average_rating <> IF(COALESCE(v.c, 0) = 0, 0, CAST(v.s AS DOUBLE) / v.c) " +
+            "OR r.rating_1_count <> COALESCE(v.c1, 0) " +
+            "OR r.rating_2_count <> COALESCE(v.c2, 0) " +
+            "OR r.rating_3_count <> COALESCE(v.c3, 0) " +
+            "OR r.rating_4_count <> COALESCE(v.c4, 0) " +
+            "OR r.rating_5_count <> COALESCE(v.c5, 0) " +
+            "OR r.rating_6_count <> COALESCE(v.c6, 0) " +
+            "OR r.rating_7_count <> COALESCE(v.c7, 0) " +
+            "OR r.rating_8_count <> COALESCE(v.c8, 0) " +
+            "OR r.rating_9_count <> COALESCE(v.c9, 0) " +
+            "OR r.rating_10_count <> COALESCE(v.c10, 0)",
+            nativeQuery = true)
+    List<Long> findIdsWithRatingDrift();
+
+    // recipes whose rating histogram does not add up to their review count,
+    // e.g. rows from before the histogram existed; checked on the recipe
+    // table alone
+    @Query(value = "SELECT id FROM recipe WHERE " +
+            "rating_1_count + rating_2_count + rating_3_count + rating_4_count + rating_5_count + " +
+            "rating_6_count + rating_7_count + rating_8_count + rating_9_count + rating_10_count " +
+            "<> rating_count",
+            nativeQuery = true)
+    List<Long> findIdsWithUnbalancedHistogram();
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE recipe r SET " +
+            "r.rating_sum = (SELECT COALESCE(SUM(v.rating), 0) FROM review v " +
+            "WHERE v.recipe_id = r.id AND v.rating BETWEEN 1 AND 10), " +
+            "r.rating_count = (SELECT COUNT(*) FROM review v " +
+            "WHERE v.recipe_id = r.id AND v.rating BETWEEN 1 AND 10), " +
+            "r.average_rating = IF(r.rating_count = 0, 0, CAST(r.rating_sum AS DOUBLE) / r.rating_count), " +
+            "r.rating_1_count = (SELECT COUNT(*) FROM review v WHERE v.recipe_id = r.id AND v.rating = 1), " +
+            "r.rating_2_count = (SELECT COUNT(*) FROM review v WHERE v.recipe_id = r.id AND v.rating = 2), " +
+            "r.rating_3_count = (SELECT COUNT(*) FROM review v WHERE v.recipe_id = r.id AND v.rating = 3), " +
+            "r.rating_4_count = (SELECT COUNT(*) FROM review v WHERE v.recipe_id = r.id AND v.rating = 4), " +
+            "r.rating_5_count = (SELECT COUNT(*) FROM review v WHERE v.recipe_id = r.id AND v.rating = 5), " +
+            "r.rating_6_count = (SELECT COUNT(*) FROM review v WHERE v.recipe_id = r.id AND v.rating = 6), " +
+            "r.rating_7_count = (SELECT COUNT(*) FROM review v WHERE v.recipe_id = r.id AND v.rating = 7), " +
+            "r.rating_8_count = (SELECT COUNT(*) FROM review v WHERE v.recipe_id = r.id AND v.rating = 8), " +
+            "r.rating_9_count = (SELECT COUNT(*) FROM review v WHERE v.recipe_id = r.id AND v.rating = 9), " +
+            "r.rating_10_count = (SELECT COUNT(*) FROM review v WHERE v.recipe_id = r.id AND v.rating = 10), " +
+            "r.version = r.version + 1, r.updated_at = :now " +
+            "WHERE r.id IN (:ids)",
+            nativeQuery = true)
+    int recomputeRatingAggregates(@Param("ids") Collection<Long> ids, @Param("now") Instant now);
+
+    interface RecipeNameEntry {
+        Long getId();
+
+        String getName();
+
+        String getSubmittedBy();
+    }
+
+    interface RecipeIngredientEntry {
+        Long getRecipeId();
+
+        String getName();
+    }
+
+    interface RecipeStanding {
+        Long getId();
+
+        String getName();
+
+        Integer getDifficultyRating();
+
+        long getRatingSum();
+
+        int getRatingCount();
+    }
+
+    interface RecipeOwner {
+        Long getId();
+
+        String getUsername();
+    }
+
+    interface VersionStamp {
+        Long getVersion();
+
+        Instant getUpdatedAt();
+    }
+
+    // the stored average, which every endpoint reports, with the counters
+    interface RatingSummary {
+        Double getAverageRating();
+
+        RatingHistogram getRatingHistogram();
+    }
+
+    interface ListVersion {
+        long getCount();
+
+        long getIdSum();
+
+        long getVersionSum();
+    }
+
+    interface ListVersionStamp extends ListVersion {
+        Instant getUpdatedAt();
+    }
 }
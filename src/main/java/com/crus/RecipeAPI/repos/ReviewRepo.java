@@ -1,10 +1,18 @@
 package com.crus.RecipeAPI.repos;
 
 import com.crus.RecipeAPI.models.Review;
+import com.crus.RecipeAPI.models.ReviewExportRow;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ReviewRepo extends JpaRepository<Review, Long> {
 
@@ -12,4 +20,19 @@ public interface ReviewRepo extends JpaRepository<Review, Long> {
 
     List<Review> findReviewById(Long recipeId);
 
+    // streamed row by row, see RecipeRepo.streamExportRows
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("select new com.crus.RecipeAPI.models.ReviewExportRow(v.id, v.recipeId, v.username, " +
+            "v.rating, v.description) from Review v order by v.id")
+    Stream<ReviewExportRow> streamExportRows();
+
+    // mirrors Review.getAuthor() for reviews without a user
+    @Query("select coalesce(u.username, 'anonymous') from Review v left join v.user u where v.id = :id")
+    Optional<String> findOwnerUsernameById(@Param("id") Long id);
+
+    // see RecipeRepo.findTableVersionStamp
+    @Query("select count(v) as count, coalesce(sum(v.id), 0) as idSum, " +
+            "coalesce(sum(v.version), 0) as versionSum, max(v.updatedAt) as updatedAt from Review v")
+    RecipeRepo.ListVersionStamp findTableVersionStamp();
+
 }
@@ -0,0 +1,63 @@
+package com.crus.RecipeAPI.security;
+
+import com.crus.RecipeAPI.models.CustomUserDetails;
+import com.crus.RecipeAPI.services.CacheMetrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+/**
+ * HTTP Basic authentication for our stateless API. Every request carries the
+ * credentials again, so verified credentials are served from the
+ * {@link CredentialCache}; only misses fall through to the regular user
+ * lookup and BCrypt check of the wrapped {@link DaoAuthenticationProvider}.
+ */
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+
+    private final DaoAuthenticationProvider delegate;
+    private final CredentialCache credentialCache;
+    private final CacheMetrics cacheMetrics;
+
+    public CachingAuthenticationProvider(DaoAuthenticationProvider delegate, CredentialCache credentialCache,
+                                         CacheMetrics cacheMetrics) {
+        this.delegate = delegate;
+        this.credentialCache = credentialCache;
+        this.cacheMetrics = cacheMetrics;
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        if (authentication.getCredentials() == null) {
+            return delegate.authenticate(authentication);
+        }
+        String key = credentialCache.keyFor(
+                authentication.getName(), authentication.getCredentials().toString());
+
+        CustomUserDetails principal = credentialCache.get(key);
+        if (principal != null) {
+            if (principal.isEnabled() && principal.isAccountNonLocked()
+                    && principal.isAccountNonExpired() && principal.isCredentialsNonExpired()) {
+                return UsernamePasswordAuthenticationToken.authenticated(
+                        principal, null, principal.getAuthorities());
+            }
+            // let the delegate raise the proper account status exception
+            return delegate.authenticate(authentication);
+        }
+
+        Timer.Sample load = cacheMetrics.startLoad();
+        Authentication result = delegate.authenticate(authentication);
+        cacheMetrics.stopLoad(load, "credentialCache");
+        if (result.getPrincipal() instanceof CustomUserDetails verified) {
+            credentialCache.put(key, verified);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return delegate.supports(authentication);
+    }
+}
@@ -0,0 +1,88 @@
+package com.crus.RecipeAPI.security;
+
+import com.crus.RecipeAPI.models.CustomUserDetails;
+import com.crus.RecipeAPI.services.AfterCommit;
+import org.ehcache.Cache;
+import org.ehcache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Remembers successful HTTP Basic credential checks so that repeated requests
+ * with the same username and password skip both the user lookup and the
+ * BCrypt verification until the entry expires.
+ * <p>
+ * Entries are keyed by an HMAC of username and password under a random key
+ * that only lives in this JVM, so the cache never holds anything a password
+ * could be recovered or verified offline from. Only successful checks are
+ * cached; a wrong password always goes through BCrypt.
+ */
+@Component
+public class CredentialCache {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final Cache<String, CustomUserDetails> credentialCache;
+    private final SecretKeySpec hmacKey;
+
+    public CredentialCache(CacheManager cacheManager) {
+        this.credentialCache = cacheManager.getCache("credentialCache", String.class, CustomUserDetails.class);
+
+        byte[] keyBytes = new byte[32];
+        new SecureRandom().nextBytes(keyBytes);
+        this.hmacKey = new SecretKeySpec(keyBytes, HMAC_ALGORITHM);
+    }
+
+    public String keyFor(String username, String password) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(hmacKey);
+            // the length prefix keeps ("ab", "c") and ("a", "bc") apart
+            mac.update((username.length() + ":" + username + ":").getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(
+                    mac.doFinal(password.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    /**
+     * @return the principal of an earlier successful check with the same
+     *         credentials, or null when it has to be verified again
+     */
+    public CustomUserDetails get(String key) {
+        return credentialCache.get(key);
+    }
+
+    public void put(String key, CustomUserDetails principal) {
+        credentialCache.put(key, principal);
+    }
+
+    /**
+     * Forgets every cached check of this user, e.g. after their password,
+     * roles or account status changed. Runs again after the surrounding
+     * transaction commits, so a request racing the change cannot re-cache
+     * the old state.
+     */
+    public void evictUser(String username) {
+        AfterCommit.runNowAndAfterCommit(() -> evictUserNow(username));
+    }
+
+    private void evictUserNow(String username) {
+        Set<String> staleKeys = new HashSet<>();
+        for (Cache.Entry<String, CustomUserDetails> entry : credentialCache) {
+            if (entry.getValue().getUsername().equals(username)) {
+                staleKeys.add(entry.getKey());
+            }
+        }
+        credentialCache.removeAll(staleKeys);
+    }
+}
@@ -0,0 +1,25 @@
+package com.crus.RecipeAPI.security;
+
+import com.crus.RecipeAPI.models.CustomUserDetails;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA listener on {@link CustomUserDetails} that drops cached credential
+ * checks whenever a user row is changed or deleted, whichever code path
+ * made the change.
+ */
+@Component
+public class CredentialCacheInvalidator {
+
+    @Autowired
+    CredentialCache credentialCache;
+
+    @PostUpdate
+    @PostRemove
+    public void userChanged(CustomUserDetails user) {
+        credentialCache.evictUser(user.getUsername());
+    }
+}
@@ -1,7 +1,11 @@
 package com.crus.RecipeAPI.security;
+import com.crus.RecipeAPI.services.CacheMetrics;
+import com.crus.RecipeAPI.services.CustomUserDetailsService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -12,7 +16,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 
 @Configuration
-@EnableWebSecurity(debug = true)
+@EnableWebSecurity
 public class SecurityConfig {
 
     @Bean
@@ -28,6 +32,8 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.POST, "/user").permitAll()
                         // allow all requests to read recipes and reviews
                         .requestMatchers(HttpMethod.GET, "/recipes/**", "/reviews").permitAll()
+                        // load balancers probe liveness and readiness without credentials
+                        .requestMatchers(HttpMethod.GET, "/actuator/health/**").permitAll()
                         // allow creation of new recipes and reviews
                         .requestMatchers(HttpMethod.POST,"/recipes").authenticated()
                         .requestMatchers(HttpMethod.POST, "/reviews").permitAll()
@@ -43,5 +49,18 @@ public class SecurityConfig {
     public PasswordEncoder passwordEncoder() {
         return new BCryptPasswordEncoder();
     }
+
+    // being the only AuthenticationProvider bean, this replaces the default
+    // provider Spring Security would otherwise build around our UserDetailsService
+    @Bean
+    public AuthenticationProvider authenticationProvider(
+            CustomUserDetailsService userDetailsService,
+            PasswordEncoder passwordEncoder,
+            CredentialCache credentialCache,
+            CacheMetrics cacheMetrics) {
+        DaoAuthenticationProvider daoProvider = new DaoAuthenticationProvider(userDetailsService);
+        daoProvider.setPasswordEncoder(passwordEncoder);
+        return new CachingAuthenticationProvider(daoProvider, credentialCache, cacheMetrics);
+    }
 }
 
@@ -0,0 +1,66 @@
+package com.crus.RecipeAPI.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Node id, subscribers and the lag metric shared by the bus implementations.
+ * The time from publishing an invalidation to handing it to the subscribers
+ * of another node is recorded as {@code cache.invalidation.lag}; it includes
+ * any clock skew between the two nodes.
+ */
+abstract class AbstractInvalidationBus implements CacheInvalidationBus {
+
+    private static final Logger log = LoggerFactory.getLogger(AbstractInvalidationBus.class);
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final List<Consumer<List<CacheInvalidation>>> subscribers = new CopyOnWriteArrayList<>();
+    private final Timer lag;
+
+    AbstractInvalidationBus(MeterRegistry meterRegistry) {
+        this.lag = Timer.builder("cache.invalidation.lag")
+                .description("Time from publishing a cache invalidation to applying it on another node")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String nodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void subscribe(Consumer<List<CacheInvalidation>> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    /**
+     * Hands the invalidations published by other nodes to the subscribers.
+     */
+    void deliver(List<CacheInvalidation> invalidations) {
+        List<CacheInvalidation> remote = invalidations.stream()
+                .filter(invalidation -> !nodeId.equals(invalidation.origin()))
+                .toList();
+        if (remote.isEmpty()) {
+            return;
+        }
+        for (Consumer<List<CacheInvalidation>> subscriber : subscribers) {
+            try {
+                subscriber.accept(remote);
+            } catch (RuntimeException e) {
+                log.warn("Could not apply {} cache invalidations", remote.size(), e);
+            }
+        }
+        Instant now = Instant.now();
+        remote.forEach(invalidation -> lag.record(
+                Duration.between(invalidation.publishedAt(), now).abs()));
+    }
+}
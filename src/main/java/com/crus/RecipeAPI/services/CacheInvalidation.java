@@ -0,0 +1,23 @@
+package com.crus.RecipeAPI.services;
+
+import java.time.Instant;
+
+/**
+ * A cache invalidation broadcast to the other nodes, see
+ * {@link CacheInvalidationBus}.
+ *
+ * @param entityId the recipe the invalidation is about
+ * @param origin the id of the node that made the change
+ * @param publishedAt when the change was published, used to measure the lag
+ */
+public record CacheInvalidation(Kind kind, Long entityId, String origin, Instant publishedAt) {
+
+    public enum Kind {
+        /** A recipe was created, updated or deleted. */
+        RECIPE,
+        /** A review of a recipe was created, updated or deleted, moving its rating. */
+        RATING,
+        /** A recipe was imported in bulk; the catalogue caches are dropped once per batch. */
+        CATALOGUE
+    }
+}
@@ -0,0 +1,37 @@
+package com.crus.RecipeAPI.services;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Carries cache invalidations between the nodes of a deployment. A node
+ * evicts its own caches as it writes and publishes what it changed; every
+ * other node receives the invalidation and evicts the same entries.
+ * <p>
+ * Which implementation runs is chosen by {@code recipe.invalidation.bus}:
+ * {@code changelog} for {@link ChangeLogInvalidationBus}, which needs nothing
+ * but the shared database, or {@code in-process}, the default, for
+ * {@link InProcessInvalidationBus}.
+ */
+public interface CacheInvalidationBus {
+
+    /**
+     * Publishes an invalidation. Inside a transaction it reaches the other
+     * nodes only once the transaction has committed, and not at all if it
+     * rolls back.
+     *
+     * @param entityId the recipe concerned
+     */
+    void publish(CacheInvalidation.Kind kind, Long entityId);
+
+    /**
+     * Registers a subscriber for the invalidations published by other nodes.
+     * It is called with batches, from a thread of the bus.
+     */
+    void subscribe(Consumer<List<CacheInvalidation>> subscriber);
+
+    /**
+     * @return the id this node publishes under
+     */
+    String nodeId();
+}
@@ -0,0 +1,92 @@
+package com.crus.RecipeAPI.services;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.ehcache.CacheManager;
+import org.ehcache.core.spi.service.StatisticsService;
+import org.ehcache.core.statistics.CacheStatistics;
+import org.ehcache.core.statistics.TierStatistics;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Publishes the Ehcache statistics of every cache the {@code cacheManager}
+ * bean creates as Micrometer meters, tagged with {@code cache=<name>}:
+ * <ul>
+ *     <li>{@code cache.gets} with {@code result=hit|miss}</li>
+ *     <li>{@code cache.puts}, {@code cache.removals}, {@code cache.evictions}</li>
+ *     <li>{@code cache.size}, the number of entries held</li>
+ *     <li>{@code cache.load}, the time spent loading a missed entry from the database</li>
+ * </ul>
+ * The counters read the Ehcache statistics when scraped, so the cache calls
+ * themselves carry no extra cost. Loads are timed by the services around
+ * their database reads through {@link #startLoad()} and {@link #stopLoad}.
+ */
+@Component
+public class CacheMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> loadTimers = new HashMap<>();
+
+    public CacheMetrics(MeterRegistry meterRegistry, StatisticsService statisticsService, CacheManager cacheManager) {
+        this.meterRegistry = meterRegistry;
+        for (String cacheName : cacheManager.getRuntimeConfiguration().getCacheConfigurations().keySet()) {
+            counter("cache.gets", "Cache lookups", statisticsService, cacheName,
+                    CacheStatistics::getCacheHits, "result", "hit");
+            counter("cache.gets", "Cache lookups", statisticsService, cacheName,
+                    CacheStatistics::getCacheMisses, "result", "miss");
+            counter("cache.puts", "Entries added to or replaced in the cache", statisticsService, cacheName,
+                    CacheStatistics::getCachePuts);
+            counter("cache.removals", "Entries removed from the cache", statisticsService, cacheName,
+                    CacheStatistics::getCacheRemovals);
+            counter("cache.evictions", "Entries evicted to make room", statisticsService, cacheName,
+                    CacheStatistics::getCacheEvictions);
+            Gauge.builder("cache.size", statisticsService, stats -> size(stats.getCacheStatistics(cacheName)))
+                    .description("Entries held by the cache")
+                    .tag("cache", cacheName)
+                    .register(meterRegistry);
+            loadTimers.put(cacheName, Timer.builder("cache.load")
+                    .description("Time spent loading a missed entry")
+                    .tag("cache", cacheName)
+                    .register(meterRegistry));
+        }
+    }
+
+    private void counter(String name, String description, StatisticsService statisticsService,
+                         String cacheName, ToDoubleFunction<CacheStatistics> statistic, String... tags) {
+        FunctionCounter.builder(name, statisticsService,
+                        stats -> statistic.applyAsDouble(stats.getCacheStatistics(cacheName)))
+                .description(description)
+                .tag("cache", cacheName)
+                .tags(tags)
+                .register(meterRegistry);
+    }
+
+    // every tier holds a subset of the one below it, so the largest tier is
+    // the number of distinct entries in the cache
+    private static double size(CacheStatistics statistics) {
+        return statistics.getTierStatistics().values().stream()
+                .mapToLong(TierStatistics::getMappings)
+                .max()
+                .orElse(0);
+    }
+
+    public Timer.Sample startLoad() {
+        return Timer.start(meterRegistry);
+    }
+
+    /**
+     * Records the time since {@code sample} was started as a load of the given cache.
+     */
+    public void stopLoad(Timer.Sample sample, String cacheName) {
+        Timer timer = loadTimers.get(cacheName);
+        if (timer != null) {
+            sample.stop(timer);
+        }
+    }
+}
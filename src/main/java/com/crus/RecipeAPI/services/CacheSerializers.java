@@ -0,0 +1,345 @@
+package com.crus.RecipeAPI.services;
+
+import com.crus.RecipeAPI.models.CustomUserDetails;
+import com.crus.RecipeAPI.models.RecipeCursor;
+import com.crus.RecipeAPI.models.RecipeDetail;
+import com.crus.RecipeAPI.models.RecipePageKeys;
+import com.crus.RecipeAPI.models.RecipeSearch;
+import com.crus.RecipeAPI.models.RecipeSort;
+import com.crus.RecipeAPI.models.Review;
+import org.ehcache.spi.serialization.Serializer;
+import org.ehcache.spi.serialization.SerializerException;
+import org.springframework.data.domain.Sort;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary forms of the cached read models, for the cache tiers that
+ * hold values outside the Java heap. Every field is written in declaration
+ * order, nullable ones behind a presence flag or a length of -1, so a value
+ * costs little more than its strings. Enums are written by name, not ordinal.
+ */
+public final class CacheSerializers {
+
+    // bump whenever a serialised form changes, so values persisted by an
+    // older build are discarded rather than misread
+    public static final int FORMAT_VERSION = 1;
+
+    private CacheSerializers() {
+    }
+
+    /**
+     * Base of the serializers: buffers the value through data streams and
+     * compares by reading the stored form back.
+     */
+    abstract static class CompactSerializer<T> implements Serializer<T> {
+
+        @Override
+        public ByteBuffer serialize(T object) throws SerializerException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                write(out, object);
+            } catch (IOException e) {
+                throw new SerializerException(e);
+            }
+            return ByteBuffer.wrap(bytes.toByteArray());
+        }
+
+        @Override
+        public T read(ByteBuffer binary) throws SerializerException {
+            byte[] bytes = new byte[binary.remaining()];
+            binary.get(bytes);
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+                return read(in);
+            } catch (IOException e) {
+                throw new SerializerException(e);
+            }
+        }
+
+        @Override
+        public boolean equals(T object, ByteBuffer binary) throws SerializerException {
+            return object.equals(read(binary));
+        }
+
+        abstract void write(DataOutputStream out, T value) throws IOException;
+
+        abstract T read(DataInputStream in) throws IOException;
+
+        // length-prefixed UTF-8, -1 for null; unlike writeUTF not capped at 64KB
+        static void writeString(DataOutputStream out, String value) throws IOException {
+            if (value == null) {
+                out.writeInt(-1);
+                return;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(utf8.length);
+            out.write(utf8);
+        }
+
+        static String readString(DataInputStream in) throws IOException {
+            int length = in.readInt();
+            if (length < 0) {
+                return null;
+            }
+            byte[] utf8 = new byte[length];
+            in.readFully(utf8);
+            return new String(utf8, StandardCharsets.UTF_8);
+        }
+
+        static void writeLong(DataOutputStream out, Long value) throws IOException {
+            out.writeBoolean(value != null);
+            if (value != null) {
+                out.writeLong(value);
+            }
+        }
+
+        static Long readLong(DataInputStream in) throws IOException {
+            return in.readBoolean() ? in.readLong() : null;
+        }
+
+        static void writeInteger(DataOutputStream out, Integer value) throws IOException {
+            out.writeBoolean(value != null);
+            if (value != null) {
+                out.writeInt(value);
+            }
+        }
+
+        static Integer readInteger(DataInputStream in) throws IOException {
+            return in.readBoolean() ? in.readInt() : null;
+        }
+
+        static void writeDouble(DataOutputStream out, Double value) throws IOException {
+            out.writeBoolean(value != null);
+            if (value != null) {
+                out.writeDouble(value);
+            }
+        }
+
+        static Double readDouble(DataInputStream in) throws IOException {
+            return in.readBoolean() ? in.readDouble() : null;
+        }
+
+        static void writeInstant(DataOutputStream out, Instant value) throws IOException {
+            out.writeBoolean(value != null);
+            if (value != null) {
+                out.writeLong(value.getEpochSecond());
+                out.writeInt(value.getNano());
+            }
+        }
+
+        static Instant readInstant(DataInputStream in) throws IOException {
+            return in.readBoolean() ? Instant.ofEpochSecond(in.readLong(), in.readInt()) : null;
+        }
+
+        static void writeIds(DataOutputStream out, List<Long> ids) throws IOException {
+            out.writeInt(ids.size());
+            for (Long id : ids) {
+                out.writeLong(id);
+            }
+        }
+
+        static List<Long> readIds(DataInputStream in) throws IOException {
+            int size = in.readInt();
+            List<Long> ids = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                ids.add(in.readLong());
+            }
+            return List.copyOf(ids);
+        }
+    }
+
+    public static final class RecipeDetailSerializer extends CompactSerializer<RecipeDetail> {
+
+        @Override
+        void write(DataOutputStream out, RecipeDetail recipe) throws IOException {
+            writeLong(out, recipe.id());
+            writeString(out, recipe.name());
+            writeInteger(out, recipe.minutesToMake());
+            writeInteger(out, recipe.difficultyRating());
+            writeString(out, recipe.submittedBy());
+
+            out.writeInt(recipe.ingredients().size());
+            for (RecipeDetail.IngredientLine ingredient : recipe.ingredients()) {
+                writeLong(out, ingredient.id());
+                writeString(out, ingredient.name());
+                writeString(out, ingredient.amount());
+                writeString(out, ingredient.state());
+            }
+            out.writeInt(recipe.steps().size());
+            for (RecipeDetail.StepLine step : recipe.steps()) {
+                writeLong(out, step.id());
+                out.writeInt(step.stepNumber());
+                writeString(out, step.description());
+            }
+            out.writeInt(recipe.reviews().size());
+            for (RecipeDetail.ReviewLine review : recipe.reviews()) {
+                writeLong(out, review.id());
+                writeString(out, review.username());
+                writeString(out, review.author());
+                out.writeInt(review.rating());
+                writeString(out, review.description());
+            }
+
+            writeDouble(out, recipe.averageRating());
+            writeString(out, recipe.author());
+            writeLong(out, recipe.version());
+            writeInstant(out, recipe.updatedAt());
+        }
+
+        @Override
+        RecipeDetail read(DataInputStream in) throws IOException {
+            Long id = readLong(in);
+            String name = readString(in);
+            Integer minutesToMake = readInteger(in);
+            Integer difficultyRating = readInteger(in);
+            String submittedBy = readString(in);
+
+            int ingredientCount = in.readInt();
+            List<RecipeDetail.IngredientLine> ingredients = new ArrayList<>(ingredientCount);
+            for (int i = 0; i < ingredientCount; i++) {
+                ingredients.add(new RecipeDetail.IngredientLine(
+                        readLong(in), readString(in), readString(in), readString(in)));
+            }
+            int stepCount = in.readInt();
+            List<RecipeDetail.StepLine> steps = new ArrayList<>(stepCount);
+            for (int i = 0; i < stepCount; i++) {
+                steps.add(new RecipeDetail.StepLine(readLong(in), in.readInt(), readString(in)));
+            }
+            int reviewCount = in.readInt();
+            List<RecipeDetail.ReviewLine> reviews = new ArrayList<>(reviewCount);
+            for (int i = 0; i < reviewCount; i++) {
+                reviews.add(new RecipeDetail.ReviewLine(
+                        readLong(in), readString(in), readString(in), in.readInt(), readString(in)));
+            }
+
+            return new RecipeDetail(id, name, minutesToMake, difficultyRating, submittedBy,
+                    ingredients, steps, reviews,
+                    readDouble(in), readString(in), readLong(in), readInstant(in));
+        }
+    }
+
+    public static final class RecipePageKeysSerializer extends CompactSerializer<RecipePageKeys> {
+
+        @Override
+        void write(DataOutputStream out, RecipePageKeys page) throws IOException {
+            out.writeUTF(page.sort().name());
+            out.writeUTF(page.direction().name());
+            writeCursor(out, page.after());
+            writeIds(out, page.recipeIds());
+            writeCursor(out, page.last());
+            writeString(out, page.nextCursor());
+        }
+
+        @Override
+        RecipePageKeys read(DataInputStream in) throws IOException {
+            return new RecipePageKeys(
+                    RecipeSort.valueOf(in.readUTF()),
+                    Sort.Direction.valueOf(in.readUTF()),
+                    readCursor(in),
+                    readIds(in),
+                    readCursor(in),
+                    readString(in));
+        }
+
+        // the key is written as text and parsed back by its sort, like the
+        // cursor tokens handed to clients
+        private static void writeCursor(DataOutputStream out, RecipeCursor cursor) throws IOException {
+            out.writeBoolean(cursor != null);
+            if (cursor != null) {
+                out.writeUTF(cursor.sort().name());
+                out.writeUTF(cursor.direction().name());
+                writeString(out, cursor.key() == null ? null : cursor.key().toString());
+                writeLong(out, cursor.id());
+            }
+        }
+
+        private static RecipeCursor readCursor(DataInputStream in) throws IOException {
+            if (!in.readBoolean()) {
+                return null;
+            }
+            RecipeSort sort = RecipeSort.valueOf(in.readUTF());
+            Sort.Direction direction = Sort.Direction.valueOf(in.readUTF());
+            String key = readString(in);
+            return new RecipeCursor(sort, direction, key == null ? null : sort.parseKey(key), readLong(in));
+        }
+    }
+
+    public static final class RecipeSearchSerializer extends CompactSerializer<RecipeSearch> {
+
+        @Override
+        void write(DataOutputStream out, RecipeSearch search) throws IOException {
+            writeString(out, search.name());
+            writeString(out, search.username());
+            writeIds(out, search.recipeIds());
+        }
+
+        @Override
+        RecipeSearch read(DataInputStream in) throws IOException {
+            return new RecipeSearch(readString(in), readString(in), readIds(in));
+        }
+    }
+
+    /**
+     * The list of reviews held by {@code allReviewsCache}. Only the columns a
+     * review is rendered from are kept; the author is restored as a user
+     * carrying just the username, and the parent recipe as its id.
+     */
+    @SuppressWarnings("rawtypes")
+    public static final class ReviewListSerializer extends CompactSerializer<List> {
+
+        @Override
+        void write(DataOutputStream out, List reviews) throws IOException {
+            out.writeInt(reviews.size());
+            for (Object element : reviews) {
+                Review review = (Review) element;
+                writeLong(out, review.getId());
+                writeLong(out, review.getVersion());
+                writeInstant(out, review.getUpdatedAt());
+                writeString(out, review.getUsername());
+                writeString(out, review.getUser() != null ? review.getUser().getUsername() : null);
+                out.writeInt(review.getRating());
+                writeString(out, review.getDescription());
+                writeLong(out, review.getRecipeId());
+            }
+        }
+
+        @Override
+        List read(DataInputStream in) throws IOException {
+            int size = in.readInt();
+            List<Review> reviews = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                Long id = readLong(in);
+                Long version = readLong(in);
+                Instant updatedAt = readInstant(in);
+                String username = readString(in);
+                String author = readString(in);
+                reviews.add(Review.builder()
+                        .id(id)
+                        .version(version)
+                        .updatedAt(updatedAt)
+                        .username(username)
+                        .user(author == null ? null : CustomUserDetails.builder().username(author).build())
+                        .rating(in.readInt())
+                        .description(readString(in))
+                        .recipeId(readLong(in))
+                        .build());
+            }
+            return reviews;
+        }
+
+        // Review has no value equality, so compare what is stored
+        @Override
+        public boolean equals(List object, ByteBuffer binary) throws SerializerException {
+            return serialize(object).equals(binary);
+        }
+    }
+}
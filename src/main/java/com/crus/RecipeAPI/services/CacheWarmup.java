@@ -0,0 +1,220 @@
+package com.crus.RecipeAPI.services;
+
+import com.crus.RecipeAPI.exceptions.NoSuchRecipeException;
+import com.crus.RecipeAPI.exceptions.NoSuchReviewException;
+import com.crus.RecipeAPI.models.RecipeDetail;
+import com.crus.RecipeAPI.models.RecipePage;
+import com.crus.RecipeAPI.models.RecipeSort;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Fills the hottest caches from the database once the application is ready,
+ * so the first wave of traffic is not what loads them: the first pages of
+ * GET /recipes by id and by rating, with their per-recipe entries and
+ * owners, and the list of all reviews. The loads run in parallel through the
+ * same service methods a request would use.
+ * <p>
+ * Doubles as the {@code cacheWarmup} health indicator of the readiness
+ * group, which reports out of service until the warmup and the in-memory
+ * indexes are done, so a load balancer holds traffic back until then.
+ * Progress is published as {@code cache.warmup.progress} and the time of each
+ * load as {@code cache.warmup}.
+ */
+@Component
+public class CacheWarmup implements HealthIndicator {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheWarmup.class);
+
+    // the two page walks, the reviews and the owners
+    private static final int TASKS = 4;
+
+    private final RecipeService recipeService;
+    private final ReviewService reviewService;
+    private final OwnershipService ownershipService;
+    private final RecipeNameIndex recipeNameIndex;
+    private final RecipeIngredientIndex recipeIngredientIndex;
+    private final RecipeLeaderboard recipeLeaderboard;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int pages;
+    private final int pageSize;
+    private final int threads;
+
+    private final AtomicInteger completedTasks = new AtomicInteger();
+    private volatile boolean finished;
+    private volatile Duration elapsed;
+
+    public CacheWarmup(RecipeService recipeService,
+                       ReviewService reviewService,
+                       OwnershipService ownershipService,
+                       RecipeNameIndex recipeNameIndex,
+                       RecipeIngredientIndex recipeIngredientIndex,
+                       RecipeLeaderboard recipeLeaderboard,
+                       MeterRegistry meterRegistry,
+                       @Value("${recipe.warmup.enabled:true}") boolean enabled,
+                       @Value("${recipe.warmup.pages:10}") int pages,
+                       @Value("${recipe.warmup.page-size:20}") int pageSize,
+                       @Value("${recipe.warmup.threads:4}") int threads) {
+        this.recipeService = recipeService;
+        this.reviewService = reviewService;
+        this.ownershipService = ownershipService;
+        this.recipeNameIndex = recipeNameIndex;
+        this.recipeIngredientIndex = recipeIngredientIndex;
+        this.recipeLeaderboard = recipeLeaderboard;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.pages = pages;
+        this.pageSize = pageSize;
+        this.threads = threads;
+        this.finished = !enabled;
+
+        Gauge.builder("cache.warmup.progress", this, CacheWarmup::progress)
+                .description("Share of the startup cache loads that have finished")
+                .register(meterRegistry);
+    }
+
+    private double progress() {
+        if (finished) {
+            return 1.0;
+        }
+        return (double) completedTasks.get() / TASKS;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        Thread.ofPlatform().name("cache-warmup").daemon().start(this::run);
+    }
+
+    private void run() {
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(threads,
+                Thread.ofPlatform().name("cache-warmup-", 0).daemon().factory());
+        try {
+            CompletableFuture<Set<Long>> byId = task(executor, "recipePages.id",
+                    () -> walkPages(RecipeSort.ID, Sort.Direction.ASC));
+            CompletableFuture<Set<Long>> byRating = task(executor, "recipePages.averageRating",
+                    () -> walkPages(RecipeSort.AVERAGE_RATING, Sort.Direction.DESC));
+            CompletableFuture<Integer> reviews = task(executor, "allReviews", this::loadAllReviews);
+            // the owners of every recipe the pages brought in, in one query
+            CompletableFuture<Integer> owners = byId.thenCombine(byRating, (first, second) -> {
+                Set<Long> ids = new HashSet<>(first);
+                ids.addAll(second);
+                return ids;
+            }).thenCompose(ids -> task(executor, "recipeOwners", () -> {
+                ownershipService.preloadRecipeOwners(ids);
+                return ids.size();
+            }));
+
+            CompletableFuture.allOf(byId, byRating, reviews, owners).exceptionally(failure -> null).join();
+        } finally {
+            executor.shutdown();
+            elapsed = Duration.ofNanos(System.nanoTime() - start);
+            finished = true;
+            log.info("Cache warmup finished in {} ms", elapsed.toMillis());
+        }
+    }
+
+    // times the load and counts it towards the progress; a load that fails
+    // is logged and leaves its cache to fill on demand
+    private <T> CompletableFuture<T> task(ExecutorService executor, String name, Supplier<T> load) {
+        Timer timer = Timer.builder("cache.warmup")
+                .description("Time taken by a startup cache load")
+                .tag("task", name)
+                .register(meterRegistry);
+        return CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            try {
+                T loaded = timer.record(load);
+                log.info("Warmed {} ({}) in {} ms", name, describe(loaded),
+                        (System.nanoTime() - start) / 1_000_000);
+                return loaded;
+            } catch (RuntimeException e) {
+                log.warn("Could not warm {}", name, e);
+                throw e;
+            } finally {
+                completedTasks.incrementAndGet();
+            }
+        }, executor);
+    }
+
+    private static String describe(Object loaded) {
+        return loaded instanceof Collection<?> ids ? ids.size() + " recipes" : loaded + " entries";
+    }
+
+    // the first pages of an ordering, through the same cache keys GET /recipes
+    // uses with its default page size
+    private Set<Long> walkPages(RecipeSort sort, Sort.Direction direction) {
+        Set<Long> ids = new HashSet<>();
+        String after = null;
+        try {
+            for (int i = 0; i < pages; i++) {
+                RecipePage page = recipeService.getRecipePage(sort, direction, after, pageSize);
+                page.recipes().stream().map(RecipeDetail::id).forEach(ids::add);
+                after = page.nextCursor();
+                if (after == null) {
+                    break;
+                }
+            }
+        } catch (NoSuchRecipeException e) {
+            // no recipes yet, nothing to warm
+        }
+        return ids;
+    }
+
+    private Integer loadAllReviews() {
+        try {
+            return reviewService.getAllReviews().size();
+        } catch (NoSuchReviewException e) {
+            return 0;
+        }
+    }
+
+    @Override
+    public Health health() {
+        List<String> pending = new ArrayList<>();
+        if (!finished) {
+            pending.add("caches");
+        }
+        if (!recipeNameIndex.isReady()) {
+            pending.add("recipeNameIndex");
+        }
+        if (!recipeIngredientIndex.isReady()) {
+            pending.add("recipeIngredientIndex");
+        }
+        if (!recipeLeaderboard.isReady()) {
+            pending.add("recipeLeaderboard");
+        }
+        Health.Builder health = pending.isEmpty() ? Health.up() : Health.outOfService().withDetail("pending", pending);
+        health.withDetail("progress", progress());
+        if (elapsed != null) {
+            health.withDetail("elapsedMillis", elapsed.toMillis());
+        }
+        return health.build();
+    }
+}
@@ -0,0 +1,130 @@
+package com.crus.RecipeAPI.services;
+
+import com.crus.RecipeAPI.models.CacheChangeLogEntry;
+import com.crus.RecipeAPI.repos.CacheChangeLogRepo;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exchanges invalidations through the {@code cache_change_log} table of the
+ * shared database, so no broker is needed. Publishing inserts a row in the
+ * writer's transaction, which makes it visible exactly when the write
+ * commits. Every node polls for rows past the last id it has seen, at
+ * {@code recipe.invalidation.poll-interval}, which bounds the lag.
+ * <p>
+ * AUTO_INCREMENT hands out ids at insert time, not at commit, so a row can
+ * appear after rows with higher ids. Skipped ids are remembered and looked
+ * for again on every poll until {@code recipe.invalidation.gap-timeout}, long
+ * enough for any write transaction to finish; ids that never appear belong
+ * to rolled back inserts. Rows older than {@code recipe.invalidation.retention}
+ * are deleted.
+ */
+@Component
+@ConditionalOnProperty(name = "recipe.invalidation.bus", havingValue = "changelog")
+public class ChangeLogInvalidationBus extends AbstractInvalidationBus {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeLogInvalidationBus.class);
+
+    // a jump beyond this many ids is not tracked id by id
+    private static final int MAX_TRACKED_GAP = 10_000;
+
+    private final CacheChangeLogRepo changeLogRepo;
+    private final int batchSize;
+    private final Duration gapTimeout;
+    private final Duration retention;
+
+    // only touched by the polling thread
+    private long lastId;
+    private final Map<Long, Long> gapsSince = new HashMap<>();
+
+    public ChangeLogInvalidationBus(CacheChangeLogRepo changeLogRepo,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${recipe.invalidation.batch-size:1000}") int batchSize,
+                                    @Value("${recipe.invalidation.gap-timeout:PT30S}") Duration gapTimeout,
+                                    @Value("${recipe.invalidation.retention:PT1H}") Duration retention) {
+        super(meterRegistry);
+        this.changeLogRepo = changeLogRepo;
+        this.batchSize = batchSize;
+        this.gapTimeout = gapTimeout;
+        this.retention = retention;
+    }
+
+    // changes made before this node started cannot be in its caches
+    @PostConstruct
+    public void start() {
+        lastId = changeLogRepo.findMaxId();
+    }
+
+    @Override
+    public void publish(CacheInvalidation.Kind kind, Long entityId) {
+        changeLogRepo.save(CacheChangeLogEntry.builder()
+                .kind(kind)
+                .entityId(entityId)
+                .origin(nodeId())
+                .createdAt(Instant.now())
+                .build());
+    }
+
+    @Scheduled(fixedDelayString = "${recipe.invalidation.poll-interval:PT1S}")
+    public void poll() {
+        List<CacheChangeLogEntry> entries = new ArrayList<>();
+        if (!gapsSince.isEmpty()) {
+            for (CacheChangeLogEntry late : changeLogRepo.findByIdInOrderByIdAsc(gapsSince.keySet())) {
+                gapsSince.remove(late.getId());
+                entries.add(late);
+            }
+        }
+
+        List<CacheChangeLogEntry> batch;
+        do {
+            batch = changeLogRepo.findByIdGreaterThanOrderByIdAsc(lastId, Limit.of(batchSize));
+            for (CacheChangeLogEntry entry : batch) {
+                rememberGap(entry.getId());
+                lastId = entry.getId();
+                entries.add(entry);
+            }
+        } while (batch.size() == batchSize);
+
+        long expired = System.nanoTime() - gapTimeout.toNanos();
+        gapsSince.values().removeIf(since -> since - expired < 0);
+
+        deliver(entries.stream().map(CacheChangeLogEntry::toInvalidation).toList());
+    }
+
+    private void rememberGap(long id) {
+        long skipped = id - lastId - 1;
+        if (skipped <= 0) {
+            return;
+        }
+        if (skipped > MAX_TRACKED_GAP) {
+            log.warn("Change log jumped from id {} to {}; not waiting for the ids in between", lastId, id);
+            return;
+        }
+        long now = System.nanoTime();
+        for (long missing = lastId + 1; missing < id; missing++) {
+            gapsSince.put(missing, now);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${recipe.invalidation.prune-interval:PT5M}")
+    public void prune() {
+        int deleted = changeLogRepo.deleteOlderThan(Instant.now().minus(retention));
+        if (deleted > 0) {
+            log.debug("Pruned {} change log rows", deleted);
+        }
+    }
+}
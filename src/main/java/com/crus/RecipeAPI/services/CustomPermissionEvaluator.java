@@ -1,29 +1,20 @@
 package com.crus.RecipeAPI.services;
 
-import com.crus.RecipeAPI.models.CustomUserDetails;
-import com.crus.RecipeAPI.models.Recipe;
-import com.crus.RecipeAPI.models.Review;
-import com.crus.RecipeAPI.models.Role;
-import com.crus.RecipeAPI.repos.RecipeRepo;
-import com.crus.RecipeAPI.repos.ReviewRepo;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.PermissionEvaluator;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Component;
 
 import java.io.Serializable;
-import java.util.Collection;
 import java.util.Optional;
 
 @Component
 public class CustomPermissionEvaluator implements PermissionEvaluator {
 
     @Autowired
-    RecipeRepo recipeRepo;
-
-    @Autowired
-    ReviewRepo reviewRepo;
+    OwnershipService ownershipService;
 
     @Override
     public boolean hasPermission(
@@ -53,14 +44,14 @@ public class CustomPermissionEvaluator implements PermissionEvaluator {
             return true;
         } else {
             // the user must be the owner of the object to edit it.
-            CustomUserDetails userDetails =
-                    (CustomUserDetails) authentication.getPrincipal();
+            // only the owner's username is looked up, never the entity itself,
+            // so the service method's own load is the only read of it
+            String username = authentication.getName();
 
             if (targetType.equalsIgnoreCase("recipe")) {
-                Optional<Recipe> recipe =
-                        recipeRepo.findById(
-                                Long.parseLong(targetId.toString()));
-                if (recipe.isEmpty()) {
+                Optional<String> owner = ownershipService.getRecipeOwner(
+                        Long.parseLong(targetId.toString()));
+                if (owner.isEmpty()) {
                     // no recipe with id exists, return true so the method
                     // can continue ultimately throwing an exception
                     return true;
@@ -68,17 +59,12 @@ public class CustomPermissionEvaluator implements PermissionEvaluator {
 
                 // if the author of the entity matches the current user
                 // they are the owner of the recipe and allowed access
-                return recipe
-                        .get()
-                        .getAuthor()
-                        .equals(userDetails.getUsername());
+                return owner.get().equals(username);
 
             } else if (targetType.equalsIgnoreCase("review")) {
-                Optional<Review> review =
-                        reviewRepo.findById(
-                                Long.parseLong(
-                                        targetId.toString()));
-                if (review.isEmpty()) {
+                Optional<String> owner = ownershipService.getReviewOwner(
+                        Long.parseLong(targetId.toString()));
+                if (owner.isEmpty()) {
                     throw new EntityNotFoundException(
                             "The review you are trying to " +
                                     "access does not exist");
@@ -86,25 +72,18 @@ public class CustomPermissionEvaluator implements PermissionEvaluator {
 
                 // if the author of the entity matches the current user
                 // they are the owner of the review and allowed access
-                return review
-                        .get()
-                        .getAuthor()
-                        .equals(userDetails.getUsername());
+                return owner.get().equals(username);
             }
         }
         return true;
     }
 
     public boolean userIsAdmin(Authentication authentication) {
-        Collection<Role> grantedAuthorities =
-                (Collection<Role>) authentication.getAuthorities();
-
-        for (Role r : grantedAuthorities) {
-            if (r.getAuthority().equals("ROLE_ADMIN")) {
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            if (authority.getAuthority().equals("ROLE_ADMIN")) {
                 return true;
             }
         }
         return false;
     }
 }
-
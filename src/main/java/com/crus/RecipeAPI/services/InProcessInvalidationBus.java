@@ -0,0 +1,48 @@
+package com.crus.RecipeAPI.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Delivers invalidations to the other buses attached to the same
+ * {@link Network}, within one JVM, right after the publishing transaction
+ * commits. The application bean has a network of its own, so a single node
+ * never receives anything; tests attach several buses to one network to act
+ * as several nodes.
+ */
+@Component
+@ConditionalOnProperty(name = "recipe.invalidation.bus", havingValue = "in-process", matchIfMissing = true)
+public class InProcessInvalidationBus extends AbstractInvalidationBus {
+
+    /**
+     * The buses that see each other's invalidations.
+     */
+    public static final class Network {
+        private final List<InProcessInvalidationBus> buses = new CopyOnWriteArrayList<>();
+    }
+
+    private final Network network;
+
+    @Autowired
+    public InProcessInvalidationBus(MeterRegistry meterRegistry) {
+        this(new Network(), meterRegistry);
+    }
+
+    public InProcessInvalidationBus(Network network, MeterRegistry meterRegistry) {
+        super(meterRegistry);
+        this.network = network;
+        network.buses.add(this);
+    }
+
+    @Override
+    public void publish(CacheInvalidation.Kind kind, Long entityId) {
+        CacheInvalidation invalidation = new CacheInvalidation(kind, entityId, nodeId(), Instant.now());
+        AfterCommit.run(() -> network.buses.forEach(bus -> bus.deliver(List.of(invalidation))));
+    }
+}
@@ -0,0 +1,167 @@
+package com.crus.RecipeAPI.services;
+
+import com.crus.RecipeAPI.exceptions.ConcurrentUpdateException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs a read-modify-write in a transaction of its own and, when its
+ * {@code @Version} check fails because another transaction changed the same
+ * row first, runs it again on the fresh state. Attempts are spaced by an
+ * exponential backoff with full jitter, so writers that collided do not
+ * collide again in lockstep. Nothing is locked while waiting.
+ * <p>
+ * Once {@code recipe.write.max-attempts} attempts have conflicted the write
+ * fails with a {@link ConcurrentUpdateException} carrying the current
+ * version. So does, right away, a write whose client expected another
+ * version than the one it read, see {@link #expectVersion}. Conflicts are
+ * counted as {@code recipe.write.conflicts}, tagged with whether the write
+ * was retried or gave up.
+ */
+@Component
+public class OptimisticRetry {
+
+    private static final Logger log = LoggerFactory.getLogger(OptimisticRetry.class);
+
+    /**
+     * A transactional write that may throw the checked exceptions of the
+     * service method running it.
+     */
+    @FunctionalInterface
+    public interface Write<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    // carries a checked exception out of the TransactionTemplate, rolling it back
+    private static final class Failure extends RuntimeException {
+        Failure(Exception cause) {
+            super(cause);
+        }
+    }
+
+    // the entity a write read is not at the version its client expected
+    private static final class VersionMismatch extends RuntimeException {
+        final Long expectedVersion;
+        final Long currentVersion;
+
+        VersionMismatch(Long expectedVersion, Long currentVersion) {
+            this.expectedVersion = expectedVersion;
+            this.currentVersion = currentVersion;
+        }
+    }
+
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Counter retried;
+    private final Counter exhausted;
+
+    public OptimisticRetry(PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry,
+                           @Value("${recipe.write.max-attempts:5}") int maxAttempts,
+                           @Value("${recipe.write.initial-backoff:PT0.01S}") Duration initialBackoff,
+                           @Value("${recipe.write.max-backoff:PT0.2S}") Duration maxBackoff) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.retried = Counter.builder("recipe.write.conflicts")
+                .description("Writes that lost an optimistic version check")
+                .tag("outcome", "retried")
+                .register(meterRegistry);
+        this.exhausted = Counter.builder("recipe.write.conflicts")
+                .description("Writes that lost an optimistic version check")
+                .tag("outcome", "exhausted")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param entity what is written, for the error message, e.g. "recipe 7"
+     * @param currentVersion reads the entity's version once retries run out
+     * @throws ConcurrentUpdateException if every attempt conflicted
+     */
+    public <T, E extends Exception> T run(String entity, Supplier<Long> currentVersion, Write<T, E> write)
+            throws E, ConcurrentUpdateException {
+        try {
+            // inside a caller's transaction a conflict marks that transaction for
+            // rollback, so there is nothing left to retry in
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                return write.run();
+            }
+            return retry(entity, currentVersion, write);
+        } catch (VersionMismatch mismatch) {
+            throw new ConcurrentUpdateException("The " + entity + " was changed since version "
+                    + mismatch.expectedVersion + " was read; its current version is " + mismatch.currentVersion
+                    + ". Reload it and try again.", mismatch.currentVersion);
+        }
+    }
+
+    /**
+     * Fails the running write, without retrying, unless the entity it read is
+     * at the version the client expects, e.g. from an If-Match header. The
+     * write then throws a {@link ConcurrentUpdateException} carrying the
+     * current version. A retry would only read the same or a newer version.
+     *
+     * @param expectedVersion the version the client read, null to accept any
+     * @param currentVersion the version of the entity as the write read it
+     */
+    public static void expectVersion(Long expectedVersion, Long currentVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(currentVersion)) {
+            throw new VersionMismatch(expectedVersion, currentVersion);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T, E extends Exception> T retry(String entity, Supplier<Long> currentVersion, Write<T, E> write)
+            throws E, ConcurrentUpdateException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> {
+                    try {
+                        return write.run();
+                    } catch (RuntimeException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        throw new Failure(e);
+                    }
+                });
+            } catch (Failure failure) {
+                throw (E) failure.getCause();
+            } catch (OptimisticLockingFailureException conflict) {
+                if (attempt >= maxAttempts) {
+                    exhausted.increment();
+                    log.info("Gave up writing {} after {} conflicting attempts", entity, attempt);
+                    Long version = currentVersion.get();
+                    throw new ConcurrentUpdateException("The " + entity + " kept being changed by other "
+                            + "requests while this one was applied; its current version is " + version
+                            + ". Reload it and try again.", version);
+                }
+                retried.increment();
+                backOff(attempt);
+            }
+        }
+    }
+
+    private void backOff(int attempt) {
+        long ceiling = Math.min(maxBackoff.toNanos(), initialBackoff.toNanos() << Math.min(attempt - 1, 20));
+        long nanos = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        try {
+            Thread.sleep(Duration.ofNanos(nanos));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.crus.RecipeAPI.services;
+
+import com.crus.RecipeAPI.repos.RecipeRepo;
+import com.crus.RecipeAPI.repos.ReviewRepo;
+import io.micrometer.core.instrument.Timer;
+import org.ehcache.Cache;
+import org.ehcache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Answers "who owns this recipe / review" for the permission checks without
+ * loading the entity. Owners are cached by id; on a miss only the owner's
+ * username is selected. Ownership never changes after creation, so the write
+ * paths only have to record new entities and forget deleted ones.
+ */
+@Service
+public class OwnershipService {
+
+    private final RecipeRepo recipeRepo;
+    private final ReviewRepo reviewRepo;
+    private final Cache<Long, String> recipeOwners;
+    private final Cache<Long, String> reviewOwners;
+    private final CacheMetrics cacheMetrics;
+
+    public OwnershipService(RecipeRepo recipeRepo, ReviewRepo reviewRepo, CacheManager cacheManager,
+                            CacheMetrics cacheMetrics) {
+        this.recipeRepo = recipeRepo;
+        this.reviewRepo = reviewRepo;
+        this.cacheMetrics = cacheMetrics;
+        this.recipeOwners = cacheManager.getCache("recipeOwners", Long.class, String.class);
+        this.reviewOwners = cacheManager.getCache("reviewOwners", Long.class, String.class);
+    }
+
+    /**
+     * @return the username of the recipe's owner, or empty if there is no such recipe
+     */
+    public Optional<String> getRecipeOwner(Long recipeId) {
+        String owner = recipeOwners.get(recipeId);
+        if (owner != null) {
+            return Optional.of(owner);
+        }
+        Timer.Sample load = cacheMetrics.startLoad();
+        Optional<String> loaded = recipeRepo.findOwnerUsernameById(recipeId);
+        cacheMetrics.stopLoad(load, "recipeOwners");
+        loaded.ifPresent(username -> recipeOwners.put(recipeId, username));
+        return loaded;
+    }
+
+    /**
+     * @return the username of the review's owner, or empty if there is no such review
+     */
+    public Optional<String> getReviewOwner(Long reviewId) {
+        String owner = reviewOwners.get(reviewId);
+        if (owner != null) {
+            return Optional.of(owner);
+        }
+        Timer.Sample load = cacheMetrics.startLoad();
+        Optional<String> loaded = reviewRepo.findOwnerUsernameById(reviewId);
+        cacheMetrics.stopLoad(load, "reviewOwners");
+        loaded.ifPresent(username -> reviewOwners.put(reviewId, username));
+        return loaded;
+    }
+
+    /**
+     * Loads the owners of the given recipes that are not cached yet, in one query.
+     */
+    public void preloadRecipeOwners(Collection<Long> recipeIds) {
+        List<Long> missing = recipeIds.stream().filter(id -> !recipeOwners.containsKey(id)).toList();
+        if (missing.isEmpty()) {
+            return;
+        }
+        Timer.Sample load = cacheMetrics.startLoad();
+        List<RecipeRepo.RecipeOwner> owners = recipeRepo.findOwnersById(missing);
+        cacheMetrics.stopLoad(load, "recipeOwners");
+        owners.forEach(owner -> recipeOwners.putIfAbsent(owner.getId(), owner.getUsername()));
+    }
+
+    public void recipeCreated(Long recipeId, String owner) {
+        AfterCommit.run(() -> recipeOwners.put(recipeId, owner));
+    }
+
+    public void recipeDeleted(Long recipeId, Collection<Long> reviewIds) {
+        AfterCommit.run(() -> {
+            recipeOwners.remove(recipeId);
+            reviewIds.forEach(reviewOwners::remove);
+        });
+    }
+
+    public void reviewDeleted(Long reviewId) {
+        AfterCommit.run(() -> reviewOwners.remove(reviewId));
+    }
+}
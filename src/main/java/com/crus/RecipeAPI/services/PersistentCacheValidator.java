@@ -0,0 +1,153 @@
+package com.crus.RecipeAPI.services;
+
+import com.crus.RecipeAPI.RecipeApiApplication;
+import com.crus.RecipeAPI.models.RecipePageKeys;
+import com.crus.RecipeAPI.repos.RecipeRepo;
+import com.crus.RecipeAPI.repos.ReviewRepo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.ehcache.Cache;
+import org.ehcache.CacheManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Guards the caches that persist to disk across restarts. On shutdown it
+ * records a version stamp of the recipe and review tables next to the cache
+ * files; on boot it compares the stamps with the tables and clears the caches
+ * of any table that changed while the node was down, so stale entries are
+ * dropped instead of served.
+ * <p>
+ * The stamps are removed once they have been checked. If the node does not
+ * shut down cleanly there is nothing to compare with on the next boot and the
+ * persisted caches are discarded.
+ */
+@Component
+public class PersistentCacheValidator {
+
+    private static final Logger log = LoggerFactory.getLogger(PersistentCacheValidator.class);
+
+    private static final String STAMP_FILE = "table-stamps.properties";
+    private static final String FORMAT = "format";
+    private static final String RECIPES = "recipes";
+    private static final String REVIEWS = "reviews";
+
+    private record PersistedCache(String name, Class<?> valueType) {
+    }
+
+    // the persisted caches, by the table their contents come from
+    private static final Map<String, List<PersistedCache>> CACHES_BY_TABLE = Map.of(
+            RECIPES, List.of(new PersistedCache("allRecipesCache", RecipePageKeys.class),
+                    new PersistedCache("ownersSearch", Long.class)),
+            REVIEWS, List.of(new PersistedCache("allReviewsCache", List.class),
+                    new PersistedCache("reviewSearch", Long.class)));
+
+    private final CacheManager cacheManager;
+    private final RecipeRepo recipeRepo;
+    private final ReviewRepo reviewRepo;
+    private final boolean enabled;
+    private final Path stampFile;
+
+    public PersistentCacheValidator(CacheManager cacheManager,
+                                    RecipeRepo recipeRepo,
+                                    ReviewRepo reviewRepo,
+                                    @Value("${" + RecipeApiApplication.PERSISTENCE_ENABLED + ":false}") boolean enabled,
+                                    @Value("${" + RecipeApiApplication.PERSISTENCE_DIRECTORY + ":"
+                                            + RecipeApiApplication.DEFAULT_PERSISTENCE_DIRECTORY + "}") String directory) {
+        this.cacheManager = cacheManager;
+        this.recipeRepo = recipeRepo;
+        this.reviewRepo = reviewRepo;
+        this.enabled = enabled;
+        this.stampFile = Path.of(directory, STAMP_FILE);
+    }
+
+    @PostConstruct
+    public void validate() {
+        if (!enabled) {
+            return;
+        }
+        Properties stored = readStamps();
+        Properties current = currentStamps();
+        boolean sameFormat = current.getProperty(FORMAT).equals(stored.getProperty(FORMAT));
+
+        for (Map.Entry<String, List<PersistedCache>> table : CACHES_BY_TABLE.entrySet()) {
+            List<String> names = table.getValue().stream().map(PersistedCache::name).toList();
+            String stamp = stored.getProperty(table.getKey());
+            if (sameFormat && current.getProperty(table.getKey()).equals(stamp)) {
+                log.info("Reusing persisted caches {}", names);
+                continue;
+            }
+            for (PersistedCache cache : table.getValue()) {
+                Cache<String, ?> persisted = cacheManager.getCache(cache.name(), String.class, cache.valueType());
+                if (persisted != null) {
+                    persisted.clear();
+                }
+            }
+            log.info("Discarded persisted caches {}: the {} table {}", names, table.getKey(),
+                    stamp == null ? "has no stamp from a clean shutdown" : "changed since shutdown");
+        }
+
+        try {
+            Files.deleteIfExists(stampFile);
+        } catch (IOException e) {
+            // left behind, it could vouch for caches that a crash made stale
+            throw new IllegalStateException("Cannot remove " + stampFile, e);
+        }
+    }
+
+    /**
+     * Records the stamps the persisted caches are current with. Runs before
+     * the cache manager is closed, as this bean depends on it.
+     */
+    @PreDestroy
+    public void recordStamps() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Files.createDirectories(stampFile.getParent());
+            try (Writer out = Files.newBufferedWriter(stampFile)) {
+                currentStamps().store(out, "Tables the persisted caches were current with");
+            }
+        } catch (IOException | RuntimeException e) {
+            // the caches are discarded on the next boot
+            log.warn("Could not record the table stamps of the persisted caches", e);
+        }
+    }
+
+    private Properties readStamps() {
+        Properties stamps = new Properties();
+        if (Files.exists(stampFile)) {
+            try (Reader in = Files.newBufferedReader(stampFile)) {
+                stamps.load(in);
+            } catch (IOException e) {
+                log.warn("Could not read {}", stampFile, e);
+            }
+        }
+        return stamps;
+    }
+
+    private Properties currentStamps() {
+        Properties stamps = new Properties();
+        stamps.setProperty(FORMAT, String.valueOf(CacheSerializers.FORMAT_VERSION));
+        stamps.setProperty(RECIPES, stampOf(recipeRepo.findTableVersionStamp()));
+        stamps.setProperty(REVIEWS, stampOf(reviewRepo.findTableVersionStamp()));
+        return stamps;
+    }
+
+    private static String stampOf(RecipeRepo.ListVersionStamp stamp) {
+        return stamp.getCount() + ":" + stamp.getIdSum() + ":" + stamp.getVersionSum() + ":"
+                + (stamp.getUpdatedAt() == null ? "" : stamp.getUpdatedAt().toEpochMilli());
+    }
+}
@@ -0,0 +1,66 @@
+package com.crus.RecipeAPI.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically repairs recipes whose persisted rating aggregates have drifted
+ * away from the reviews actually stored for them. The review write paths keep
+ * the aggregates exact, so under normal operation this finds nothing. The
+ * leaderboard is rebuilt afterwards, which also settles any rating delta that
+ * raced its last rebuild.
+ * <p>
+ * It also runs once at startup, unless {@code recipe.rating.reconcile-on-startup}
+ * is off, so recipes stored before the aggregates were kept do not report an
+ * average of 0 until the first nightly run.
+ */
+@Component
+public class RatingReconciliationJob {
+
+    private static final Logger log = LoggerFactory.getLogger(RatingReconciliationJob.class);
+
+    @Autowired
+    RecipeService recipeService;
+
+    @Autowired
+    RecipeLeaderboard recipeLeaderboard;
+
+    @Value("${recipe.rating.reconcile-on-startup:true}")
+    boolean reconcileOnStartup;
+
+    @Scheduled(cron = "${recipe.rating.reconcile-cron:0 0 3 * * *}")
+    public void reconcile() {
+        int repaired = recipeService.reconcileRatingAggregates();
+        if (repaired > 0) {
+            log.warn("Repaired rating aggregates of {} recipe(s)", repaired);
+        }
+        recipeLeaderboard.rebuild();
+    }
+
+    // the leaderboard reloads the repaired recipes itself once they commit
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileAtStartup() {
+        if (!reconcileOnStartup) {
+            return;
+        }
+        int repaired = recipeService.reconcileRatingAggregates();
+        if (repaired > 0) {
+            log.info("Recomputed the rating aggregates of {} recipe(s) at startup", repaired);
+        }
+    }
+
+    // fills in the rating histograms of recipes stored before they were kept
+    @EventListener(ApplicationReadyEvent.class)
+    public void repairHistograms() {
+        int repaired = recipeService.repairRatingHistograms();
+        if (repaired > 0) {
+            log.info("Filled in the rating histograms of {} recipe(s)", repaired);
+        }
+    }
+}
@@ -76,6 +76,7 @@ public class RecipeDataLoader implements CommandLineRunner {
                     .submittedBy("bob")
                     .build();
 
+            recipe1.attachReviews();
             recipeRepo.save(recipe1);
 
             ingredient.setId(null);
@@ -149,6 +150,7 @@ public class RecipeDataLoader implements CommandLineRunner {
                     .submittedBy("Billy")
                     .build();
 
+            recipe4.attachReviews();
             recipeRepo.save(recipe4);
             System.out.println("FINISHED TEST DATABASE SETUP");
         }
@@ -0,0 +1,43 @@
+package com.crus.RecipeAPI.services;
+
+import com.crus.RecipeAPI.models.Recipe;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves the recipe id sequence past the ids already in the table. Recipe ids
+ * used to come from AUTO_INCREMENT; the sequence table Hibernate creates for
+ * the pooled generator starts at 1 and would hand out ids that are taken.
+ * <p>
+ * The pooled optimizer treats the value it reads as the top of its next
+ * block, so the stored value has to be at least one allocation above the
+ * highest id. On a database that is already past that point this is a no-op.
+ */
+@Component
+public class RecipeIdSequenceInitializer {
+
+    private static final Logger log = LoggerFactory.getLogger(RecipeIdSequenceInitializer.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // depending on the EntityManagerFactory makes sure the schema update has
+    // created the sequence table before this runs
+    public RecipeIdSequenceInitializer(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void alignWithExistingIds() {
+        int updated = jdbcTemplate.update(
+                "update recipe_seq set next_val = (select coalesce(max(id), 0) + ? from recipe) " +
+                        "where next_val < (select coalesce(max(id), 0) + ? from recipe)",
+                Recipe.ID_ALLOCATION_SIZE, Recipe.ID_ALLOCATION_SIZE);
+        if (updated > 0) {
+            log.info("Moved recipe_seq past the existing recipe ids");
+        }
+    }
+}
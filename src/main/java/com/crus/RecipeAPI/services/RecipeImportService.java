@@ -0,0 +1,199 @@
+package com.crus.RecipeAPI.services;
+
+import com.crus.RecipeAPI.models.BulkImportResult;
+import com.crus.RecipeAPI.models.CustomUserDetails;
+import com.crus.RecipeAPI.models.ImportError;
+import com.crus.RecipeAPI.models.Recipe;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Imports recipes in bulk from a JSON array or newline-delimited JSON. The
+ * input is read one recipe at a time and inserted in chunks, each chunk in its
+ * own transaction, so an import of any size holds one chunk in memory and a
+ * bad item only costs itself: the rest of its chunk is retried row by row.
+ * <p>
+ * Inserts are batched by Hibernate ({@code hibernate.jdbc.batch_size} with
+ * ordered inserts), which the pooled recipe id generator makes possible.
+ */
+@Service
+public class RecipeImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(RecipeImportService.class);
+
+    // per-item errors listed in the response; further failures are only counted
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    private final RecipeService recipeService;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectReader recipeReader;
+    private final int chunkSize;
+
+    public RecipeImportService(RecipeService recipeService,
+                               PlatformTransactionManager transactionManager,
+                               Validator validator,
+                               ObjectMapper objectMapper,
+                               @Value("${recipe.bulk-import.chunk-size:1000}") int chunkSize) {
+        this.recipeService = recipeService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.recipeReader = objectMapper.readerFor(Recipe.class);
+        this.chunkSize = chunkSize;
+    }
+
+    private record PendingRecipe(long index, Recipe recipe) {
+    }
+
+    private static final class Progress {
+        long imported;
+        long failed;
+        final List<ImportError> errors = new ArrayList<>();
+
+        void fail(long index, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ImportError(index, message));
+            }
+        }
+
+        BulkImportResult result() {
+            return new BulkImportResult(imported, failed, errors, failed > errors.size());
+        }
+    }
+
+    /**
+     * Reads recipes from the stream until it ends and inserts every valid one
+     * on behalf of the given user, the same way POST /recipes would.
+     *
+     * @param in a JSON array of recipes, or recipes separated by whitespace (NDJSON)
+     * @param user the owner of the imported recipes and of their reviews
+     * @return how many recipes were imported and why the others were not
+     */
+    public BulkImportResult importRecipes(InputStream in, CustomUserDetails user) throws IOException {
+        long start = System.nanoTime();
+        Progress progress = new Progress();
+        List<PendingRecipe> chunk = new ArrayList<>(chunkSize);
+        long index = 0;
+
+        try (MappingIterator<Recipe> recipes = recipeReader.readValues(in)) {
+            while (true) {
+                Recipe recipe;
+                try {
+                    if (!recipes.hasNextValue()) {
+                        break;
+                    }
+                    recipe = recipes.nextValue();
+                } catch (JsonMappingException e) {
+                    // the item is well-formed JSON but not a valid recipe; the
+                    // iterator skips past it on the next call
+                    progress.fail(index++, e.getOriginalMessage());
+                    continue;
+                } catch (JsonProcessingException e) {
+                    // malformed JSON: there is no telling where the next item starts
+                    progress.fail(index, "Malformed JSON, import stopped here: " + e.getOriginalMessage());
+                    break;
+                }
+
+                long itemIndex = index++;
+                try {
+                    prepare(recipe, user);
+                } catch (IllegalStateException | IllegalArgumentException e) {
+                    progress.fail(itemIndex, e.getMessage());
+                    continue;
+                }
+                chunk.add(new PendingRecipe(itemIndex, recipe));
+                if (chunk.size() >= chunkSize) {
+                    insertChunk(chunk, progress);
+                    chunk.clear();
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            insertChunk(chunk, progress);
+        }
+
+        log.info("Bulk import finished in {} ms: {} imported, {} failed",
+                (System.nanoTime() - start) / 1_000_000, progress.imported, progress.failed);
+        return progress.result();
+    }
+
+    private void prepare(Recipe recipe, CustomUserDetails user) {
+        recipeService.prepareNewRecipe(recipe);
+        recipe.setUser(user);
+        if (recipe.getReviews() != null) {
+            recipe.getReviews().forEach(review -> review.setUser(user));
+        }
+        validate(recipe);
+        recipe.getIngredients().forEach(this::validate);
+        recipe.getSteps().forEach(this::validate);
+        if (recipe.getReviews() != null) {
+            recipe.getReviews().forEach(this::validate);
+        }
+    }
+
+    // checked up front so a constraint violation is reported against its item
+    // instead of failing the flush of a whole chunk
+    private void validate(Object entity) {
+        Collection<ConstraintViolation<Object>> violations = validator.validate(entity);
+        if (!violations.isEmpty()) {
+            throw new IllegalStateException(violations.stream()
+                    .map(violation -> entity.getClass().getSimpleName() + "."
+                            + violation.getPropertyPath() + " " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+        }
+    }
+
+    private void insertChunk(List<PendingRecipe> chunk, Progress progress) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(chunk));
+            progress.imported += chunk.size();
+        } catch (RuntimeException e) {
+            if (chunk.size() == 1) {
+                progress.fail(chunk.get(0).index(),
+                        NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+                return;
+            }
+            // one bad row rolled back the whole chunk; find it by going row by row
+            for (PendingRecipe pending : chunk) {
+                // the failed attempt already assigned ids, which persist() would reject
+                recipeService.prepareNewRecipe(pending.recipe());
+                insertChunk(List.of(pending), progress);
+            }
+        }
+    }
+
+    private void insert(List<PendingRecipe> chunk) {
+        List<Recipe> recipes = chunk.stream().map(PendingRecipe::recipe).toList();
+        recipes.forEach(entityManager::persist);
+        entityManager.flush();
+        recipeService.recipesImported(recipes);
+        // keeps the persistence context from growing with the import
+        entityManager.clear();
+    }
+}
@@ -0,0 +1,259 @@
+package com.crus.RecipeAPI.services;
+
+import com.crus.RecipeAPI.repos.RecipeRepo;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory index answering "what can I cook with these ingredients". Every
+ * normalised ingredient name gets a small integer id; the index keeps, per
+ * ingredient, a compressed bitmap of the recipes using it and, per recipe, a
+ * bitmap of its ingredients. Finding what is missing for a recipe is then a
+ * single and-not between its ingredient bitmap and the pantry bitmap.
+ * <p>
+ * Rebuilt from the database once the application is ready and kept current by
+ * the {@link RecipeService} write methods.
+ */
+@Component
+public class RecipeIngredientIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(RecipeIngredientIndex.class);
+
+    @Autowired
+    RecipeRepo recipeRepo;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // rebuilds run at startup and on remote catalogue invalidations; they
+    // share changedDuringRebuild, so only one may run at a time
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    private State state = new State();
+    private volatile boolean ready;
+
+    // writes that raced a rebuild, replayed on top of the freshly loaded state;
+    // a null value records a removal
+    private Map<Long, Collection<String>> changedDuringRebuild;
+
+    private static final class State {
+        // ingredient dictionary, ids are positions in ingredientNames
+        final Map<String, Integer> ingredientIds = new HashMap<>();
+        final List<String> ingredientNames = new ArrayList<>();
+        // ingredient id -> recipes using it
+        final Map<Integer, RoaringBitmap> recipesByIngredient = new HashMap<>();
+        // recipe id -> its ingredient ids
+        final Map<Integer, RoaringBitmap> ingredientsByRecipe = new HashMap<>();
+        // number of distinct ingredients -> recipes with that many, so recipes
+        // sharing nothing with the pantry can still qualify as "N missing"
+        final TreeMap<Integer, RoaringBitmap> recipesBySize = new TreeMap<>();
+
+        int ingredientId(String name) {
+            return ingredientIds.computeIfAbsent(name, n -> {
+                ingredientNames.add(n);
+                return ingredientNames.size() - 1;
+            });
+        }
+
+        void add(int recipeId, Collection<String> ingredients) {
+            RoaringBitmap recipeIngredients = new RoaringBitmap();
+            for (String ingredient : ingredients) {
+                String name = normalize(ingredient);
+                if (!name.isEmpty()) {
+                    recipeIngredients.add(ingredientId(name));
+                }
+            }
+            recipeIngredients.runOptimize();
+            ingredientsByRecipe.put(recipeId, recipeIngredients);
+            IntIterator ids = recipeIngredients.getIntIterator();
+            while (ids.hasNext()) {
+                recipesByIngredient.computeIfAbsent(ids.next(), id -> new RoaringBitmap()).add(recipeId);
+            }
+            recipesBySize.computeIfAbsent(recipeIngredients.getCardinality(), size -> new RoaringBitmap())
+                    .add(recipeId);
+        }
+
+        void remove(int recipeId) {
+            RoaringBitmap recipeIngredients = ingredientsByRecipe.remove(recipeId);
+            if (recipeIngredients == null) {
+                return;
+            }
+            IntIterator ids = recipeIngredients.getIntIterator();
+            while (ids.hasNext()) {
+                int ingredientId = ids.next();
+                RoaringBitmap recipes = recipesByIngredient.get(ingredientId);
+                recipes.remove(recipeId);
+                if (recipes.isEmpty()) {
+                    recipesByIngredient.remove(ingredientId);
+                }
+            }
+            RoaringBitmap sameSize = recipesBySize.get(recipeIngredients.getCardinality());
+            sameSize.remove(recipeId);
+            if (sameSize.isEmpty()) {
+                recipesBySize.remove(recipeIngredients.getCardinality());
+            }
+        }
+    }
+
+    /**
+     * Normalises an ingredient name so "Brown  Sugar " and "brown sugar" match.
+     */
+    public static String normalize(String ingredient) {
+        if (ingredient == null) {
+            return "";
+        }
+        return ingredient.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            long start = System.nanoTime();
+            lock.writeLock().lock();
+            try {
+                changedDuringRebuild = new HashMap<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            Map<Long, List<String>> ingredientsByRecipe = new HashMap<>();
+            for (RecipeRepo.RecipeIngredientEntry entry : recipeRepo.findAllIngredientEntries()) {
+                ingredientsByRecipe.computeIfAbsent(entry.getRecipeId(), id -> new ArrayList<>())
+                        .add(entry.getName());
+            }
+            State newState = new State();
+            ingredientsByRecipe.forEach((recipeId, ingredients) ->
+                    newState.add(Math.toIntExact(recipeId), ingredients));
+
+            lock.writeLock().lock();
+            try {
+                state = newState;
+                changedDuringRebuild.forEach((recipeId, ingredients) -> {
+                    state.remove(Math.toIntExact(recipeId));
+                    if (ingredients != null) {
+                        state.add(Math.toIntExact(recipeId), ingredients);
+                    }
+                });
+                changedDuringRebuild = null;
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Indexed ingredients of {} recipes in {} ms",
+                    ingredientsByRecipe.size(), (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Indexes the ingredients of a recipe, replacing whatever was indexed for it.
+     */
+    public void index(Long recipeId, Collection<String> ingredients) {
+        List<String> snapshot = List.copyOf(ingredients);
+        lock.writeLock().lock();
+        try {
+            state.remove(Math.toIntExact(recipeId));
+            state.add(Math.toIntExact(recipeId), snapshot);
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.put(recipeId, snapshot);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long recipeId) {
+        lock.writeLock().lock();
+        try {
+            state.remove(Math.toIntExact(recipeId));
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.put(recipeId, null);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the recipes that can be made from the given ingredients with at
+     * most {@code maxMissing} ingredients left to buy.
+     *
+     * @param available the ingredient names at hand, normalised before matching
+     * @param maxMissing how many of a recipe's ingredients may be unavailable
+     * @return recipe id -> names of its missing ingredients, ordered by fewest
+     *         missing first and then by id
+     */
+    public Map<Long, List<String>> findCookable(Collection<String> available, int maxMissing) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap pantry = new RoaringBitmap();
+            for (String ingredient : available) {
+                Integer ingredientId = state.ingredientIds.get(normalize(ingredient));
+                if (ingredientId != null) {
+                    pantry.add(ingredientId);
+                }
+            }
+
+            // only recipes using something from the pantry, or small enough
+            // to be within budget without using anything from it, can qualify
+            RoaringBitmap candidates = new RoaringBitmap();
+            IntIterator pantryIds = pantry.getIntIterator();
+            while (pantryIds.hasNext()) {
+                candidates.or(state.recipesByIngredient.get(pantryIds.next()));
+            }
+            for (RoaringBitmap smallRecipes : state.recipesBySize.headMap(maxMissing, true).values()) {
+                candidates.or(smallRecipes);
+            }
+
+            List<int[]> matches = new ArrayList<>();
+            IntIterator recipeIds = candidates.getIntIterator();
+            while (recipeIds.hasNext()) {
+                int recipeId = recipeIds.next();
+                int missing = RoaringBitmap.andNotCardinality(
+                        state.ingredientsByRecipe.get(recipeId), pantry);
+                if (missing <= maxMissing) {
+                    matches.add(new int[]{recipeId, missing});
+                }
+            }
+            matches.sort(Comparator.<int[]>comparingInt(match -> match[1])
+                    .thenComparingInt(match -> match[0]));
+
+            Map<Long, List<String>> results = new LinkedHashMap<>();
+            for (int[] match : matches) {
+                List<String> missingNames = new ArrayList<>();
+                IntIterator missingIds = RoaringBitmap.andNot(
+                        state.ingredientsByRecipe.get(match[0]), pantry).getIntIterator();
+                while (missingIds.hasNext()) {
+                    missingNames.add(state.ingredientNames.get(missingIds.next()));
+                }
+                results.put((long) match[0], missingNames);
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
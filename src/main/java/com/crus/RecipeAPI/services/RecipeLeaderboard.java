@@ -0,0 +1,302 @@
+package com.crus.RecipeAPI.services;
+
+import com.crus.RecipeAPI.models.TopRecipe;
+import com.crus.RecipeAPI.repos.RecipeRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The top-rated recipes, held in rating order so GET /recipes/top never
+ * touches the database. There is one concurrent skip list per difficulty
+ * rating, each ordered by average rating, then review count, then id. A query
+ * merges the lists of the requested difficulty band and stops after
+ * {@code limit} recipes.
+ * <p>
+ * Readers never lock. Writers take a lock and apply the rating deltas of the
+ * review write paths once those have committed. The leaderboard is rebuilt
+ * from the database once the application is ready, and again after every
+ * rating reconciliation.
+ */
+@Component
+public class RecipeLeaderboard {
+
+    private static final Logger log = LoggerFactory.getLogger(RecipeLeaderboard.class);
+
+    public static final int MIN_DIFFICULTY = 0;
+    public static final int MAX_DIFFICULTY = 10;
+
+    @Autowired
+    RecipeRepo recipeRepo;
+
+    private record Standing(long recipeId, String name, int difficultyRating, long ratingSum, int ratingCount) {
+
+        double averageRating() {
+            return ratingCount == 0 ? 0.0 : (double) ratingSum / ratingCount;
+        }
+
+        TopRecipe toTopRecipe() {
+            return new TopRecipe(recipeId, name, difficultyRating, averageRating(), ratingCount);
+        }
+
+        Standing withRatingDelta(long sumDelta, int countDelta) {
+            return new Standing(recipeId, name, difficultyRating, ratingSum + sumDelta, ratingCount + countDelta);
+        }
+    }
+
+    private static final Comparator<Standing> RANKING = Comparator
+            .<Standing>comparingDouble(Standing::averageRating).reversed()
+            .thenComparing(Comparator.<Standing>comparingInt(Standing::ratingCount).reversed())
+            .thenComparingLong(Standing::recipeId);
+
+    private static final class Board {
+        // recipe id -> current standing; only touched under the write lock
+        final Map<Long, Standing> standings = new HashMap<>();
+        final List<ConcurrentNavigableMap<Standing, TopRecipe>> byDifficulty = new ArrayList<>();
+
+        Board() {
+            for (int difficulty = MIN_DIFFICULTY; difficulty <= MAX_DIFFICULTY; difficulty++) {
+                byDifficulty.add(new ConcurrentSkipListMap<>(RANKING));
+            }
+        }
+
+        ConcurrentNavigableMap<Standing, TopRecipe> lane(Standing standing) {
+            return byDifficulty.get(standing.difficultyRating());
+        }
+
+        // the new position is added before the old one goes, so a concurrent
+        // reader may see a recipe twice (and skips the repeat) but never misses it.
+        // A change that keeps the ranking, e.g. a rename, maps to the same key:
+        // the put replaces the entry in place and nothing may be removed after it.
+        void put(Standing standing) {
+            lane(standing).put(standing, standing.toTopRecipe());
+            Standing previous = standings.put(standing.recipeId(), standing);
+            if (previous != null && (lane(previous) != lane(standing)
+                    || RANKING.compare(previous, standing) != 0)) {
+                lane(previous).remove(previous);
+            }
+        }
+
+        void remove(long recipeId) {
+            Standing previous = standings.remove(recipeId);
+            if (previous != null) {
+                lane(previous).remove(previous);
+            }
+        }
+    }
+
+    // a lane of the merge in top(), positioned on its best unread entry
+    private static final class LaneCursor {
+        final Iterator<Map.Entry<Standing, TopRecipe>> entries;
+        Map.Entry<Standing, TopRecipe> head;
+
+        LaneCursor(Iterator<Map.Entry<Standing, TopRecipe>> entries) {
+            this.entries = entries;
+            this.head = entries.next();
+        }
+
+        boolean advance() {
+            if (!entries.hasNext()) {
+                return false;
+            }
+            head = entries.next();
+            return true;
+        }
+    }
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    // rebuilds run at startup, on remote catalogue invalidations and after
+    // reconciliation; they share changedDuringRebuild, so only one at a time
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    private volatile Board board = new Board();
+    private volatile boolean ready;
+
+    // recipes written while a rebuild was loading, re-read once it swaps in:
+    // whether their change made it into the loaded rows is unknown
+    private Set<Long> changedDuringRebuild;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            long start = System.nanoTime();
+            writeLock.lock();
+            try {
+                changedDuringRebuild = new HashSet<>();
+            } finally {
+                writeLock.unlock();
+            }
+
+            Board newBoard = new Board();
+            for (RecipeRepo.RecipeStanding row : recipeRepo.findAllStandings()) {
+                newBoard.put(standingOf(row));
+            }
+
+            writeLock.lock();
+            try {
+                if (!changedDuringRebuild.isEmpty()) {
+                    reload(newBoard, changedDuringRebuild);
+                }
+                board = newBoard;
+                changedDuringRebuild = null;
+                ready = true;
+            } finally {
+                writeLock.unlock();
+            }
+            log.info("Ranked {} recipes in {} ms",
+                    newBoard.standings.size(), (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    private static Standing standingOf(RecipeRepo.RecipeStanding row) {
+        return new Standing(row.getId(), row.getName(), clampDifficulty(row.getDifficultyRating()),
+                row.getRatingSum(), row.getRatingCount());
+    }
+
+    private static int clampDifficulty(Integer difficultyRating) {
+        int difficulty = difficultyRating == null ? MIN_DIFFICULTY : difficultyRating;
+        return Math.max(MIN_DIFFICULTY, Math.min(MAX_DIFFICULTY, difficulty));
+    }
+
+    private void reload(Board target, Collection<Long> recipeIds) {
+        Set<Long> missing = new HashSet<>(recipeIds);
+        for (RecipeRepo.RecipeStanding row : recipeRepo.findStandingsById(recipeIds)) {
+            target.put(standingOf(row));
+            missing.remove(row.getId());
+        }
+        missing.forEach(target::remove);
+    }
+
+    private void recordChange(Long recipeId) {
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.add(recipeId);
+        }
+    }
+
+    /**
+     * Ranks a recipe with the given rating totals, replacing any previous entry.
+     */
+    public void index(Long recipeId, String name, Integer difficultyRating, long ratingSum, int ratingCount) {
+        Standing standing = new Standing(recipeId, name, clampDifficulty(difficultyRating), ratingSum, ratingCount);
+        writeLock.lock();
+        try {
+            board.put(standing);
+            recordChange(recipeId);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Updates the name and difficulty of a ranked recipe, keeping its rating.
+     */
+    public void describe(Long recipeId, String name, Integer difficultyRating) {
+        writeLock.lock();
+        try {
+            Standing current = board.standings.get(recipeId);
+            if (current != null) {
+                board.put(new Standing(recipeId, name, clampDifficulty(difficultyRating),
+                        current.ratingSum(), current.ratingCount()));
+            }
+            recordChange(recipeId);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Mirrors a committed change of a recipe's rating aggregates.
+     */
+    public void applyRatingDelta(Long recipeId, long sumDelta, int countDelta) {
+        writeLock.lock();
+        try {
+            Standing current = board.standings.get(recipeId);
+            if (current != null) {
+                board.put(current.withRatingDelta(sumDelta, countDelta));
+            }
+            recordChange(recipeId);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Re-reads the standings of the given recipes from the database.
+     */
+    public void reload(Collection<Long> recipeIds) {
+        writeLock.lock();
+        try {
+            reload(board, recipeIds);
+            recipeIds.forEach(this::recordChange);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void remove(Long recipeId) {
+        writeLock.lock();
+        try {
+            board.remove(recipeId);
+            recordChange(recipeId);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * @param limit the maximum number of recipes to return
+     * @param minDifficulty the lowest difficulty rating to include
+     * @param maxDifficulty the highest difficulty rating to include
+     * @return the best rated recipes of the band, best first; ties go to the
+     *         recipe with more reviews, then to the older one
+     */
+    public List<TopRecipe> top(int limit, int minDifficulty, int maxDifficulty) {
+        Board current = board;
+        PriorityQueue<LaneCursor> lanes = new PriorityQueue<>(
+                Comparator.comparing((LaneCursor lane) -> lane.head.getKey(), RANKING));
+        for (int difficulty = minDifficulty; difficulty <= maxDifficulty; difficulty++) {
+            Iterator<Map.Entry<Standing, TopRecipe>> entries =
+                    current.byDifficulty.get(difficulty).entrySet().iterator();
+            if (entries.hasNext()) {
+                lanes.add(new LaneCursor(entries));
+            }
+        }
+
+        List<TopRecipe> top = new ArrayList<>(limit);
+        Set<Long> seen = new HashSet<>();
+        while (top.size() < limit && !lanes.isEmpty()) {
+            LaneCursor lane = lanes.poll();
+            if (seen.add(lane.head.getKey().recipeId())) {
+                top.add(lane.head.getValue());
+            }
+            if (lane.advance()) {
+                lanes.add(lane);
+            }
+        }
+        return top;
+    }
+}
@@ -0,0 +1,245 @@
+package com.crus.RecipeAPI.services;
+
+import com.crus.RecipeAPI.repos.RecipeRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over recipe names, used to answer the name search
+ * endpoints without a {@code LIKE '%x%'} table scan. Names are split into
+ * lower-cased word tokens; every query token has to match the start of a word
+ * in the name, and matches are ranked with BM25.
+ * <p>
+ * The index is rebuilt from the database once the application is ready and
+ * kept current by the {@link RecipeService} write methods. Until the first
+ * build has finished {@link #isReady()} is false and callers fall back to the
+ * repository queries.
+ */
+@Component
+public class RecipeNameIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(RecipeNameIndex.class);
+
+    // standard BM25 tuning: term frequency saturation and length normalisation
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    @Autowired
+    RecipeRepo recipeRepo;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // rebuilds run at startup and on remote catalogue invalidations; they
+    // share changedDuringRebuild, so only one may run at a time
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    // term -> (recipe id -> occurrences of the term in the name)
+    private NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    private Map<Long, IndexedRecipe> recipes = new HashMap<>();
+    private long totalTokens;
+    private volatile boolean ready;
+
+    // writes that raced a rebuild, replayed on top of the freshly loaded state;
+    // a null value records a removal
+    private Map<Long, IndexedRecipe> changedDuringRebuild;
+
+    private record IndexedRecipe(String submittedBy, List<String> tokens) {
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(token -> !token.isEmpty())
+                .toList();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            long start = System.nanoTime();
+            lock.writeLock().lock();
+            try {
+                changedDuringRebuild = new HashMap<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            List<RecipeRepo.RecipeNameEntry> entries = recipeRepo.findAllNameEntries();
+
+            NavigableMap<String, Map<Long, Integer>> newPostings = new TreeMap<>();
+            Map<Long, IndexedRecipe> newRecipes = new HashMap<>();
+            long newTotalTokens = 0;
+            for (RecipeRepo.RecipeNameEntry entry : entries) {
+                List<String> tokens = tokenize(entry.getName());
+                addPostings(newPostings, entry.getId(), tokens);
+                newRecipes.put(entry.getId(), new IndexedRecipe(entry.getSubmittedBy(), tokens));
+                newTotalTokens += tokens.size();
+            }
+
+            lock.writeLock().lock();
+            try {
+                postings = newPostings;
+                recipes = newRecipes;
+                totalTokens = newTotalTokens;
+                changedDuringRebuild.forEach((recipeId, recipe) -> {
+                    removeLocked(recipeId);
+                    if (recipe != null) {
+                        addLocked(recipeId, recipe);
+                    }
+                });
+                changedDuringRebuild = null;
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Indexed {} recipe names in {} ms",
+                    newRecipes.size(), (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Adds a recipe to the index, replacing whatever was indexed for its id.
+     */
+    public void index(Long recipeId, String name, String submittedBy) {
+        IndexedRecipe recipe = new IndexedRecipe(submittedBy, tokenize(name));
+        lock.writeLock().lock();
+        try {
+            removeLocked(recipeId);
+            addLocked(recipeId, recipe);
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.put(recipeId, recipe);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long recipeId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(recipeId);
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.put(recipeId, null);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the recipes whose names match every token of the query, most
+     * relevant first.
+     *
+     * @param query the free text to search for
+     * @param submittedBy when not null, only recipes submitted by this user
+     *                    (ignoring case) are returned
+     * @return the matching recipe ids ordered by descending BM25 score, ties
+     *         broken by ascending id
+     */
+    public List<Long> search(String query, String submittedBy) {
+        List<String> queryTokens = tokenize(query).stream().distinct().toList();
+        if (queryTokens.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            int documentCount = recipes.size();
+            double averageLength = documentCount == 0 ? 0 : (double) totalTokens / documentCount;
+
+            Map<Long, Double> scores = null;
+            for (String queryToken : queryTokens) {
+                Map<Long, Double> tokenScores = new HashMap<>();
+                // a query token matches every indexed word it is a prefix of
+                for (Map.Entry<String, Map<Long, Integer>> term
+                        : postings.subMap(queryToken, true, queryToken + Character.MAX_VALUE, false).entrySet()) {
+                    Map<Long, Integer> termPostings = term.getValue();
+                    double idf = Math.log(1 + (documentCount - termPostings.size() + 0.5)
+                            / (termPostings.size() + 0.5));
+                    termPostings.forEach((recipeId, frequency) -> {
+                        int length = recipes.get(recipeId).tokens().size();
+                        double score = idf * frequency * (K1 + 1)
+                                / (frequency + K1 * (1 - B + B * length / averageLength));
+                        tokenScores.merge(recipeId, score, Math::max);
+                    });
+                }
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    // every query token has to match
+                    scores.keySet().retainAll(tokenScores.keySet());
+                    for (Map.Entry<Long, Double> score : scores.entrySet()) {
+                        score.setValue(score.getValue() + tokenScores.get(score.getKey()));
+                    }
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            List<Map.Entry<Long, Double>> ranked = new ArrayList<>();
+            for (Map.Entry<Long, Double> score : scores.entrySet()) {
+                if (submittedBy == null
+                        || submittedBy.equalsIgnoreCase(recipes.get(score.getKey()).submittedBy())) {
+                    ranked.add(score);
+                }
+            }
+            ranked.sort(Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder())
+                    .thenComparing(Map.Entry.comparingByKey()));
+            return ranked.stream().map(Map.Entry::getKey).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void addPostings(NavigableMap<String, Map<Long, Integer>> postings,
+                                    Long recipeId, List<String> tokens) {
+        for (String token : tokens) {
+            postings.computeIfAbsent(token, t -> new HashMap<>()).merge(recipeId, 1, Integer::sum);
+        }
+    }
+
+    private void addLocked(Long recipeId, IndexedRecipe recipe) {
+        addPostings(postings, recipeId, recipe.tokens());
+        recipes.put(recipeId, recipe);
+        totalTokens += recipe.tokens().size();
+    }
+
+    private void removeLocked(Long recipeId) {
+        IndexedRecipe previous = recipes.remove(recipeId);
+        if (previous == null) {
+            return;
+        }
+        totalTokens -= previous.tokens().size();
+        for (String token : previous.tokens()) {
+            Map<Long, Integer> termPostings = postings.get(token);
+            if (termPostings != null && termPostings.remove(recipeId) != null && termPostings.isEmpty()) {
+                postings.remove(token);
+            }
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.crus.RecipeAPI.services;
+
+import com.crus.RecipeAPI.models.Ingredient;
+import com.crus.RecipeAPI.models.Recipe;
+import com.crus.RecipeAPI.models.Step;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * Applies an update to a managed recipe one field and one child row at a
+ * time, so dirty checking flushes only what actually changed: a one-word
+ * edit to a step is a single UPDATE of that step, instead of a merge of the
+ * whole graph.
+ * <p>
+ * Ingredients and steps are matched by id. An element with the id of an
+ * existing child updates that child, one without an id is inserted, and an
+ * existing child the update leaves out is deleted. Reviews are not part of
+ * the update; they are changed through /review, which keeps the rating
+ * aggregates in step.
+ * <p>
+ * JSON Merge Patch (RFC 7396) documents are first applied to a detached
+ * copy of the recipe and then diffed the same way. As the RFC prescribes,
+ * an array in the patch replaces the whole list, but its elements are
+ * merged into the children with the same id, so a client can send
+ * {@code {"steps": [{"id": 5, "description": "..."}, {"id": 6}]}} to change
+ * step 5 and keep step 6 as it is.
+ */
+@Component
+public class RecipePatcher {
+
+    // reported by GET but never written through a patch
+    private static final List<String> READ_ONLY_FIELDS = List.of("id", "version", "author", "averageRating");
+
+    private final ObjectMapper objectMapper;
+
+    public RecipePatcher(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @param stored the managed recipe to update
+     * @param patch a JSON Merge Patch document
+     * @throws IllegalArgumentException if the patch is malformed, removes a
+     *         required field, or names a child the recipe does not have
+     * @throws IllegalStateException if the patched recipe has no ingredients or steps
+     */
+    public void applyMergePatch(Recipe stored, JsonNode patch) {
+        if (!(patch instanceof ObjectNode fields)) {
+            throw new IllegalArgumentException("A merge patch of a recipe has to be a JSON object.");
+        }
+        fields = fields.deepCopy();
+        JsonNode id = fields.get("id");
+        if (id != null && !id.isNull() && id.asLong() != stored.getId()) {
+            throw new IllegalArgumentException("The patch is for recipe " + id.asLong()
+                    + ", not recipe " + stored.getId() + ".");
+        }
+        if (fields.has("reviews")) {
+            throw new IllegalArgumentException("Reviews cannot be patched through their recipe; use /review.");
+        }
+        fields.remove(READ_ONLY_FIELDS);
+        JsonNode ingredients = fields.remove("ingredients");
+        JsonNode steps = fields.remove("steps");
+
+        Recipe desired = detachedCopy(stored);
+        readInto(desired, fields);
+        if (ingredients != null) {
+            desired.setIngredients(patchChildren(desired.getIngredients(), ingredients,
+                    Ingredient.class, Ingredient::getId, "ingredient"));
+        }
+        if (steps != null) {
+            desired.setSteps(patchChildren(desired.getSteps(), steps, Step.class, Step::getId, "step"));
+        }
+        applyChanges(stored, desired);
+    }
+
+    /**
+     * Makes the managed recipe look like {@code desired}, touching only the
+     * fields and children that differ.
+     *
+     * @throws IllegalArgumentException if a required field is missing or a
+     *         child id does not belong to the recipe
+     * @throws IllegalStateException if the desired recipe has no ingredients or steps
+     */
+    public void applyChanges(Recipe stored, Recipe desired) {
+        requireFields(desired);
+        desired.validate();
+
+        if (!Objects.equals(stored.getName(), desired.getName())) {
+            stored.setName(desired.getName());
+        }
+        if (!Objects.equals(stored.getMinutesToMake(), desired.getMinutesToMake())) {
+            stored.setMinutesToMake(desired.getMinutesToMake());
+        }
+        if (!Objects.equals(stored.getDifficultyRating(), desired.getDifficultyRating())) {
+            stored.setDifficultyRating(desired.getDifficultyRating());
+        }
+        if (!Objects.equals(stored.getSubmittedBy(), desired.getSubmittedBy())) {
+            stored.setSubmitted(desired.getSubmittedBy());
+        }
+
+        boolean childrenChanged = reconcile(stored.getIngredients(), desired.getIngredients(),
+                Ingredient::getId, RecipePatcher::copyIngredient, "ingredient");
+        childrenChanged |= reconcile(stored.getSteps(), desired.getSteps(),
+                Step::getId, RecipePatcher::copyStep, "step");
+        // the recipe row itself may be unchanged, but its version and
+        // timestamp describe the whole representation
+        if (childrenChanged) {
+            stored.setUpdatedAt(Instant.now());
+        }
+    }
+
+    private static Recipe detachedCopy(Recipe stored) {
+        return Recipe.builder()
+                .id(stored.getId())
+                .name(stored.getName())
+                .minutesToMake(stored.getMinutesToMake())
+                .difficultyRating(stored.getDifficultyRating())
+                .submittedBy(stored.getSubmittedBy())
+                .ingredients(new ArrayList<>(stored.getIngredients().stream()
+                        .map(ingredient -> Ingredient.builder()
+                                .id(ingredient.getId())
+                                .name(ingredient.getName())
+                                .amount(ingredient.getAmount())
+                                .state(ingredient.getState())
+                                .build())
+                        .toList()))
+                .steps(new ArrayList<>(stored.getSteps().stream()
+                        .map(step -> Step.builder()
+                                .id(step.getId())
+                                .stepNumber(step.getStepNumber())
+                                .description(step.getDescription())
+                                .build())
+                        .toList()))
+                .build();
+    }
+
+    // an array replaces the list; each element is merged into the current
+    // child with its id, or read as a new child when it has none
+    private <T> List<T> patchChildren(Collection<T> current, JsonNode patch, Class<T> type,
+                                      Function<T, Long> idOf, String what) {
+        if (patch.isNull()) {
+            return new ArrayList<>();
+        }
+        if (!patch.isArray()) {
+            throw new IllegalArgumentException("The " + what + "s of a recipe have to be a JSON array.");
+        }
+        Map<Long, T> byId = new HashMap<>();
+        current.forEach(child -> byId.put(idOf.apply(child), child));
+
+        List<T> children = new ArrayList<>();
+        for (JsonNode element : patch) {
+            if (!element.isObject()) {
+                throw new IllegalArgumentException("Each " + what + " has to be a JSON object.");
+            }
+            JsonNode id = element.get("id");
+            if (id == null || id.isNull()) {
+                children.add(read(type, element));
+                continue;
+            }
+            T child = byId.get(id.asLong());
+            if (child == null) {
+                throw new IllegalArgumentException("The recipe has no " + what + " with ID " + id.asLong() + ".");
+            }
+            readInto(child, element);
+            children.add(child);
+        }
+        return children;
+    }
+
+    private void readInto(Object target, JsonNode fields) {
+        try {
+            objectMapper.readerForUpdating(target)
+                    .with(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                    .readValue(fields);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(e.getOriginalMessage(), e);
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    private <T> T read(Class<T> type, JsonNode fields) {
+        try {
+            return objectMapper.readerFor(type)
+                    .with(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                    .readValue(fields);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(e.getOriginalMessage(), e);
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    private static void requireFields(Recipe recipe) {
+        if (recipe.getName() == null || recipe.getName().trim().isEmpty()) {
+            throw new IllegalArgumentException("Recipe name cannot be null or empty");
+        }
+        if (recipe.getMinutesToMake() == null) {
+            throw new IllegalArgumentException("Minutes to make cannot be null");
+        }
+        if (recipe.getDifficultyRating() == null) {
+            throw new IllegalArgumentException("Difficulty rating cannot be null");
+        }
+        if (recipe.getSubmittedBy() == null || recipe.getSubmittedBy().trim().isEmpty()) {
+            throw new IllegalArgumentException("Submitted by cannot be null or empty");
+        }
+        if (recipe.getIngredients() != null) {
+            for (Ingredient ingredient : recipe.getIngredients()) {
+                if (ingredient.getName() == null || ingredient.getAmount() == null) {
+                    throw new IllegalArgumentException("Every ingredient needs a name and an amount");
+                }
+            }
+        }
+        if (recipe.getSteps() != null) {
+            for (Step step : recipe.getSteps()) {
+                if (step.getDescription() == null) {
+                    throw new IllegalArgumentException("Every step needs a description");
+                }
+            }
+        }
+    }
+
+    /**
+     * Updates the children that are kept in place, deletes the ones left out
+     * and adds the new ones.
+     *
+     * @return whether any child was added, removed or changed
+     */
+    private static <T> boolean reconcile(Collection<T> stored, Collection<T> desired, Function<T, Long> idOf,
+                                         BiPredicate<T, T> copy, String what) {
+        Map<Long, T> byId = new HashMap<>();
+        stored.forEach(child -> byId.put(idOf.apply(child), child));
+
+        boolean changed = false;
+        Set<Long> kept = new HashSet<>();
+        List<T> added = new ArrayList<>();
+        for (T child : desired) {
+            Long id = idOf.apply(child);
+            if (id == null) {
+                added.add(child);
+                continue;
+            }
+            T existing = byId.get(id);
+            if (existing == null) {
+                throw new IllegalArgumentException("The recipe has no " + what + " with ID " + id + ".");
+            }
+            if (!kept.add(id)) {
+                throw new IllegalArgumentException("The " + what + " with ID " + id + " is listed twice.");
+            }
+            changed |= copy.test(existing, child);
+        }
+        changed |= stored.removeIf(child -> !kept.contains(idOf.apply(child)));
+        changed |= stored.addAll(added);
+        return changed;
+    }
+
+    private static boolean copyIngredient(Ingredient stored, Ingredient desired) {
+        boolean changed = false;
+        if (!Objects.equals(stored.getName(), desired.getName())) {
+            stored.setName(desired.getName());
+            changed = true;
+        }
+        if (!Objects.equals(stored.getAmount(), desired.getAmount())) {
+            stored.setAmount(desired.getAmount());
+            changed = true;
+        }
+        if (!Objects.equals(stored.getState(), desired.getState())) {
+            stored.setState(desired.getState());
+            changed = true;
+        }
+        return changed;
+    }
+
+    private static boolean copyStep(Step stored, Step desired) {
+        boolean changed = false;
+        if (stored.getStepNumber() != desired.getStepNumber()) {
+            stored.setStepNumber(desired.getStepNumber());
+            changed = true;
+        }
+        if (!Objects.equals(stored.getDescription(), desired.getDescription())) {
+            stored.setDescription(desired.getDescription());
+            changed = true;
+        }
+        return changed;
+    }
+}
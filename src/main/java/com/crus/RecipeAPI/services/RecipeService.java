@@ -1,27 +1,52 @@
 package com.crus.RecipeAPI.services;
 
+import com.crus.RecipeAPI.exceptions.ConcurrentUpdateException;
 import com.crus.RecipeAPI.exceptions.NoSuchRecipeException;
+import com.crus.RecipeAPI.models.ContentVersion;
+import com.crus.RecipeAPI.models.ExportFormat;
+import com.crus.RecipeAPI.models.Ingredient;
+import com.crus.RecipeAPI.models.IngredientMatch;
+import com.crus.RecipeAPI.models.RatingHistogram;
+import com.crus.RecipeAPI.models.RatingStats;
 import com.crus.RecipeAPI.models.Recipe;
+import com.crus.RecipeAPI.models.RecipeCursor;
+import com.crus.RecipeAPI.models.RecipeDetail;
+import com.crus.RecipeAPI.models.RecipeExportRow;
+import com.crus.RecipeAPI.models.RecipePage;
+import com.crus.RecipeAPI.models.RecipePageKeys;
+import com.crus.RecipeAPI.models.RecipeSearch;
+import com.crus.RecipeAPI.models.RecipeSort;
+import com.crus.RecipeAPI.models.RecipeSummary;
+import com.crus.RecipeAPI.models.Review;
+import com.crus.RecipeAPI.models.TopRecipe;
 import com.crus.RecipeAPI.repos.RecipeRepo;
 import com.crus.RecipeAPI.repos.ReviewRepo;
-import com.terracottatech.frs.Statistics;
+import com.fasterxml.jackson.databind.JsonNode;
 import org.ehcache.Cache;
 import org.ehcache.CacheManager;
-import org.ehcache.core.internal.statistics.DefaultStatisticsService;
-import org.ehcache.core.spi.service.StatisticsService;
-import org.ehcache.core.statistics.CacheStatistics;
-import org.ehcache.shadow.org.terracotta.offheapstore.paging.OffHeapStorageArea;
-import org.ehcache.shadow.org.terracotta.offheapstore.storage.StorageEngine;
-import org.ehcache.shadow.org.terracotta.statistics.Statistic;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CachePut;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import javax.crypto.spec.PSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @Service
 public class RecipeService {
@@ -36,20 +61,61 @@ public class RecipeService {
     org.ehcache.CacheManager cacheManager;
 
     @Autowired
-    StatisticsService statisticsService;
+    CacheMetrics cacheMetrics;
 
+    @Autowired
+    ExportWriter exportWriter;
+
+    @Autowired
+    RecipeNameIndex recipeNameIndex;
+
+    @Autowired
+    RecipeIngredientIndex recipeIngredientIndex;
+
+    @Autowired
+    OwnershipService ownershipService;
+
+    @Autowired
+    RecipeLeaderboard recipeLeaderboard;
+
+    @Autowired
+    ResponseBodyCache responseBodyCache;
+
+    @Autowired
+    CacheInvalidationBus invalidationBus;
+
+    @Autowired
+    OptimisticRetry optimisticRetry;
+
+    @Autowired
+    RecipePatcher recipePatcher;
+
+
+    public static final int MAX_PAGE_SIZE = 100;
 
     private final Cache<String, Long> ownersSearch;
-    private final Cache<String, List> allRecipesCache;
+    private final Cache<String, RecipePageKeys> allRecipesCache;
+    private final Cache<Long, RecipeDetail> recipeById;
+    private final Cache<String, RecipeSearch> recipeSearch;
+    @SuppressWarnings("rawtypes")
+    private final Cache<String, List> allReviewsCache;
 
     public RecipeService(org.ehcache.CacheManager cacheManager, ReviewRepo reviewRepo, RecipeRepo recipeRepo) {
         this.cacheManager = cacheManager;
         this.reviewRepo = reviewRepo;
         this.recipeRepo = recipeRepo;
         Cache<String, Long> ownersSearch;
-        Cache<String, List> allRecipesCache;
+        Cache<String, RecipePageKeys> allRecipesCache;
         this.ownersSearch = cacheManager.getCache("ownersSearch", String.class, Long.class);
-        this.allRecipesCache = cacheManager.getCache("allRecipesCache", String.class, List.class);
+        this.allRecipesCache = cacheManager.getCache("allRecipesCache", String.class, RecipePageKeys.class);
+        this.recipeById = cacheManager.getCache("recipeById", Long.class, RecipeDetail.class);
+        this.recipeSearch = cacheManager.getCache("recipeSearch", String.class, RecipeSearch.class);
+        this.allReviewsCache = cacheManager.getCache("allReviewsCache", String.class, List.class);
+    }
+
+    @PostConstruct
+    public void subscribeToInvalidations() {
+        invalidationBus.subscribe(this::applyRemoteInvalidations);
     }
 
     private void cacheRecipeOwner(String username, Long recipeId) {
@@ -78,39 +144,283 @@ public class RecipeService {
         }
     }
 
-    @SuppressWarnings("unchecked")
-    private List<Recipe> getAllRecipesFromCache() {
+    private RecipeDetail getRecipeFromCache(Long id) {
+        if (recipeById != null) {
+            return recipeById.get(id);
+        }
+        return null;
+    }
+
+    private void cacheRecipe(RecipeDetail recipe) {
+        if (recipeById != null) {
+            recipeById.put(recipe.id(), recipe);
+        }
+    }
+
+    /**
+     * Resolves recipe ids through the per-recipe cache, loading all misses with
+     * a fixed number of queries. Ids that no longer exist are skipped; order is
+     * preserved.
+     */
+    private List<RecipeDetail> getRecipesByIds(List<Long> ids) {
+        return getRecipesByIds(ids, recipeRepo::findDetailsById);
+    }
+
+    private List<RecipeDetail> getRecipesByIds(List<Long> ids,
+                                               Function<List<Long>, List<RecipeDetail>> loadMissing) {
+        Map<Long, RecipeDetail> found = new HashMap<>();
+        if (recipeById != null) {
+            recipeById.getAll(new HashSet<>(ids)).forEach((id, recipe) -> {
+                if (recipe != null) {
+                    found.put(id, recipe);
+                }
+            });
+        }
+        List<Long> missing = ids.stream()
+                .filter(id -> !found.containsKey(id))
+                .toList();
+        if (!missing.isEmpty()) {
+            Timer.Sample load = cacheMetrics.startLoad();
+            for (RecipeDetail recipe : loadMissing.apply(missing)) {
+                cacheRecipe(recipe);
+                found.put(recipe.id(), recipe);
+            }
+            cacheMetrics.stopLoad(load, "recipeById");
+        }
+        return ids.stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private static String pageKey(RecipeSort sort, Sort.Direction direction, String after, int limit) {
+        return sort.getProperty() + ":" + direction + ":" + (after == null ? "" : after) + ":" + limit;
+    }
+
+    private RecipePageKeys getRecipePageFromCache(String key) {
         if (allRecipesCache != null) {
-            return (List<Recipe>) allRecipesCache.get("all_recipes_key");
+            return allRecipesCache.get(key);
         }
         return null;
     }
 
-    private void cacheAllRecipes(List<Recipe> recipes) {
+    private void cacheRecipePage(String key, RecipePageKeys page) {
         if (allRecipesCache != null) {
-            allRecipesCache.put("all_recipes_key", recipes);
+            allRecipesCache.put(key, page);
         }
     }
 
-    private void clearAllRecipesCache() {
+    private static String searchKey(String name, String username) {
+        return "name=" + name + "\u001Fuser=" + username;
+    }
+
+    /**
+     * Runs a recipe search through the search cache. Only the matching ids are
+     * cached; the recipes themselves come from the per-recipe cache.
+     */
+    private List<RecipeDetail> searchRecipes(String name, String username, Supplier<List<Long>> idQuery) {
+        String key = searchKey(name, username);
+        RecipeSearch cachedSearch = recipeSearch != null ? recipeSearch.get(key) : null;
+        if (cachedSearch != null) {
+            return getRecipesByIds(cachedSearch.recipeIds());
+        }
+
+        Timer.Sample load = cacheMetrics.startLoad();
+        List<Long> ids = idQuery.get();
+        cacheMetrics.stopLoad(load, "recipeSearch");
+        if (recipeSearch != null) {
+            recipeSearch.put(key, new RecipeSearch(name, username, ids));
+        }
+        return getRecipesByIds(ids);
+    }
+
+    /**
+     * Drops every cached entry a write to this recipe can change: its own
+     * per-recipe entry, the pages listing it or whose slice its new sort keys
+     * fall into, and the searches it used to match or matches now. The rest of
+     * the catalogue stays cached, except for serialised listings, which are
+     * dropped wholesale. The other nodes are told to do the same.
+     */
+    private void evictRecipe(Recipe recipe) {
+        Long id = recipe.getId();
+        RecipeSummary summary = RecipeSummary.of(recipe);
+        AfterCommit.runNowAndAfterCommit(() -> evictRecipeEntries(id, summary));
+        invalidationBus.publish(CacheInvalidation.Kind.RECIPE, id);
+    }
+
+    // summary is the recipe's current state, null once it is deleted
+    private void evictRecipeEntries(Long id, RecipeSummary summary) {
+        // serialised bodies first, so none outlives the entry it was built from
+        responseBodyCache.recipeChanged(id);
+        if (recipeById != null) {
+            recipeById.remove(id);
+        }
+        evictWhere(allRecipesCache, page -> page.contains(id) || (summary != null && page.covers(summary)));
+        evictWhere(recipeSearch, search -> search.contains(id) || (summary != null && search.matches(summary)));
+    }
+
+    private void evictRating(Long recipeId) {
+        AfterCommit.runNowAndAfterCommit(() -> evictRatingEntries(recipeId));
+        invalidationBus.publish(CacheInvalidation.Kind.RATING, recipeId);
+    }
+
+    // a rating change does not affect searches, and only moves the recipe
+    // within the averageRating orderings; every review write moves a rating,
+    // so this is also where the list of all reviews goes stale
+    private void evictRatingEntries(Long recipeId) {
+        responseBodyCache.ratingChanged(recipeId);
+        if (recipeById != null) {
+            recipeById.remove(recipeId);
+        }
+        evictWhere(allRecipesCache, page -> page.sort() == RecipeSort.AVERAGE_RATING);
+        if (allReviewsCache != null) {
+            allReviewsCache.remove(ReviewService.ALL_REVIEWS_KEY);
+        }
+    }
+
+    private void evictCatalogue() {
+        responseBodyCache.clear();
         if (allRecipesCache != null) {
-            allRecipesCache.remove("all_recipes_key");
+            allRecipesCache.clear();
+        }
+        if (recipeSearch != null) {
+            recipeSearch.clear();
         }
     }
 
     /**
-     * Creates and saves a new recipe to the repository after performing validation
-     * and generating a location URI for it.
+     * Applies the invalidations published by other nodes. Caches are evicted
+     * as they would have been on the writing node, using the recipes' current
+     * rows; the in-memory indexes and the leaderboard re-read the recipes.
+     */
+    void applyRemoteInvalidations(List<CacheInvalidation> invalidations) {
+        Set<Long> recipeIds = new HashSet<>();
+        Set<Long> ratingIds = new HashSet<>();
+        Set<Long> importedIds = new HashSet<>();
+        boolean catalogue = false;
+        for (CacheInvalidation invalidation : invalidations) {
+            switch (invalidation.kind()) {
+                case RECIPE -> recipeIds.add(invalidation.entityId());
+                case RATING -> ratingIds.add(invalidation.entityId());
+                // older nodes published imports without the recipe ids
+                case CATALOGUE -> {
+                    if (invalidation.entityId() == null) {
+                        catalogue = true;
+                    } else {
+                        importedIds.add(invalidation.entityId());
+                    }
+                }
+            }
+        }
+
+        if (!recipeIds.isEmpty()) {
+            Map<Long, RecipeSummary> current = summariesById(recipeIds);
+            recipeIds.forEach(id -> evictRecipeEntries(id, current.get(id)));
+            reindexFromDatabase(recipeIds, current);
+        }
+        if (!ratingIds.isEmpty()) {
+            ratingIds.forEach(this::evictRatingEntries);
+            recipeLeaderboard.reload(ratingIds);
+        }
+        if (catalogue) {
+            evictCatalogue();
+            recipeNameIndex.rebuild();
+            recipeIngredientIndex.rebuild();
+            recipeLeaderboard.rebuild();
+        } else if (!importedIds.isEmpty()) {
+            // as on the importing node: the caches are dropped once, and only
+            // the imported rows are read back into the indexes
+            evictCatalogue();
+            reindexFromDatabase(importedIds, summariesById(importedIds));
+        }
+    }
+
+    private Map<Long, RecipeSummary> summariesById(Set<Long> recipeIds) {
+        Map<Long, RecipeSummary> current = new HashMap<>();
+        recipeRepo.findSummariesById(recipeIds).forEach(summary -> current.put(summary.id(), summary));
+        return current;
+    }
+
+    private void reindexFromDatabase(Set<Long> recipeIds, Map<Long, RecipeSummary> current) {
+        Map<Long, List<String>> ingredients = new HashMap<>();
+        recipeRepo.findIngredientEntriesById(recipeIds).forEach(entry ->
+                ingredients.computeIfAbsent(entry.getRecipeId(), id -> new ArrayList<>()).add(entry.getName()));
+        for (Long id : recipeIds) {
+            RecipeSummary summary = current.get(id);
+            if (summary == null) {
+                recipeNameIndex.remove(id);
+                recipeIngredientIndex.remove(id);
+            } else {
+                recipeNameIndex.index(id, summary.name(), summary.submittedBy());
+                recipeIngredientIndex.index(id, ingredients.getOrDefault(id, List.of()));
+            }
+        }
+        recipeLeaderboard.reload(recipeIds);
+    }
+
+    private void reindexRecipe(Recipe recipe) {
+        Long id = recipe.getId();
+        String name = recipe.getName();
+        String submittedBy = recipe.getSubmittedBy();
+        List<String> ingredients = recipe.getIngredients() == null
+                ? List.of()
+                : recipe.getIngredients().stream().map(Ingredient::getName).toList();
+        AfterCommit.run(() -> {
+            recipeNameIndex.index(id, name, submittedBy);
+            recipeIngredientIndex.index(id, ingredients);
+        });
+    }
+
+    private void unindexRecipe(Long id) {
+        AfterCommit.run(() -> {
+            recipeNameIndex.remove(id);
+            recipeIngredientIndex.remove(id);
+            recipeLeaderboard.remove(id);
+        });
+    }
+
+    // only for recipes inserted with their reviews; existing recipes change
+    // rank through rankDetails and the rating deltas
+    private void rankNewRecipe(Recipe recipe) {
+        Long id = recipe.getId();
+        String name = recipe.getName();
+        Integer difficultyRating = recipe.getDifficultyRating();
+        long ratingSum = recipe.getRatingSum();
+        int ratingCount = recipe.getRatingCount();
+        AfterCommit.run(() -> recipeLeaderboard.index(id, name, difficultyRating, ratingSum, ratingCount));
+    }
+
+    private void rankDetails(Recipe recipe) {
+        Long id = recipe.getId();
+        String name = recipe.getName();
+        Integer difficultyRating = recipe.getDifficultyRating();
+        AfterCommit.run(() -> recipeLeaderboard.describe(id, name, difficultyRating));
+    }
+
+    private static <V> void evictWhere(Cache<String, V> cache, Predicate<V> affected) {
+        if (cache == null) {
+            return;
+        }
+        Set<String> staleKeys = new HashSet<>();
+        for (Cache.Entry<String, V> entry : cache) {
+            if (affected.test(entry.getValue())) {
+                staleKeys.add(entry.getKey());
+            }
+        }
+        cache.removeAll(staleKeys);
+    }
+
+    /**
+     * Validates a recipe about to be inserted and resets everything the client
+     * must not choose: ids, which are always generated, the submitter and the
+     * rating aggregates, which are derived from the reviews sent along.
      *
-     * @param recipe the recipe object to be created and saved; must not be null and must
-     *               pass validation rules, such as having at least one ingredient and one step
-     * @return the saved recipe object with a unique ID and location URI populated
      * @throws IllegalStateException if the recipe does not pass validation rules
      */
-    @Transactional
-    public Recipe createNewRecipe(Recipe recipe)
-        throws IllegalStateException {
+    public void prepareNewRecipe(Recipe recipe) throws IllegalStateException {
         recipe.validate();
+        recipe.setId(null);
+        recipe.setVersion(null);
         recipe.setSubmittedBy("anonymous");
 
         if (recipe.getIngredients() != null) {
@@ -119,123 +429,377 @@ public class RecipeService {
         if (recipe.getSteps() != null) {
             recipe.getSteps().forEach(step -> step.setId(null));
         }
+        if (recipe.getReviews() != null) {
+            recipe.getReviews().forEach(review -> {
+                review.setId(null);
+                review.setVersion(null);
+            });
+        }
+        recipe.attachReviews();
+        recipe.recomputeRatingAggregates();
+    }
+
+    /**
+     * Brings the caches and indexes up to date after a batch of new recipes
+     * was inserted in the current transaction. Rather than evicting page by
+     * page for every recipe, the listing and search caches are dropped once.
+     * The other nodes are sent the imported ids and do the same.
+     */
+    public void recipesImported(Collection<Recipe> recipes) {
+        AfterCommit.runNowAndAfterCommit(this::evictCatalogue);
+        recipes.forEach(recipe -> {
+            invalidationBus.publish(CacheInvalidation.Kind.CATALOGUE, recipe.getId());
+            reindexRecipe(recipe);
+            rankNewRecipe(recipe);
+        });
+    }
+
+    /**
+     * Creates and saves a new recipe to the repository after performing validation
+     * and generating a location URI for it.
+     *
+     * @param recipe the recipe object to be created and saved; must not be null and must
+     *               pass validation rules, such as having at least one ingredient and one step
+     * @return the saved recipe object with a unique ID and location URI populated
+     * @throws IllegalStateException if the recipe does not pass validation rules
+     */
+    @Transactional
+    public Recipe createNewRecipe(Recipe recipe)
+        throws IllegalStateException {
+        prepareNewRecipe(recipe);
 
         recipe = recipeRepo.save(recipe);
         recipe.generateLocationURI();
 
         cacheRecipeOwner(recipe.getSubmittedBy(), recipe.getId());
+        ownershipService.recipeCreated(recipe.getId(), recipe.getAuthor());
 
-        clearAllRecipesCache();
+        evictRecipe(recipe);
+        reindexRecipe(recipe);
+        rankNewRecipe(recipe);
 
         return recipe;
     }
 
     /**
-     * Retrieves a recipe by its unique ID from the repository and ensures its location URI
-     * is generated before returning it.
+     * Retrieves a recipe by its unique ID, from the per-recipe cache or else
+     * from the read-model queries.
      *
      * @param id the unique identifier of the recipe to retrieve; must not be null
-     * @return the recipe object corresponding to the provided ID, with its location URI populated
+     * @return the read model of the recipe corresponding to the provided ID
+     * @throws NoSuchRecipeException if no recipe is found with the given ID
+     */
+    @Transactional(readOnly = true)
+    public RecipeDetail getRecipeById(Long id) throws NoSuchRecipeException {
+        RecipeDetail cachedRecipe = getRecipeFromCache(id);
+        if (cachedRecipe != null) {
+            return cachedRecipe;
+        }
+        return loadRecipe(id);
+    }
+
+    /**
+     * Like {@link #getRecipeById(Long)}, for a response validated by the given
+     * version: a cached recipe of another version is reloaded rather than
+     * served. Evicting before a write commits lets a concurrent read re-cache
+     * the old state, which the per-recipe cache then holds until the eviction
+     * after commit.
+     *
+     * @param version the version from {@link #getRecipeVersion(Long)}
      * @throws NoSuchRecipeException if no recipe is found with the given ID
      */
+    @Transactional(readOnly = true)
+    public RecipeDetail getRecipeById(Long id, ContentVersion version) throws NoSuchRecipeException {
+        RecipeDetail cachedRecipe = getRecipeFromCache(id);
+        if (cachedRecipe != null && cachedRecipe.contentVersion().tag().equals(version.tag())) {
+            return cachedRecipe;
+        }
+        return loadRecipe(id);
+    }
 
-    public Recipe getRecipeById(Long id) throws NoSuchRecipeException {
-        Optional<Recipe> recipeOptional = recipeRepo.findById(id);
+    private RecipeDetail loadRecipe(Long id) throws NoSuchRecipeException {
+        Timer.Sample load = cacheMetrics.startLoad();
+        List<RecipeDetail> recipes = recipeRepo.findDetailsById(List.of(id));
 
-        if (recipeOptional.isEmpty()) {
+        if (recipes.isEmpty()) {
             throw new NoSuchRecipeException(
                     "No recipe with ID " + id + " could be found."
             );
         }
-        Recipe recipe = recipeOptional.get();
-        recipe.generateLocationURI();
-        return recipe.recipeWithAverageRating(recipe);
+        RecipeDetail recipe = recipes.get(0);
+        cacheRecipe(recipe);
+        cacheMetrics.stopLoad(load, "recipeById");
+        return recipe;
     }
 
-    // get recipes by user
+    /**
+     * Returns the version of what {@link #getRecipeById(Long)} would return,
+     * from the per-recipe cache or else from a single-row projection, so an
+     * unchanged recipe can be answered without loading its collections.
+     *
+     * @throws NoSuchRecipeException if no recipe is found with the given ID
+     */
+    @Transactional(readOnly = true)
+    public ContentVersion getRecipeVersion(Long id) throws NoSuchRecipeException {
+        RecipeDetail cachedRecipe = getRecipeFromCache(id);
+        if (cachedRecipe != null) {
+            return cachedRecipe.contentVersion();
+        }
+        return recipeRepo.findVersionStampById(id)
+                .map(stamp -> ContentVersion.ofRecipe(id, stamp.getVersion(), stamp.getUpdatedAt()))
+                .orElseThrow(() -> new NoSuchRecipeException(
+                        "No recipe with ID " + id + " could be found."));
+    }
 
-    public List<Recipe> getRecipesByUser(String username) throws NoSuchRecipeException {
+    /**
+     * Returns the version of what {@link #getRecipesByUser(String)} would
+     * return, computed with one aggregate query over the user's recipes.
+     *
+     * @return the version, or empty if the user has no recipes
+     */
+    @Transactional(readOnly = true)
+    public Optional<ContentVersion> getUserRecipesVersion(String username) {
+        RecipeRepo.ListVersion stamp = recipeRepo.findListVersionBySubmittedBy(username);
+        if (stamp.getCount() == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(ContentVersion.ofRecipeList(
+                stamp.getCount(), stamp.getIdSum(), stamp.getVersionSum()));
+    }
 
-        Long cachedRecipeId = getCachedRecipeByOwner(username);
-        if (cachedRecipeId != null) {}
+    /**
+     * Loads a recipe straight from the repository, bypassing the per-recipe cache.
+     * Write paths must use this rather than {@link #getRecipeById(Long)}, which
+     * only returns the immutable read model.
+     *
+     * @param id the unique identifier of the recipe to load; must not be null
+     * @return the managed recipe entity
+     * @throws NoSuchRecipeException if no recipe is found with the given ID
+     */
+    public Recipe findRecipeForUpdate(Long id) throws NoSuchRecipeException {
+        return recipeRepo.findById(id)
+                .orElseThrow(() -> new NoSuchRecipeException(
+                        "No recipe with ID " + id + " could be found."));
+    }
 
-        List<Recipe> userRecipes = recipeRepo.findBySubmittedBy(username);
+    /**
+     * Returns an uninitialised reference to a recipe, to point a new review at
+     * without selecting the recipe. The caller must know the recipe exists;
+     * otherwise the insert fails on the foreign key.
+     */
+    public Recipe getRecipeReference(Long id) {
+        return recipeRepo.getReferenceById(id);
+    }
+
+    // get recipes by user
+
+    @Transactional(readOnly = true)
+    public List<RecipeDetail> getRecipesByUser(String username) throws NoSuchRecipeException {
+
+        List<RecipeDetail> userRecipes = searchRecipes(null, username,
+                () -> recipeRepo.findIdsBySubmittedBy(username));
 
         if (userRecipes.isEmpty()) {
             throw new NoSuchRecipeException("No recipes found for user: " + username);
         }
 
-        if (!userRecipes.isEmpty()) {
-            Recipe mostRecentRecipe = userRecipes.get(0);
-            cacheRecipeOwner(username, mostRecentRecipe.getId());
+        RecipeDetail mostRecentRecipe = userRecipes.get(0);
+        cacheRecipeOwner(username, mostRecentRecipe.id());
+
+        return userRecipes;
+    }
+
+    /**
+     * Searches recipe names through the in-memory name index, most relevant
+     * first. Falls back to the repository query while the index is still being
+     * built at startup. The fallback matches the name as a substring rather
+     * than by word prefixes, so its results are not cached: they would keep
+     * answering with the warm-up semantics after the index is ready.
+     */
+    private List<RecipeDetail> searchRecipesByName(String name, String username,
+                                                   Supplier<List<Long>> fallbackQuery) {
+        if (recipeNameIndex.isReady()) {
+            return getRecipesByIds(recipeNameIndex.search(name, username));
         }
+        return getRecipesByIds(fallbackQuery.get());
+    }
 
-        return userRecipes.stream()
-                .map(recipe -> {
-                   recipe.generateLocationURI();
-                   return recipe.recipeWithAverageRating(recipe);
-                })
-                .collect(Collectors.toList());
+    /**
+     * @return whether the name searches answer from the name index, i.e. with
+     *         the word-prefix matching they have once the startup warm-up is done
+     */
+    public boolean isNameSearchIndexed() {
+        return recipeNameIndex.isReady();
     }
 
     /**
-     * Retrieves a list of recipes whose names contain the specified keyword.
+     * Retrieves a list of recipes whose names contain every word of the specified
+     * keyword, ranked by relevance.
      *
      * @param name the keyword to search for in recipe names; must not be null
-     * @return a list of Recipe objects that match the search criteria
+     * @return the recipes that match the search criteria, best match first
      * @throws NoSuchRecipeException if no recipes are found in the repository
      */
-
-    public List<Recipe> getRecipesByName(String name) throws NoSuchRecipeException {
-        List<Recipe> matchingRecipes = recipeRepo.findByNameContaining(name);
+    @Transactional(readOnly = true)
+    public List<RecipeDetail> getRecipesByName(String name) throws NoSuchRecipeException {
+        List<RecipeDetail> matchingRecipes = searchRecipesByName(name, null,
+                () -> recipeRepo.findIdsByNameContaining(name));
 
         if (matchingRecipes.isEmpty()) {
             throw new NoSuchRecipeException("No recipes could be found with that name.");
         }
-        return matchingRecipes.stream()
-                .map(recipe -> {
-                    recipe.generateLocationURI();
-                    return recipe.recipeWithAverageRating(recipe);
-                })
-                .collect(Collectors.toList());
+        return matchingRecipes;
     }
 
-    public List<Recipe> getAllRecipes() throws NoSuchRecipeException {
+    /**
+     * Retrieves one keyset page of recipes in the requested order. Pages are
+     * cached individually under their (sort, direction, cursor, limit) key.
+     *
+     * @param sort the recipe property to order by; ties are broken on the id
+     * @param direction ascending or descending order
+     * @param after the cursor returned with the previous page, or null for the first page
+     * @param limit the maximum number of recipes on the page, between 1 and {@value #MAX_PAGE_SIZE}
+     * @return the page of recipes together with the cursor of the next page, if any
+     * @throws NoSuchRecipeException if there are no recipes at all
+     * @throws IllegalArgumentException if the limit is out of range or the cursor
+     *                                  is malformed or was issued for another order
+     */
+    @Transactional(readOnly = true)
+    public RecipePage getRecipePage(RecipeSort sort, Sort.Direction direction, String after, int limit)
+            throws NoSuchRecipeException {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException(
+                    "Limit must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+        RecipeCursor cursor = null;
+        if (after != null) {
+            cursor = RecipeCursor.decode(after);
+            if (cursor.sort() != sort || cursor.direction() != direction) {
+                throw new IllegalArgumentException(
+                        "The cursor was issued for a different sort order.");
+            }
+        }
 
-        List<Recipe> cachedRecipes = getAllRecipesFromCache();
-        System.out.println("Get All Cached Recipes");
-        if (cachedRecipes != null && !cachedRecipes.isEmpty()) {
-            return cachedRecipes;
+        String key = pageKey(sort, direction, after, limit);
+        RecipePageKeys cachedPage = getRecipePageFromCache(key);
+        if (cachedPage != null) {
+            return new RecipePage(getRecipesByIds(cachedPage.recipeIds()), cachedPage.nextCursor());
         }
 
-        List<Recipe> recipes = recipeRepo.findAll();
-        if (recipes.isEmpty()) {
+        Timer.Sample load = cacheMetrics.startLoad();
+        // one extra row tells whether another page follows
+        List<RecipeSummary> rows = recipeRepo.findSummaryPage(sort, direction, cursor, limit + 1);
+        if (rows.isEmpty() && cursor == null) {
             throw new NoSuchRecipeException("There are no recipes yet :( feel free to add one.");
         }
-        List<Recipe> processedRecipes = recipes.stream()
-                .map(recipe -> {
-                    recipe.generateLocationURI();
-                    return recipe.recipeWithAverageRating(recipe);
-                })
-                .collect(Collectors.toList());
+        boolean hasNext = rows.size() > limit;
+        List<RecipeSummary> summaries = hasNext ? rows.subList(0, limit) : rows;
 
-        cacheAllRecipes(processedRecipes);
+        RecipeCursor last = summaries.isEmpty()
+                ? null
+                : RecipeCursor.of(summaries.get(summaries.size() - 1), sort, direction);
+        String nextCursor = hasNext ? last.encode() : null;
+        List<Long> ids = summaries.stream().map(RecipeSummary::id).toList();
 
-        CacheStatistics cacheStats = statisticsService.getCacheStatistics("allRecipesCache");
-        System.out.println("Cache Hits: " + cacheStats.getCacheHits());
-        System.out.println("Cache Misses: " + cacheStats.getCacheMisses());
-        System.out.println(cacheStats.getCacheHitPercentage());
+        cacheMetrics.stopLoad(load, "allRecipesCache");
+        cacheRecipePage(key, new RecipePageKeys(sort, direction, cursor, ids, last, nextCursor));
 
-        return processedRecipes;
+        // recipes missing from the per-recipe cache only need their collections
+        Map<Long, RecipeSummary> byId = new HashMap<>();
+        summaries.forEach(summary -> byId.put(summary.id(), summary));
+        List<RecipeDetail> recipes = getRecipesByIds(ids,
+                missing -> recipeRepo.findDetails(missing.stream().map(byId::get).toList()));
+        return new RecipePage(recipes, nextCursor);
+    }
+
+    /**
+     * Streams every recipe to the given output, ordered by id, straight from a
+     * database cursor. Bypasses the caches and holds one row in memory at a
+     * time, so the export costs the same heap for any catalogue size.
+     *
+     * @param format NDJSON or CSV
+     * @param out where to write; flushed but not closed
+     * @return the number of recipes written
+     */
+    @Transactional(readOnly = true)
+    public long exportRecipes(ExportFormat format, OutputStream out) throws IOException {
+        try (Stream<RecipeExportRow> rows = recipeRepo.streamExportRows()) {
+            return exportWriter.write(format, RecipeExportRow.COLUMNS, rows, out);
+        }
+    }
+
+    /**
+     * Finds the recipes that can be cooked from the given ingredients, allowing
+     * up to {@code maxMissing} ingredients to be bought. Answered from the
+     * in-memory ingredient index; recipes come from the per-recipe cache.
+     *
+     * @param available the names of the ingredients at hand; case and extra
+     *                  whitespace are ignored
+     * @param maxMissing how many of a recipe's ingredients may be missing, 0 for
+     *                   recipes that can be cooked right away
+     * @return the matching recipes with their missing ingredients, fewest missing first
+     * @throws NoSuchRecipeException if no recipe qualifies
+     * @throws IllegalArgumentException if maxMissing is negative
+     * @throws IllegalStateException if the index is still being built at startup
+     */
+    @Transactional(readOnly = true)
+    public List<IngredientMatch> getRecipesByIngredients(Collection<String> available, int maxMissing)
+            throws NoSuchRecipeException {
+        if (maxMissing < 0) {
+            throw new IllegalArgumentException("The number of missing ingredients cannot be negative.");
+        }
+        if (!recipeIngredientIndex.isReady()) {
+            throw new IllegalStateException("The ingredient search is warming up, try again shortly.");
+        }
+
+        Map<Long, List<String>> cookable = recipeIngredientIndex.findCookable(available, maxMissing);
+        List<IngredientMatch> matches = getRecipesByIds(new ArrayList<>(cookable.keySet())).stream()
+                .map(recipe -> new IngredientMatch(recipe, cookable.get(recipe.id())))
+                .toList();
+
+        if (matches.isEmpty()) {
+            throw new NoSuchRecipeException("No recipes can be made with those ingredients" +
+                    (maxMissing > 0 ? " and at most " + maxMissing + " missing." : "."));
+        }
+        return matches;
+    }
+
+    /**
+     * Returns the best rated recipes from the in-memory leaderboard, without
+     * a database round trip.
+     *
+     * @param limit how many recipes to return, between 1 and {@value #MAX_PAGE_SIZE}
+     * @param minDifficulty the lowest difficulty rating to include, 0 when null
+     * @param maxDifficulty the highest difficulty rating to include, 10 when null
+     * @return the recipes best rated first, ties broken by review count
+     * @throws IllegalArgumentException if the limit or the band is out of range
+     * @throws IllegalStateException if the leaderboard is still being built at startup
+     */
+    public List<TopRecipe> getTopRecipes(int limit, Integer minDifficulty, Integer maxDifficulty) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException(
+                    "Limit must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+        int min = minDifficulty == null ? RecipeLeaderboard.MIN_DIFFICULTY : minDifficulty;
+        int max = maxDifficulty == null ? RecipeLeaderboard.MAX_DIFFICULTY : maxDifficulty;
+        if (min < RecipeLeaderboard.MIN_DIFFICULTY || max > RecipeLeaderboard.MAX_DIFFICULTY || min > max) {
+            throw new IllegalArgumentException(
+                    "The difficulty band must lie between 0 and 10, with minDifficulty at most maxDifficulty.");
+        }
+        if (!recipeLeaderboard.isReady()) {
+            throw new IllegalStateException("The leaderboard is warming up, try again shortly.");
+        }
+        return recipeLeaderboard.top(limit, min, max);
     }
 
     // get recipes by name and minimal rating
-    public List<Recipe> getRecipesByNameAndMinRating(String name, Double minAverageRating) throws NoSuchRecipeException {
-        List<Recipe> matchingRecipes = recipeRepo.findByNameContaining(name);
+    @Transactional(readOnly = true)
+    public List<RecipeDetail> getRecipesByNameAndMinRating(String name, Double minAverageRating) throws NoSuchRecipeException {
+        List<RecipeDetail> matchingRecipes = searchRecipesByName(name, null,
+                () -> recipeRepo.findIdsByNameContaining(name));
 
-        List<Recipe> filteredRecipes = matchingRecipes.stream()
-                .map(this::processRecipeWithRatingAndUri)
-                .filter(recipe -> recipe.getAverageRating(recipe.getId()) >= minAverageRating)
+        List<RecipeDetail> filteredRecipes = matchingRecipes.stream()
+                .filter(recipe -> recipe.averageRating() >= minAverageRating)
                 .toList();
 
         if (filteredRecipes.isEmpty()) {
@@ -245,41 +809,46 @@ public class RecipeService {
         return filteredRecipes;
     }
 
-    private Recipe processRecipeWithRatingAndUri(Recipe recipe) {
-        recipe.generateLocationURI();
-        return recipe.recipeWithAverageRating(recipe);
-    }
-
     // get recipes by name and by the user
-    public List<Recipe> getRecipesByNameAndUser(String name, String username) throws NoSuchRecipeException {
-        List<Recipe> matchingRecipes = recipeRepo.findByNameContainingIgnoreCaseAndSubmittedByIgnoreCase(name, username);
+    @Transactional(readOnly = true)
+    public List<RecipeDetail> getRecipesByNameAndUser(String name, String username) throws NoSuchRecipeException {
+        List<RecipeDetail> matchingRecipes = searchRecipesByName(name, username,
+                () -> recipeRepo.findIdsByNameContainingIgnoreCaseAndSubmittedByIgnoreCase(name, username));
 
         if (matchingRecipes.isEmpty()) {
             throw new NoSuchRecipeException("No recipes found with name containing " + name +
                     "submitted by user " + username);
-    }
-            return matchingRecipes.stream()
-                    .map(recipe -> {
-                        recipe.generateLocationURI();
-                        return recipe.recipeWithAverageRating(recipe);
-                    })
-                    .collect(Collectors.toList());
         }
+        return matchingRecipes;
+    }
 
     /**
      * Deletes a recipe from the repository based on its unique ID.
      *
      * @param id the unique identifier of the recipe to delete; must not be null
+     * @param expectedVersion the version the client read, null to delete whatever version is current
      * @return the recipe object that was deleted
      * @throws NoSuchRecipeException if no recipe is found with the given ID or if deletion fails
+     * @throws ConcurrentUpdateException if the recipe is not at the expected version or kept
+     *                                   changing while it was being deleted
      */
-    @Transactional
-    public Recipe deleteRecipeById(Long id) throws NoSuchRecipeException {
+    public Recipe deleteRecipeById(Long id, Long expectedVersion)
+            throws NoSuchRecipeException, ConcurrentUpdateException {
+        return optimisticRetry.run("recipe " + id, () -> currentVersion(id),
+                () -> deleteRecipe(id, expectedVersion));
+    }
+
+    private Recipe deleteRecipe(Long id, Long expectedVersion) throws NoSuchRecipeException {
         try {
-            Recipe recipe = getRecipeById(id);
-            recipeRepo.deleteById(id);
+            Recipe recipe = findRecipeForUpdate(id);
+            OptimisticRetry.expectVersion(expectedVersion, recipe.getVersion());
+            List<Long> reviewIds = recipe.getReviews() == null ? List.of()
+                    : recipe.getReviews().stream().map(Review::getId).toList();
+            recipeRepo.delete(recipe);
 
-            clearAllRecipesCache();
+            evictRecipe(recipe);
+            unindexRecipe(id);
+            ownershipService.recipeDeleted(id, reviewIds);
 
             return recipe;
         } catch (NoSuchRecipeException e) {
@@ -291,45 +860,197 @@ public class RecipeService {
     /**
      * Updates an existing recipe in the repository, performing validation and ensuring
      * the recipe's location URI is generated. An optional ID check can be enforced
-     * to verify the existence of the recipe prior to updating.
+     * to verify the existence of the recipe prior to updating. Only the fields,
+     * ingredients and steps that differ from the stored recipe are written;
+     * reviews sent along are ignored, they are changed through /review.
      *
      * @param recipe the Recipe object to update; must not be null and must pass validation
      *               (e.g., must have at least one ingredient and one step)
      * @param forceIdCheck a boolean flag indicating whether the recipe's ID should be checked
      *                     against the repository to confirm existence
+     * @param expectedVersion the version the client read, null to update whatever version is current
      * @return the updated Recipe object with its details modified and location URI populated
      * @throws NoSuchRecipeException if the recipe does not have a valid ID in the repository
      *                               or is missing when the forceIdCheck flag is enabled
+     * @throws ConcurrentUpdateException if the recipe is not at the expected version or kept
+     *                                   changing while the update was applied
      */
-    @Transactional
-    public Recipe updateRecipe(Recipe recipe, boolean forceIdCheck) throws NoSuchRecipeException {
-        try {
-            if (forceIdCheck) {
-                getRecipeById(recipe.getId());
-            }
-            recipe.validate();
-            Recipe savedRecipe = recipeRepo.save(recipe);
-            savedRecipe.generateLocationURI();
-
-            clearAllRecipesCache();
+    public Recipe updateRecipe(Recipe recipe, boolean forceIdCheck, Long expectedVersion)
+            throws NoSuchRecipeException, ConcurrentUpdateException {
+        return optimisticRetry.run("recipe " + recipe.getId(), () -> currentVersion(recipe.getId()),
+                () -> applyRecipeUpdate(recipe, forceIdCheck, expectedVersion));
+    }
 
-            return savedRecipe;
-        } catch (NoSuchRecipeException e) {
+    // one attempt of updateRecipe, in the transaction OptimisticRetry opens.
+    // an existing recipe is diffed against the one sent, see RecipePatcher
+    private Recipe applyRecipeUpdate(Recipe recipe, boolean forceIdCheck, Long expectedVersion)
+            throws NoSuchRecipeException {
+        recipe.validate();
+        Optional<Recipe> stored = recipe.getId() == null ? Optional.empty() : recipeRepo.findById(recipe.getId());
+        if (stored.isPresent()) {
+            OptimisticRetry.expectVersion(expectedVersion, stored.get().getVersion());
+            recipePatcher.applyChanges(stored.get(), recipe);
+            return recipeUpdated(stored.get());
+        }
+        if (forceIdCheck) {
             throw new NoSuchRecipeException("The recipe you passed in did not have an ID found " +
                     "in the database. Double check that it is correct. " +
                     "Or maybe you meant to POST a recipe not PATCH one.");
         }
+        recipe.attachReviews();
+        return recipeUpdated(recipeRepo.save(recipe));
+    }
+
+    /**
+     * Applies a JSON Merge Patch (RFC 7396) to a recipe. Only the fields and
+     * the ingredients and steps that the patch changes are written; see
+     * {@link RecipePatcher} for how list elements are matched.
+     *
+     * @param id the unique identifier of the recipe to patch
+     * @param patch the merge patch document
+     * @param expectedVersion the version the client read, null to patch whatever version is current
+     * @return the patched recipe
+     * @throws NoSuchRecipeException if no recipe is found with the given ID
+     * @throws IllegalArgumentException if the patch is malformed or removes a required field
+     * @throws IllegalStateException if the patched recipe has no ingredients or steps
+     * @throws ConcurrentUpdateException if the recipe is not at the expected version or kept
+     *                                   changing while the patch was applied
+     */
+    public Recipe patchRecipe(Long id, JsonNode patch, Long expectedVersion)
+            throws NoSuchRecipeException, ConcurrentUpdateException {
+        return optimisticRetry.run("recipe " + id, () -> currentVersion(id), () -> {
+            Recipe recipe = findRecipeForUpdate(id);
+            OptimisticRetry.expectVersion(expectedVersion, recipe.getVersion());
+            recipePatcher.applyMergePatch(recipe, patch);
+            return recipeUpdated(recipe);
+        });
+    }
+
+    private Recipe recipeUpdated(Recipe recipe) {
+        recipe.generateLocationURI();
+
+        evictRecipe(recipe);
+        reindexRecipe(recipe);
+        rankDetails(recipe);
+
+        return recipe;
+    }
+
+    private Long currentVersion(Long recipeId) {
+        return recipeRepo.findVersionStampById(recipeId).map(RecipeRepo.VersionStamp::getVersion).orElse(null);
+    }
+
+    /**
+     * Returns the average review rating of a recipe as stored on its row, the
+     * same value GET /recipes/{id} reports, without touching the review table.
+     *
+     * @param recipeId the unique identifier of the recipe; must not be null
+     * @return the mean rating, or 0.0 when the recipe has no reviews yet
+     * @throws NoSuchRecipeException if no recipe is found with the given ID
+     */
+    public double getAverageRating(Long recipeId) throws NoSuchRecipeException {
+        return findRatingSummary(recipeId).getAverageRating();
+    }
+
+    /**
+     * Returns the count, mean, standard deviation and histogram of a recipe's
+     * review ratings, from the ten counters on its row.
+     *
+     * @param recipeId the unique identifier of the recipe; must not be null
+     * @throws NoSuchRecipeException if no recipe is found with the given ID
+     */
+    public RatingStats getRatingStats(Long recipeId) throws NoSuchRecipeException {
+        RecipeRepo.RatingSummary summary = findRatingSummary(recipeId);
+        return RatingStats.of(recipeId, summary.getAverageRating(), summary.getRatingHistogram());
+    }
+
+    private RecipeRepo.RatingSummary findRatingSummary(Long recipeId) throws NoSuchRecipeException {
+        return recipeRepo.findRatingSummary(recipeId)
+                .orElseThrow(() -> new NoSuchRecipeException(
+                        "No recipe with ID " + recipeId + " could be found."));
+    }
+
+    /**
+     * Atomically shifts the rating aggregates and histogram of a recipe after
+     * a review was created, updated or deleted, and advances the recipe's
+     * version. Runs inside the caller's transaction so the review row and the
+     * aggregates always commit together.
+     *
+     * @param recipeId the recipe the review belongs to
+     * @param delta the ratings added and removed, see {@link RatingHistogram};
+     *              empty to only advance the version
+     * @throws NoSuchRecipeException if no recipe is found with the given ID
+     */
+    @Transactional
+    public void adjustRatingAggregates(Long recipeId, RatingHistogram delta)
+            throws NoSuchRecipeException {
+        if (recipeRepo.adjustRatingAggregates(recipeId, delta, Instant.now()) == 0) {
+            throw new NoSuchRecipeException(
+                    "No recipe with ID " + recipeId + " could be found.");
+        }
+        evictRating(recipeId);
+        long sumDelta = delta.sum();
+        int countDelta = delta.count();
+        AfterCommit.run(() -> recipeLeaderboard.applyRatingDelta(recipeId, sumDelta, countDelta));
+    }
+
+    /**
+     * Recomputes the rating aggregates of every recipe whose stored totals no
+     * longer match its reviews, e.g. after rows were edited by hand or a write
+     * failed half way outside of a transaction.
+     *
+     * @return the number of recipes that were repaired
+     */
+    @Transactional
+    public int reconcileRatingAggregates() {
+        List<Long> driftedIds = recipeRepo.findIdsWithRatingDrift();
+        if (driftedIds.isEmpty()) {
+            return 0;
+        }
+        recipeRepo.recomputeRatingAggregates(driftedIds, Instant.now());
+        driftedIds.forEach(this::evictRating);
+        AfterCommit.run(() -> recipeLeaderboard.reload(driftedIds));
+        return driftedIds.size();
     }
 
-    // update recipe difficulty rating
+    /**
+     * Recomputes the aggregates of the recipes whose rating histogram does not
+     * add up to their review count, such as recipes stored before the
+     * histogram was kept. Unlike {@link #reconcileRatingAggregates()} it only
+     * reads the recipe table, so it is cheap enough to run on every start.
+     *
+     * @return the number of recipes that were repaired
+     */
     @Transactional
-    public Recipe updateRecipeDifficulty(Long recipeId, int newDifficultyRating) throws NoSuchRecipeException {
-        Recipe recipe = getRecipeById(recipeId);
+    public int repairRatingHistograms() {
+        List<Long> unbalancedIds = recipeRepo.findIdsWithUnbalancedHistogram();
+        if (unbalancedIds.isEmpty()) {
+            return 0;
+        }
+        recipeRepo.recomputeRatingAggregates(unbalancedIds, Instant.now());
+        unbalancedIds.forEach(this::evictRating);
+        AfterCommit.run(() -> recipeLeaderboard.reload(unbalancedIds));
+        return unbalancedIds.size();
+    }
+
+    // update recipe difficulty rating; expectedVersion as for updateRecipe
+    public Recipe updateRecipeDifficulty(Long recipeId, int newDifficultyRating, Long expectedVersion)
+            throws NoSuchRecipeException, ConcurrentUpdateException {
+        return optimisticRetry.run("recipe " + recipeId, () -> currentVersion(recipeId),
+                () -> applyDifficultyUpdate(recipeId, newDifficultyRating, expectedVersion));
+    }
+
+    private Recipe applyDifficultyUpdate(Long recipeId, int newDifficultyRating, Long expectedVersion)
+            throws NoSuchRecipeException {
+        Recipe recipe = findRecipeForUpdate(recipeId);
+        OptimisticRetry.expectVersion(expectedVersion, recipe.getVersion());
         recipe.setDifficultyRating(newDifficultyRating);
         Recipe updateRecipe = recipeRepo.save(recipe);
         updateRecipe.generateLocationURI();
+        updateRecipe.recipeWithAverageRating(updateRecipe);
 
-        clearAllRecipesCache();
+        evictRecipe(updateRecipe);
+        rankDetails(updateRecipe);
 
         return updateRecipe;
     }
@@ -0,0 +1,256 @@
+package com.crus.RecipeAPI.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The final response bodies of the hot recipe read endpoints, held as UTF-8
+ * JSON bytes and, when enabled, pre-gzipped as well, so a hit is copied to
+ * the response without running Jackson or the compressor. The cache is
+ * bounded by the total size of the bodies it holds and drops the least
+ * recently used first.
+ * <p>
+ * Bodies are dropped through the same hooks that keep the recipe caches
+ * current, see {@link Membership}. A body that was being built while one of
+ * them ran is returned to its request but not cached, as it may predate the
+ * write.
+ */
+@Component
+public class ResponseBodyCache {
+
+    public static final String CACHE_NAME = "responseBodies";
+
+    // bodies above this share of the budget are served but never cached, so
+    // one huge page cannot push out everything else
+    private static final int MAX_ENTRY_SHARE = 4;
+
+    /**
+     * What, besides the recipes it contains, a cached body depends on.
+     */
+    public enum Membership {
+        /** A fixed set of recipes, e.g. GET /recipes/{id}. */
+        FIXED,
+        /** Recipes selected from the catalogue; any recipe write may change them. */
+        CATALOGUE,
+        /** Recipes selected or ordered by rating; any rating change may change them too. */
+        RATINGS
+    }
+
+    /**
+     * A serialised response body.
+     *
+     * @param gzip the gzip-compressed JSON, null if compression is disabled
+     * @param nextCursor the X-Next-Cursor of a page of GET /recipes, null otherwise
+     */
+    public record CachedBody(byte[] json, byte[] gzip, String nextCursor,
+                             Set<Long> recipeIds, Membership membership) {
+
+        long size() {
+            return json.length + (gzip == null ? 0 : gzip.length);
+        }
+    }
+
+    private final ObjectMapper objectMapper;
+    private final long maxBytes;
+    private final boolean gzip;
+
+    // access-ordered, so iteration starts at the least recently used body
+    private final LinkedHashMap<String, CachedBody> bodies = new LinkedHashMap<>(16, 0.75f, true);
+    private final ReentrantLock lock = new ReentrantLock();
+    private long bytes;
+
+    // advanced by every invalidation; a body is only cached if none ran since
+    // its request read the recipes, see stamp()
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public ResponseBodyCache(ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry,
+                             @Value("${recipe.response-cache.max-size:64MB}") DataSize maxSize,
+                             @Value("${recipe.response-cache.gzip:true}") boolean gzip) {
+        this.objectMapper = objectMapper;
+        this.maxBytes = maxSize.toBytes();
+        this.gzip = gzip;
+
+        // named like the Ehcache meters of CacheMetrics, plus the bytes held
+        FunctionCounter.builder("cache.gets", hits, AtomicLong::get)
+                .description("Cache lookups")
+                .tags("cache", CACHE_NAME, "result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.gets", misses, AtomicLong::get)
+                .description("Cache lookups")
+                .tags("cache", CACHE_NAME, "result", "miss")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.evictions", evictions, AtomicLong::get)
+                .description("Entries evicted to make room")
+                .tag("cache", CACHE_NAME)
+                .register(meterRegistry);
+        Gauge.builder("cache.size", this, ResponseBodyCache::entryCount)
+                .description("Entries held by the cache")
+                .tag("cache", CACHE_NAME)
+                .register(meterRegistry);
+        Gauge.builder("cache.bytes", this, ResponseBodyCache::heldBytes)
+                .description("Bytes of response bodies held by the cache")
+                .tag("cache", CACHE_NAME)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    private double entryCount() {
+        lock.lock();
+        try {
+            return bodies.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private double heldBytes() {
+        lock.lock();
+        try {
+            return bytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isGzipEnabled() {
+        return gzip;
+    }
+
+    public CachedBody get(String key) {
+        CachedBody body;
+        lock.lock();
+        try {
+            body = bodies.get(key);
+        } finally {
+            lock.unlock();
+        }
+        (body != null ? hits : misses).incrementAndGet();
+        return body;
+    }
+
+    /**
+     * Marks the start of building a body. Must be taken before the recipes
+     * are read and handed to {@link #put}.
+     */
+    public long stamp() {
+        return invalidations.get();
+    }
+
+    /**
+     * Serialises a body and caches it, unless the recipes it was built from
+     * may have changed since {@code stamp} was taken.
+     *
+     * @return the serialised body, whether it was cached or not
+     */
+    public CachedBody put(String key, long stamp, Object value, Collection<Long> recipeIds,
+                          Membership membership, String nextCursor) {
+        CachedBody body = serialise(value, recipeIds, membership, nextCursor);
+        if (body.size() > maxBytes / MAX_ENTRY_SHARE) {
+            return body;
+        }
+        lock.lock();
+        try {
+            if (invalidations.get() != stamp) {
+                return body;
+            }
+            CachedBody previous = bodies.put(key, body);
+            bytes += body.size() - (previous == null ? 0 : previous.size());
+            Iterator<CachedBody> eldest = bodies.values().iterator();
+            while (bytes > maxBytes && eldest.hasNext()) {
+                bytes -= eldest.next().size();
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        } finally {
+            lock.unlock();
+        }
+        return body;
+    }
+
+    /**
+     * Serialises a body without caching it, for results that must not be
+     * served to later requests.
+     */
+    public CachedBody serialise(Object value, Collection<Long> recipeIds,
+                                Membership membership, String nextCursor) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new CachedBody(json, gzip ? gzip(json) : null, nextCursor,
+                Set.copyOf(recipeIds), membership);
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return compressed.toByteArray();
+    }
+
+    /**
+     * Drops the bodies a recipe write can change: those containing the
+     * recipe, and every selection from the catalogue.
+     */
+    public void recipeChanged(Long recipeId) {
+        removeWhere(body -> body.membership() != Membership.FIXED || body.recipeIds().contains(recipeId));
+    }
+
+    /**
+     * Drops the bodies a rating change can change: those containing the
+     * recipe, and every selection or ordering by rating.
+     */
+    public void ratingChanged(Long recipeId) {
+        removeWhere(body -> body.membership() == Membership.RATINGS || body.recipeIds().contains(recipeId));
+    }
+
+    public void clear() {
+        removeWhere(body -> true);
+    }
+
+    private void removeWhere(Predicate<CachedBody> affected) {
+        lock.lock();
+        try {
+            invalidations.incrementAndGet();
+            Iterator<Map.Entry<String, CachedBody>> entries = bodies.entrySet().iterator();
+            while (entries.hasNext()) {
+                CachedBody body = entries.next().getValue();
+                if (affected.test(body)) {
+                    bytes -= body.size();
+                    entries.remove();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -1,19 +1,26 @@
 package com.crus.RecipeAPI.services;
 
+import com.crus.RecipeAPI.exceptions.ConcurrentUpdateException;
 import com.crus.RecipeAPI.exceptions.NoSuchRecipeException;
 import com.crus.RecipeAPI.exceptions.NoSuchReviewException;
-import com.crus.RecipeAPI.models.Recipe;
+import com.crus.RecipeAPI.models.ContentVersion;
+import com.crus.RecipeAPI.models.ExportFormat;
+import com.crus.RecipeAPI.models.RatingHistogram;
 import com.crus.RecipeAPI.models.Review;
+import com.crus.RecipeAPI.models.ReviewExportRow;
 import com.crus.RecipeAPI.repos.ReviewRepo;
+import io.micrometer.core.instrument.Timer;
 import org.ehcache.Cache;
 import org.ehcache.CacheManager;
-import org.ehcache.core.spi.service.StatisticsService;
-import org.ehcache.core.statistics.CacheStatistics;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
 public class ReviewService {
@@ -24,11 +31,27 @@ public class ReviewService {
     @Autowired
     private RecipeService recipeService;
 
+    @Autowired
+    OwnershipService ownershipService;
+
     @Autowired
     org.ehcache.CacheManager cacheManager;
 
     @Autowired
-    StatisticsService statisticsService;
+    CacheMetrics cacheMetrics;
+
+    @Autowired
+    ExportWriter exportWriter;
+
+    @Autowired
+    ReviewWriteBehind reviewWriteBehind;
+
+    @Autowired
+    OptimisticRetry optimisticRetry;
+
+    // the single entry of allReviewsCache, evicted by RecipeService whenever
+    // a review write moves a rating
+    static final String ALL_REVIEWS_KEY = "all_reviews_key";
 
     private Cache<String, Long> reviewSearch;
     private Cache<String, List> allReviewsCache;
@@ -46,14 +69,14 @@ public class ReviewService {
     @SuppressWarnings("unchecked")
     private List<Review> getAllReviewsFromCache() {
         if (allReviewsCache != null) {
-            return (List<Review>) allReviewsCache.get("all_reviews_key");
+            return (List<Review>) allReviewsCache.get(ALL_REVIEWS_KEY);
         }
         return null;
     }
 
     private void cacheAllReviews(List<Review> reviews) {
         if (allReviewsCache != null) {
-            allReviewsCache.put("all_reviews_key", reviews);
+            allReviewsCache.put(ALL_REVIEWS_KEY, reviews);
         }
     }
 
@@ -125,12 +148,15 @@ public class ReviewService {
      */
 
     public double getReviewByRecipeId(Long recipeId) throws NoSuchRecipeException, NoSuchReviewException {
-        List<Review> reviews = reviewRepo.findReviewById(recipeId);
+        return recipeService.getAverageRating(recipeId);
+    }
 
-        return reviews.stream()
-                .mapToInt(Review::getRating)
-                .average()
-                .orElse(0.0);
+    /**
+     * The average rating changes only with the recipe's reviews, each of which
+     * advances the recipe's version, so the recipe's version stands in for it.
+     */
+    public ContentVersion getRatingVersion(Long recipeId) throws NoSuchRecipeException {
+        return recipeService.getRecipeVersion(recipeId);
     }
 
     public List<Review> getReviewByUsername(String username)
@@ -145,41 +171,72 @@ public class ReviewService {
     }
 
     /**
-     1. **Method Parameters**:
-     - : A Review object containing the review details (username, rating, description) `review`
-     - : The ID of the recipe to which the review will be added `recipeId`
-     - Returns: The updated Recipe object
-     - Throws: if the recipe isn't found `NoSuchRecipeException`
-
-     2. **Method Flow**:
-     - First, it retrieves the recipe using `recipeService.getRecipeById(recipeId)`
-     - Then adds the new review to the recipe's collection of reviews using `recipe.getReviews().add(review)`
-     - Updates the recipe in the database using `recipeService.updateRecipe(recipe, false)`
-     - Returns the updated recipe
-
-     3. **Important Details**:
-     - The method leverages JPA's cascading ( on the Recipe's reviews field) `@OneToMany(cascade = CascadeType.ALL)`
-     - The `false` parameter in means it won't force an ID check before updating `updateRecipe`
-     - The review will be automatically persisted due to the cascade settings
-     - The relationship is managed through the foreign key as specified in the `recipe_id``@JoinColumn`
-
+     * Rejects reviews without a rating from 1 to 10, reviews of unknown
+     * recipes and of the reviewer's own recipes. The owner comes from the
+     * cached owner projection, so neither the recipe nor its reviews are
+     * loaded.
      */
-    public Recipe postNewReview(Review review, Long recipeId) throws NoSuchRecipeException {
-        Recipe recipe = recipeService.getRecipeById(recipeId);
+    private void checkReviewable(Review review, Long recipeId) throws NoSuchRecipeException {
+        // a body without a rating leaves it at 0, which the setter never sees
+        if (review.getRating() < RatingHistogram.MIN_RATING || review.getRating() > RatingHistogram.MAX_RATING) {
+            throw new IllegalStateException("Rating must be between 1 and 10.");
+        }
+        String owner = ownershipService.getRecipeOwner(recipeId)
+                .orElseThrow(() -> new NoSuchRecipeException(
+                        "No recipe with ID " + recipeId + " could be found."));
 
-        if (recipe.getSubmittedBy().equalsIgnoreCase(review.getUsername())) {
+        if (owner.equalsIgnoreCase(review.getAuthor())) {
             throw new IllegalStateException(
                     "🤔 Hold up there, chef! You can't review your own masterpiece! " +
                             "That's like giving yourself a high-five in the mirror - technically possible, " +
-                            "but a bit awkward. Ask a friend to try your " + recipe.getName() +
-                            " instead! 👨‍🍳✨"
+                            "but a bit awkward. Ask a friend to try your recipe instead! 👨‍🍳✨"
 
             );
         }
+    }
 
-        recipe.getReviews().add(review);
-        recipeService.updateRecipe(recipe, false);
-        return recipe;
+    /**
+     * Inserts a review of a recipe as a single row keyed by recipe_id and
+     * shifts the recipe's rating aggregates, without loading or saving the
+     * recipe itself.
+     *
+     * @param review the review to insert; its user must already be set
+     * @param recipeId the recipe being reviewed
+     * @return the inserted review with its generated ID
+     * @throws NoSuchRecipeException if the recipe isn't found
+     * @throws IllegalStateException if the rating is missing or out of range,
+     *                               or the reviewer owns the recipe
+     */
+    @Transactional(rollbackFor = NoSuchRecipeException.class)
+    public Review postNewReview(Review review, Long recipeId) throws NoSuchRecipeException {
+        checkReviewable(review, recipeId);
+
+        review.setId(null);
+        review.setVersion(null);
+        review.setRecipe(recipeService.getRecipeReference(recipeId));
+        Review savedReview = reviewRepo.save(review);
+        recipeService.adjustRatingAggregates(recipeId, new RatingHistogram().add(review.getRating()));
+        return savedReview;
+    }
+
+    /**
+     * Hands a review to the write-behind queue when it is enabled, after the
+     * same checks as {@link #postNewReview}.
+     *
+     * @return true if the review was queued, false if the caller has to insert
+     *         it with {@link #postNewReview} instead
+     * @throws NoSuchRecipeException if the recipe isn't found
+     * @throws IllegalStateException if the rating is missing or out of range,
+     *                               or the reviewer owns the recipe
+     */
+    public boolean queueNewReview(Review review, Long recipeId) throws NoSuchRecipeException {
+        if (!reviewWriteBehind.isEnabled()) {
+            return false;
+        }
+        checkReviewable(review, recipeId);
+        review.setId(null);
+        review.setVersion(null);
+        return reviewWriteBehind.offer(review, recipeId);
     }
 
     /**
@@ -203,14 +260,25 @@ public class ReviewService {
      - Returns the deleted review object (which was fetched before deletion)
 
      */
-    public Review deleteReviewById(Long id) throws NoSuchReviewException {
+    public Review deleteReviewById(Long id, Long expectedVersion)
+            throws NoSuchReviewException, NoSuchRecipeException, ConcurrentUpdateException {
+        return optimisticRetry.run("review " + id, () -> currentVersion(id),
+                () -> deleteReview(id, expectedVersion));
+    }
+
+    // one attempt of deleteReviewById, in the transaction OptimisticRetry opens;
+    // expectedVersion is the version the client read, null for any
+    private Review deleteReview(Long id, Long expectedVersion) throws NoSuchReviewException, NoSuchRecipeException {
         Review review = getReviewById(id);
 
         if (null == review) {
             throw new NoSuchReviewException(
                     "The review you are trying to delete does not exist.");
         }
+        OptimisticRetry.expectVersion(expectedVersion, review.getVersion());
         reviewRepo.deleteById(id);
+        recipeService.adjustRatingAggregates(review.getRecipeId(), new RatingHistogram().remove(review.getRating()));
+        ownershipService.reviewDeleted(id);
         return review;
     }
 
@@ -230,44 +298,89 @@ public class ReviewService {
      4. **Return Value**:
      - Returns the updated review object
 
+     5. **Concurrency**:
+     - Only the rating and the description are copied onto the stored review;
+       a rating of 0 or a null description leaves the stored one as it is
+     - With an `expectedVersion` (the client's If-Match), a review changed
+       since the client read it is not updated
+
      */
-    public Review updateReviewById(Review reviewToUpdate) throws NoSuchReviewException {
+    public Review updateReviewById(Review reviewToUpdate, Long expectedVersion)
+            throws NoSuchReviewException, NoSuchRecipeException, ConcurrentUpdateException {
+        Long id = reviewToUpdate.getId();
+        return optimisticRetry.run("review " + id, () -> currentVersion(id),
+                () -> updateReview(reviewToUpdate, expectedVersion));
+    }
+
+    // one attempt of updateReviewById; the changes are applied to the review
+    // as this attempt read it, so a retry never writes back a stale copy
+    private Review updateReview(Review reviewToUpdate, Long expectedVersion)
+            throws NoSuchReviewException, NoSuchRecipeException {
 
+        Review review;
         try {
-            Review review = getReviewById(reviewToUpdate.getId());
+            review = getReviewById(reviewToUpdate.getId());
         } catch (NoSuchReviewException e) {
             throw new NoSuchReviewException(
                     "The review you are trying to update. " +
                             "Maybe you meant to create one? If not," +
                             "please double-check the ID you passed in.");
         }
-        reviewRepo.save(reviewToUpdate);
-        return reviewToUpdate;
+        OptimisticRetry.expectVersion(expectedVersion, review.getVersion());
+
+        RatingHistogram ratingDelta = new RatingHistogram();
+        if (RatingHistogram.isRated(reviewToUpdate.getRating())) {
+            int previousRating = review.getRating();
+            review.setRating(reviewToUpdate.getRating());
+            ratingDelta.remove(previousRating).add(review.getRating());
+        }
+        if (reviewToUpdate.getDescription() != null) {
+            review.setDescription(reviewToUpdate.getDescription());
+        }
+        Long recipeId = review.getRecipeId();
+
+        Review savedReview = reviewRepo.saveAndFlush(review);
+        // called even without a rating change: it also advances the version of
+        // the recipe, whose representation includes this review
+        recipeService.adjustRatingAggregates(recipeId, ratingDelta);
+        return savedReview;
+    }
+
+    private Long currentVersion(Long reviewId) {
+        return reviewRepo.findById(reviewId).map(Review::getVersion).orElse(null);
     }
 
     public List<Review> getAllReviews() throws NoSuchReviewException {
 
         List<Review> cachedReviews = getAllReviewsFromCache();
-        System.out.println("Get All Cached Reviews");
         if (cachedReviews != null) {
             return cachedReviews;
         }
 
+        Timer.Sample load = cacheMetrics.startLoad();
         List<Review> reviews = reviewRepo.findAll();
         if (reviews.isEmpty()) {
             throw new NoSuchReviewException("There are no reviews posted.");
         }
-        List<Integer> processedReviews = reviews.stream()
-                .map(Review::getRating)
-                .toList();
+        cacheMetrics.stopLoad(load, "allReviewsCache");
 
         cacheAllReviews(reviews);
 
-        CacheStatistics cacheStats = statisticsService.getCacheStatistics("allReviewsCache");
-        System.out.println("Cache Hits: " + cacheStats.getCacheHits());
-        System.out.println("Cache Misses: " + cacheStats.getCacheMisses());
-        System.out.println(cacheStats.getCacheHitPercentage());
-
         return reviews;
     }
+
+    /**
+     * Streams every review to the given output, ordered by id, straight from a
+     * database cursor, holding one row in memory at a time.
+     *
+     * @param format NDJSON or CSV
+     * @param out where to write; flushed but not closed
+     * @return the number of reviews written
+     */
+    @Transactional(readOnly = true)
+    public long exportReviews(ExportFormat format, OutputStream out) throws IOException {
+        try (Stream<ReviewExportRow> rows = reviewRepo.streamExportRows()) {
+            return exportWriter.write(format, ReviewExportRow.COLUMNS, rows, out);
+        }
+    }
 }
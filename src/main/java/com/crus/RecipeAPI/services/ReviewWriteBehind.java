@@ -0,0 +1,260 @@
+package com.crus.RecipeAPI.services;
+
+import com.crus.RecipeAPI.exceptions.NoSuchRecipeException;
+import com.crus.RecipeAPI.models.RatingHistogram;
+import com.crus.RecipeAPI.models.Review;
+import com.crus.RecipeAPI.repos.ReviewRepo;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Optional write-behind for new reviews. Under burst load, POST /review
+ * requests are acknowledged once queued; a single writer thread inserts them
+ * in batches, one transaction and one aggregate update per recipe per batch.
+ * <p>
+ * A user's own reads stay consistent with their writes: before serving a read
+ * for a user with reviews still queued, {@link #awaitPending(String)} flushes
+ * the queue and waits for them. When the queue is full, or write-behind is
+ * disabled, callers fall back to inserting the review directly.
+ */
+@Component
+public class ReviewWriteBehind {
+
+    private static final Logger log = LoggerFactory.getLogger(ReviewWriteBehind.class);
+
+    // bounds how long a read can be held up waiting for its author's reviews
+    private static final Duration READ_YOUR_WRITES_TIMEOUT = Duration.ofSeconds(5);
+
+    private record PendingReview(Review review, Long recipeId, CompletableFuture<Review> written) {
+    }
+
+    // wakes the writer up to flush before the batch is full or the delay is over
+    private static final PendingReview FLUSH = new PendingReview(null, null, null);
+
+    private final ReviewRepo reviewRepo;
+    private final RecipeService recipeService;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration maxDelay;
+    private final BlockingQueue<PendingReview> queue;
+    private final Map<String, Set<CompletableFuture<Review>>> pendingByAuthor = new ConcurrentHashMap<>();
+    private final Thread writer;
+    private volatile boolean running;
+    // offers hold the read lock from checking running to enqueueing, so once
+    // shutdown() has taken the write lock no review can slip in behind its drain
+    private final ReadWriteLock shutdownLock = new ReentrantReadWriteLock();
+
+    public ReviewWriteBehind(ReviewRepo reviewRepo,
+                             RecipeService recipeService,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${recipe.reviews.write-behind.enabled:false}") boolean enabled,
+                             @Value("${recipe.reviews.write-behind.batch-size:100}") int batchSize,
+                             @Value("${recipe.reviews.write-behind.max-delay:PT0.05S}") Duration maxDelay,
+                             @Value("${recipe.reviews.write-behind.capacity:10000}") int capacity) {
+        this.reviewRepo = reviewRepo;
+        this.recipeService = recipeService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxDelay = maxDelay;
+        this.queue = new LinkedBlockingQueue<>(capacity);
+        this.running = enabled;
+        this.writer = enabled
+                ? Thread.ofPlatform().name("review-write-behind").daemon().start(this::run)
+                : null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues a review whose recipe and author have already been checked.
+     *
+     * @return false if write-behind is disabled or the queue is full, in which
+     *         case the caller has to insert the review itself
+     */
+    public boolean offer(Review review, Long recipeId) {
+        shutdownLock.readLock().lock();
+        try {
+            if (!running) {
+                return false;
+            }
+            String author = review.getAuthor();
+            CompletableFuture<Review> written = new CompletableFuture<>();
+            pendingByAuthor.compute(author, (key, futures) -> {
+                Set<CompletableFuture<Review>> pending = futures != null ? futures : ConcurrentHashMap.newKeySet();
+                pending.add(written);
+                return pending;
+            });
+            if (!queue.offer(new PendingReview(review, recipeId, written))) {
+                forget(author, written);
+                return false;
+            }
+            return true;
+        } finally {
+            shutdownLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Blocks until every review the user has queued is written, flushing the
+     * queue early if there are any. Returns right away for everybody else.
+     */
+    public void awaitPending(String author) {
+        Set<CompletableFuture<Review>> pending = pendingByAuthor.get(author);
+        if (pending == null || pending.isEmpty()) {
+            return;
+        }
+        queue.offer(FLUSH);
+        try {
+            CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new))
+                    .get(READ_YOUR_WRITES_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // a review that could not be written was logged by the writer
+        } catch (TimeoutException e) {
+            log.warn("Reviews by {} were not written within {}", author, READ_YOUR_WRITES_TIMEOUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void forget(String author, CompletableFuture<Review> written) {
+        pendingByAuthor.computeIfPresent(author, (key, futures) -> {
+            futures.remove(written);
+            return futures.isEmpty() ? null : futures;
+        });
+    }
+
+    private void run() {
+        List<PendingReview> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                collect(batch);
+            } catch (InterruptedException e) {
+                // the reviews collected so far were already acknowledged
+                write(batch);
+                Thread.currentThread().interrupt();
+                break;
+            }
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    // waits for the first review, then for more until the batch is full, the
+    // delay is over or somebody asks for a flush
+    private void collect(List<PendingReview> batch) throws InterruptedException {
+        PendingReview next = queue.take();
+        long deadline = System.nanoTime() + maxDelay.toNanos();
+        while (next != FLUSH) {
+            batch.add(next);
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) {
+                return;
+            }
+            next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+        }
+    }
+
+    private void write(List<PendingReview> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(batch));
+            batch.forEach(pending -> complete(pending, null));
+        } catch (RuntimeException e) {
+            // one bad review must not cost the others their batch
+            log.warn("Review batch of {} failed, retrying one by one", batch.size(), e);
+            for (PendingReview pending : batch) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insert(List.of(pending)));
+                    complete(pending, null);
+                } catch (RuntimeException failure) {
+                    log.warn("Dropped review by {} on recipe {}",
+                            pending.review().getAuthor(), pending.recipeId(), failure);
+                    complete(pending, failure);
+                }
+            }
+        }
+    }
+
+    private void insert(List<PendingReview> batch) {
+        Map<Long, RatingHistogram> deltas = new HashMap<>();
+        for (PendingReview pending : batch) {
+            Review review = pending.review();
+            // a retry after a failed batch must not reuse the id and version
+            // seeded for it
+            review.setId(null);
+            review.setVersion(null);
+            review.setRecipe(recipeService.getRecipeReference(pending.recipeId()));
+            reviewRepo.save(review);
+            deltas.computeIfAbsent(pending.recipeId(), id -> new RatingHistogram()).add(review.getRating());
+        }
+        try {
+            for (Map.Entry<Long, RatingHistogram> delta : deltas.entrySet()) {
+                recipeService.adjustRatingAggregates(delta.getKey(), delta.getValue());
+            }
+        } catch (NoSuchRecipeException e) {
+            // the recipe was deleted after the review was queued
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    private void complete(PendingReview pending, Throwable failure) {
+        forget(pending.review().getAuthor(), pending.written());
+        if (failure == null) {
+            pending.written().complete(pending.review());
+        } else {
+            pending.written().completeExceptionally(failure);
+        }
+    }
+
+    /**
+     * Stops taking reviews and writes whatever is still queued.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        shutdownLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            shutdownLock.writeLock().unlock();
+        }
+        queue.offer(FLUSH);
+        writer.join(READ_YOUR_WRITES_TIMEOUT.toMillis());
+        List<PendingReview> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        rest.removeIf(pending -> pending == FLUSH);
+        write(rest);
+    }
+}
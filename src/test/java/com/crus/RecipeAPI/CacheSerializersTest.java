@@ -0,0 +1,65 @@
+package com.crus.RecipeAPI;
+
+import com.crus.RecipeAPI.models.CustomUserDetails;
+import com.crus.RecipeAPI.models.RecipeCursor;
+import com.crus.RecipeAPI.models.RecipeDetail;
+import com.crus.RecipeAPI.models.RecipePageKeys;
+import com.crus.RecipeAPI.models.RecipeSort;
+import com.crus.RecipeAPI.models.Review;
+import com.crus.RecipeAPI.services.CacheSerializers;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CacheSerializersTest {
+
+    @Test
+    public void testRecipeDetailRoundTrip() {
+        RecipeDetail recipe = new RecipeDetail(7L, "soup", 30, null, "idfk",
+                List.of(new RecipeDetail.IngredientLine(1L, "onion", "1", null)),
+                List.of(new RecipeDetail.StepLine(2L, 1, "chop")),
+                List.of(new RecipeDetail.ReviewLine(3L, "bob", "bob", 8, "x".repeat(70_000))),
+                8.0, "idfk", 4L, Instant.parse("2024-01-02T03:04:05.123456Z"));
+        CacheSerializers.RecipeDetailSerializer serializer = new CacheSerializers.RecipeDetailSerializer();
+
+        assertThat(serializer.read(serializer.serialize(recipe))).isEqualTo(recipe);
+        assertThat(serializer.equals(recipe, serializer.serialize(recipe))).isTrue();
+    }
+
+    @Test
+    public void testRecipePageKeysRoundTrip() {
+        RecipePageKeys page = new RecipePageKeys(RecipeSort.AVERAGE_RATING, Sort.Direction.DESC,
+                new RecipeCursor(RecipeSort.AVERAGE_RATING, Sort.Direction.DESC, 7.5, 3L),
+                List.of(4L, 5L),
+                new RecipeCursor(RecipeSort.AVERAGE_RATING, Sort.Direction.DESC, null, 5L),
+                "next");
+        CacheSerializers.RecipePageKeysSerializer serializer = new CacheSerializers.RecipePageKeysSerializer();
+
+        assertThat(serializer.read(serializer.serialize(page))).isEqualTo(page);
+    }
+
+    @Test
+    public void testReviewListKeepsTheAuthor() {
+        Review review = Review.builder()
+                .id(1L)
+                .version(2L)
+                .username("bob")
+                .user(CustomUserDetails.builder().username("bob").build())
+                .rating(9)
+                .description("great")
+                .recipeId(7L)
+                .build();
+        CacheSerializers.ReviewListSerializer serializer = new CacheSerializers.ReviewListSerializer();
+
+        Review copy = (Review) serializer.read(serializer.serialize(List.of(review))).get(0);
+
+        assertThat(copy.getAuthor()).isEqualTo("bob");
+        assertThat(copy.getRating()).isEqualTo(9);
+        assertThat(copy.getRecipeId()).isEqualTo(7L);
+        assertThat(copy.getVersion()).isEqualTo(2L);
+    }
+}
@@ -0,0 +1,144 @@
+package com.crus.RecipeAPI;
+
+import com.crus.RecipeAPI.models.CustomUserDetails;
+import com.crus.RecipeAPI.security.CachingAuthenticationProvider;
+import com.crus.RecipeAPI.security.CredentialCache;
+import com.crus.RecipeAPI.services.CacheMetrics;
+import org.ehcache.CacheManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.authentication.LockedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.ehcache.config.builders.CacheConfigurationBuilder.newCacheConfigurationBuilder;
+import static org.ehcache.config.builders.CacheManagerBuilder.newCacheManagerBuilder;
+import static org.ehcache.config.builders.ResourcePoolsBuilder.heap;
+import static org.mockito.Mockito.mock;
+
+public class CachingAuthenticationProviderTest {
+
+    private static final String USERNAME = "alice";
+    private static final String PASSWORD = "correct horse";
+
+    // the lowest BCrypt cost, so the checks that do reach BCrypt stay fast
+    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder(4);
+    private final Map<String, CustomUserDetails> users = new HashMap<>();
+    private final AtomicInteger lookups = new AtomicInteger();
+
+    private CacheManager cacheManager;
+    private CredentialCache credentialCache;
+    private CachingAuthenticationProvider provider;
+
+    @BeforeEach
+    void setup() {
+        cacheManager = newCacheManagerBuilder()
+                .withCache("credentialCache", newCacheConfigurationBuilder(String.class, CustomUserDetails.class, heap(100)))
+                .build(true);
+        credentialCache = new CredentialCache(cacheManager);
+
+        DaoAuthenticationProvider daoProvider = new DaoAuthenticationProvider(username -> {
+            lookups.incrementAndGet();
+            CustomUserDetails user = users.get(username);
+            if (user == null) {
+                throw new UsernameNotFoundException(username);
+            }
+            return user;
+        });
+        daoProvider.setPasswordEncoder(passwordEncoder);
+        provider = new CachingAuthenticationProvider(daoProvider, credentialCache, mock(CacheMetrics.class));
+
+        users.put(USERNAME, user(true, true));
+    }
+
+    @AfterEach
+    void teardown() {
+        cacheManager.close();
+    }
+
+    private CustomUserDetails user(boolean enabled, boolean nonLocked) {
+        return CustomUserDetails.builder()
+                .username(USERNAME)
+                .password(passwordEncoder.encode(PASSWORD))
+                .isEnabled(enabled)
+                .isAccountNonLocked(nonLocked)
+                .build();
+    }
+
+    private Authentication login(String password) {
+        return provider.authenticate(UsernamePasswordAuthenticationToken.unauthenticated(USERNAME, password));
+    }
+
+    @Test
+    public void testRepeatedLoginIsServedFromTheCache() {
+        login(PASSWORD);
+        Authentication second = login(PASSWORD);
+
+        assertThat(second.isAuthenticated()).isTrue();
+        assertThat(second.getName()).isEqualTo(USERNAME);
+        assertThat(second.getCredentials()).isNull();
+        assertThat(lookups).hasValue(1);
+    }
+
+    @Test
+    public void testWrongPasswordAfterCachedSuccessStillFails() {
+        login(PASSWORD);
+
+        assertThatThrownBy(() -> login("wrong horse")).isInstanceOf(BadCredentialsException.class);
+        assertThat(lookups).hasValue(2);
+        // and the failure did not spoil the cached success
+        assertThat(login(PASSWORD).isAuthenticated()).isTrue();
+        assertThat(lookups).hasValue(2);
+    }
+
+    @Test
+    public void testFailedLoginIsNotCached() {
+        assertThatThrownBy(() -> login("wrong horse")).isInstanceOf(BadCredentialsException.class);
+        assertThatThrownBy(() -> login("wrong horse")).isInstanceOf(BadCredentialsException.class);
+
+        assertThat(lookups).hasValue(2);
+    }
+
+    @Test
+    public void testDisabledPrincipalIsNotServedFromTheCache() {
+        CustomUserDetails disabled = user(false, true);
+        users.put(USERNAME, disabled);
+        credentialCache.put(credentialCache.keyFor(USERNAME, PASSWORD), disabled);
+
+        assertThatThrownBy(() -> login(PASSWORD)).isInstanceOf(DisabledException.class);
+        assertThat(lookups).hasValue(1);
+    }
+
+    @Test
+    public void testLockedPrincipalIsNotServedFromTheCache() {
+        CustomUserDetails locked = user(true, false);
+        users.put(USERNAME, locked);
+        credentialCache.put(credentialCache.keyFor(USERNAME, PASSWORD), locked);
+
+        assertThatThrownBy(() -> login(PASSWORD)).isInstanceOf(LockedException.class);
+        assertThat(lookups).hasValue(1);
+    }
+
+    @Test
+    public void testEvictedUserIsCheckedAgain() {
+        login(PASSWORD);
+        users.put(USERNAME, user(false, true));
+
+        credentialCache.evictUser(USERNAME);
+
+        assertThatThrownBy(() -> login(PASSWORD)).isInstanceOf(DisabledException.class);
+        assertThat(lookups).hasValue(2);
+    }
+}
@@ -0,0 +1,83 @@
+package com.crus.RecipeAPI;
+
+import com.crus.RecipeAPI.models.CustomUserDetails;
+import com.crus.RecipeAPI.models.Role;
+import com.crus.RecipeAPI.models.UserMeta;
+import com.crus.RecipeAPI.repos.UserRepo;
+import com.crus.RecipeAPI.security.CredentialCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that changing or deleting a user row, through any repository call,
+ * drops the cached credential checks of that user and only of that user.
+ */
+@SpringBootTest(classes = RecipeApiApplication.class, properties = "recipe.warmup.enabled=false")
+@ActiveProfiles(profiles = "test")
+@Transactional
+public class CredentialCacheInvalidatorTest {
+
+    private static final String PREFIX = "credential-cache-test";
+
+    @Autowired
+    private CredentialCache credentialCache;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    private CustomUserDetails user;
+    private CustomUserDetails other;
+    private String userKey;
+    private String otherKey;
+
+    @BeforeEach
+    void setup() {
+        user = userRepo.saveAndFlush(user("user"));
+        other = userRepo.saveAndFlush(user("other"));
+        userKey = credentialCache.keyFor(user.getUsername(), "password");
+        otherKey = credentialCache.keyFor(other.getUsername(), "password");
+        credentialCache.put(userKey, user);
+        credentialCache.put(otherKey, other);
+    }
+
+    private CustomUserDetails user(String name) {
+        List<Role> roles = new ArrayList<>();
+        roles.add(new Role(Role.Roles.ROLE_USER));
+        return CustomUserDetails.builder()
+                .username(PREFIX + "-" + name)
+                .password("not used")
+                .userMeta(UserMeta.builder()
+                        .name(name)
+                        .email(PREFIX + "-" + name + "@example.com")
+                        .build())
+                .authorities(roles)
+                .build();
+    }
+
+    @Test
+    public void testUserUpdateEvictsTheirCredentials() {
+        user.setEnabled(false);
+        userRepo.saveAndFlush(user);
+
+        assertThat(credentialCache.get(userKey)).isNull();
+        assertThat(credentialCache.get(otherKey)).isNotNull();
+    }
+
+    @Test
+    public void testUserDeletionEvictsTheirCredentials() {
+        userRepo.delete(user);
+        userRepo.flush();
+
+        assertThat(credentialCache.get(userKey)).isNull();
+        assertThat(credentialCache.get(otherKey)).isNotNull();
+    }
+}
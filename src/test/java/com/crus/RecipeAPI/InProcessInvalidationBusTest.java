@@ -0,0 +1,36 @@
+package com.crus.RecipeAPI;
+
+import com.crus.RecipeAPI.services.CacheInvalidation;
+import com.crus.RecipeAPI.services.InProcessInvalidationBus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InProcessInvalidationBusTest {
+
+    @Test
+    public void testDeliversToTheOtherNodesOnly() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        InProcessInvalidationBus.Network network = new InProcessInvalidationBus.Network();
+        InProcessInvalidationBus writer = new InProcessInvalidationBus(network, meterRegistry);
+        InProcessInvalidationBus reader = new InProcessInvalidationBus(network, meterRegistry);
+        List<CacheInvalidation> writerReceived = new ArrayList<>();
+        List<CacheInvalidation> readerReceived = new ArrayList<>();
+        writer.subscribe(writerReceived::addAll);
+        reader.subscribe(readerReceived::addAll);
+
+        writer.publish(CacheInvalidation.Kind.RECIPE, 7L);
+
+        assertThat(writerReceived).isEmpty();
+        assertThat(readerReceived).singleElement().satisfies(invalidation -> {
+            assertThat(invalidation.kind()).isEqualTo(CacheInvalidation.Kind.RECIPE);
+            assertThat(invalidation.entityId()).isEqualTo(7L);
+            assertThat(invalidation.origin()).isEqualTo(writer.nodeId());
+        });
+        assertThat(meterRegistry.get("cache.invalidation.lag").timer().count()).isEqualTo(1);
+    }
+}
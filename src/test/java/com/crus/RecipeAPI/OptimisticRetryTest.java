@@ -0,0 +1,88 @@
+package com.crus.RecipeAPI;
+
+import com.crus.RecipeAPI.exceptions.ConcurrentUpdateException;
+import com.crus.RecipeAPI.exceptions.NoSuchRecipeException;
+import com.crus.RecipeAPI.services.OptimisticRetry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+public class OptimisticRetryTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final OptimisticRetry optimisticRetry = new OptimisticRetry(mock(PlatformTransactionManager.class),
+            meterRegistry, 3, Duration.ofMillis(1), Duration.ofMillis(2));
+
+    @Test
+    public void testRetriesUntilTheVersionCheckPasses() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = optimisticRetry.run("recipe 7", () -> 4L, () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new ObjectOptimisticLockingFailureException("Recipe", 7L);
+            }
+            return "saved";
+        });
+
+        assertThat(result).isEqualTo("saved");
+        assertThat(attempts).hasValue(3);
+        assertThat(meterRegistry.get("recipe.write.conflicts").tag("outcome", "retried").counter().count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    public void testGivesUpWithTheCurrentVersion() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> optimisticRetry.run("recipe 7", () -> 9L, () -> {
+            attempts.incrementAndGet();
+            throw new ObjectOptimisticLockingFailureException("Recipe", 7L);
+        }))
+                .isInstanceOfSatisfying(ConcurrentUpdateException.class,
+                        e -> assertThat(e.getCurrentVersion()).isEqualTo(9L));
+        assertThat(attempts).hasValue(3);
+    }
+
+    @Test
+    public void testPassesCheckedExceptionsThroughWithoutRetrying() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> optimisticRetry.run("recipe 7", () -> 4L, () -> {
+            attempts.incrementAndGet();
+            throw new NoSuchRecipeException("gone");
+        }))
+                .isInstanceOf(NoSuchRecipeException.class);
+        assertThat(attempts).hasValue(1);
+    }
+
+    @Test
+    public void testFailsRightAwayOnAnUnexpectedVersion() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> optimisticRetry.run("recipe 7", () -> 9L, () -> {
+            attempts.incrementAndGet();
+            OptimisticRetry.expectVersion(3L, 5L);
+            return "saved";
+        }))
+                .isInstanceOfSatisfying(ConcurrentUpdateException.class,
+                        e -> assertThat(e.getCurrentVersion()).isEqualTo(5L));
+        assertThat(attempts).hasValue(1);
+    }
+
+    @Test
+    public void testWritesWithTheExpectedVersionOrWithoutOne() throws Exception {
+        assertThat(optimisticRetry.run("recipe 7", () -> 4L, () -> {
+            OptimisticRetry.expectVersion(4L, 4L);
+            OptimisticRetry.expectVersion(null, 4L);
+            return "saved";
+        })).isEqualTo("saved");
+    }
+}
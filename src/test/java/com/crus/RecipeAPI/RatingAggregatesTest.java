@@ -0,0 +1,172 @@
+package com.crus.RecipeAPI;
+
+import com.crus.RecipeAPI.exceptions.ConcurrentUpdateException;
+import com.crus.RecipeAPI.models.CustomUserDetails;
+import com.crus.RecipeAPI.models.Ingredient;
+import com.crus.RecipeAPI.models.RatingHistogram;
+import com.crus.RecipeAPI.models.Recipe;
+import com.crus.RecipeAPI.models.Review;
+import com.crus.RecipeAPI.models.Role;
+import com.crus.RecipeAPI.models.Step;
+import com.crus.RecipeAPI.models.UserMeta;
+import com.crus.RecipeAPI.repos.RecipeRepo;
+import com.crus.RecipeAPI.repos.ReviewRepo;
+import com.crus.RecipeAPI.repos.UserRepo;
+import com.crus.RecipeAPI.services.RecipeService;
+import com.crus.RecipeAPI.services.ReviewService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks that creating, updating and deleting reviews keeps a recipe's
+ * persisted rating sum, count and average in step, and that the
+ * reconciliation puts drifted aggregates back.
+ */
+@SpringBootTest(classes = RecipeApiApplication.class,
+        properties = {"recipe.warmup.enabled=false", "recipe.reviews.write-behind.enabled=false"})
+@ActiveProfiles(profiles = "test")
+@Transactional
+public class RatingAggregatesTest {
+
+    private static final String PREFIX = "rating-aggregates-test";
+
+    @Autowired
+    private RecipeService recipeService;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private RecipeRepo recipeRepo;
+
+    @Autowired
+    private ReviewRepo reviewRepo;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    private CustomUserDetails reviewer;
+    private Long recipeId;
+
+    @BeforeEach
+    void setup() {
+        CustomUserDetails owner = user("owner");
+        reviewer = user("reviewer");
+        Recipe recipe = Recipe.builder()
+                .name(PREFIX + " recipe")
+                .minutesToMake(10)
+                .difficultyRating(5)
+                .submittedBy(owner.getUsername())
+                .user(owner)
+                .ingredients(new ArrayList<>(List.of(Ingredient.builder().name("egg").amount("1").build())))
+                .steps(new ArrayList<>(List.of(Step.builder().stepNumber(1).description("fry").build())))
+                .reviews(new ArrayList<>())
+                .build();
+        recipe.recomputeRatingAggregates();
+        recipeId = recipeRepo.save(recipe).getId();
+    }
+
+    private CustomUserDetails user(String name) {
+        List<Role> roles = new ArrayList<>();
+        roles.add(new Role(Role.Roles.ROLE_USER));
+        return userRepo.save(CustomUserDetails.builder()
+                .username(PREFIX + "-" + name)
+                .password("not used")
+                .userMeta(UserMeta.builder()
+                        .name(name)
+                        .email(PREFIX + "-" + name + "@example.com")
+                        .build())
+                .authorities(roles)
+                .build());
+    }
+
+    private Review review(Long id, int rating) {
+        return Review.builder()
+                .id(id)
+                .username(reviewer.getUsername())
+                .user(reviewer)
+                .rating(rating)
+                .description("rated " + rating)
+                .build();
+    }
+
+    private void assertAggregates(long sum, int count, double average) {
+        Recipe recipe = recipeRepo.findById(recipeId).orElseThrow();
+        assertThat(recipe.getRatingSum()).isEqualTo(sum);
+        assertThat(recipe.getRatingCount()).isEqualTo(count);
+        assertThat(recipe.getAverageRating()).isEqualTo(average);
+    }
+
+    @Test
+    public void testReviewWritesShiftTheAggregates() throws Exception {
+        Long first = reviewService.postNewReview(review(null, 8), recipeId).getId();
+        reviewService.postNewReview(review(null, 3), recipeId);
+        assertAggregates(11, 2, 5.5);
+
+        reviewService.updateReviewById(review(first, 4), null);
+        assertAggregates(7, 2, 3.5);
+
+        reviewService.deleteReviewById(first, null);
+        assertAggregates(3, 1, 3.0);
+        assertThat(recipeService.getAverageRating(recipeId)).isEqualTo(3.0);
+    }
+
+    @Test
+    public void testUpdateAgainstAStaleVersionIsRejected() throws Exception {
+        Review posted = reviewService.postNewReview(review(null, 8), recipeId);
+        Long readVersion = posted.getVersion();
+        reviewService.updateReviewById(review(posted.getId(), 6), readVersion);
+
+        // a second client still holding the first version
+        assertThatThrownBy(() -> reviewService.updateReviewById(review(posted.getId(), 2), readVersion))
+                .isInstanceOf(ConcurrentUpdateException.class);
+        assertAggregates(6, 1, 6.0);
+        assertThat(reviewService.getReviewById(posted.getId()).getDescription()).isEqualTo("rated 6");
+    }
+
+    @Test
+    public void testReviewWithoutRatingIsRejected() {
+        assertThatThrownBy(() -> reviewService.postNewReview(review(null, 0), recipeId))
+                .isInstanceOf(IllegalStateException.class);
+        assertAggregates(0, 0, 0.0);
+    }
+
+    @Test
+    public void testUnratedLegacyReviewsAreNotCounted() throws Exception {
+        reviewService.postNewReview(review(null, 5), recipeId);
+        // stored before ratings were validated
+        Review legacy = review(null, 0);
+        legacy.setRecipe(recipeRepo.getReferenceById(recipeId));
+        reviewRepo.saveAndFlush(legacy);
+
+        recipeService.reconcileRatingAggregates();
+        assertAggregates(5, 1, 5.0);
+        assertThat(recipeRepo.findIdsWithRatingDrift()).doesNotContain(recipeId);
+        assertThat(recipeRepo.findIdsWithUnbalancedHistogram()).doesNotContain(recipeId);
+
+        reviewService.deleteReviewById(legacy.getId(), null);
+        assertAggregates(5, 1, 5.0);
+    }
+
+    @Test
+    public void testReconciliationRepairsDriftedAggregates() throws Exception {
+        reviewService.postNewReview(review(null, 7), recipeId);
+        reviewService.postNewReview(review(null, 2), recipeId);
+        // as if a write had shifted the aggregates without its review
+        recipeRepo.adjustRatingAggregates(recipeId, new RatingHistogram().remove(7), Instant.now());
+
+        assertThat(recipeService.reconcileRatingAggregates()).isGreaterThanOrEqualTo(1);
+        assertAggregates(9, 2, 4.5);
+    }
+}
@@ -0,0 +1,53 @@
+package com.crus.RecipeAPI;
+
+import com.crus.RecipeAPI.models.RatingHistogram;
+import com.crus.RecipeAPI.models.RatingStats;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+public class RatingHistogramTest {
+
+    @Test
+    public void testStatsFromTheCounters() {
+        RatingHistogram ratings = new RatingHistogram().add(2).add(4).add(4).add(4).add(5).add(5).add(7).add(9);
+
+        RatingStats stats = RatingStats.of(7L, ratings.mean(), ratings);
+
+        assertThat(stats.count()).isEqualTo(8);
+        assertThat(stats.mean()).isEqualTo(5.0);
+        assertThat(stats.standardDeviation()).isCloseTo(2.0, within(1e-9));
+        assertThat(stats.histogram()).hasSize(10).containsEntry(4, 3).containsEntry(10, 0);
+    }
+
+    @Test
+    public void testDeltaOfAChangedRating() {
+        RatingHistogram delta = new RatingHistogram().remove(3).add(8);
+
+        assertThat(delta.count()).isZero();
+        assertThat(delta.sum()).isEqualTo(5);
+        assertThat(delta.countOf(3)).isEqualTo(-1);
+        assertThat(delta.countOf(8)).isEqualTo(1);
+    }
+
+    @Test
+    public void testEmptyAndOutOfRange() {
+        RatingHistogram ratings = new RatingHistogram();
+
+        assertThat(ratings.mean()).isZero();
+        assertThat(ratings.standardDeviation()).isZero();
+        assertThatThrownBy(() -> ratings.add(11)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ratings.add(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testUnratedReviewsAreNotCounted() {
+        RatingHistogram ratings = new RatingHistogram().add(RatingHistogram.UNRATED).add(6);
+
+        assertThat(ratings.count()).isEqualTo(1);
+        assertThat(ratings.sum()).isEqualTo(6);
+        assertThat(ratings.remove(RatingHistogram.UNRATED).count()).isEqualTo(1);
+    }
+}
@@ -5,7 +5,10 @@ import com.crus.RecipeAPI.exceptions.NoSuchRecipeException;
 import com.crus.RecipeAPI.models.*;
 
 import com.crus.RecipeAPI.repos.RecipeRepo;
+import com.crus.RecipeAPI.services.RecipeImportService;
 import com.crus.RecipeAPI.services.RecipeService;
+import com.crus.RecipeAPI.services.ResponseBodyCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 import org.junit.jupiter.api.MethodOrderer;
 import org.junit.jupiter.api.Order;
@@ -15,6 +18,8 @@ import org.junit.jupiter.api.TestMethodOrder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.MediaType;
 
 import org.springframework.security.test.context.support.WithMockUser;
@@ -27,9 +32,13 @@ import java.util.*;
 
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -37,6 +46,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 @WebMvcTest(RecipeController.class)
 @ContextConfiguration(classes = RecipeApiApplication.class)
+@Import({ResponseBodyCache.class, SimpleMeterRegistry.class})
 @AutoConfigureMockMvc
 @ActiveProfiles(profiles = "test")
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
@@ -48,6 +58,9 @@ public class RecipeControllerUnitTest {
     @MockitoBean
     RecipeRepo recipeRepo;
 
+    @MockitoBean
+    RecipeImportService recipeImportService;
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -68,9 +81,12 @@ public class RecipeControllerUnitTest {
         mockRecipe.setReviews(Collections.nCopies(1, mock(Review.class)));
         mockRecipe.setIngredients(Collections.nCopies(1, mock(Ingredient.class)));
         mockRecipe.setSteps(Collections.nCopies(1, mock(Step.class)));
+        mockRecipe.setVersion(3L);
 
-        when(recipeService.getRecipeById(anyLong()))
-                .thenReturn(mockRecipe);
+        when(recipeService.getRecipeById(anyLong(), any(ContentVersion.class)))
+                .thenReturn(RecipeDetail.of(mockRecipe));
+        when(recipeService.getRecipeVersion(anyLong()))
+                .thenReturn(ContentVersion.ofRecipe(27L, 3L, null));
 
         final long recipeId = 27;
 
@@ -83,14 +99,17 @@ public class RecipeControllerUnitTest {
                 .andExpect(jsonPath("minutesToMake").value(30))
                 .andExpect(jsonPath("reviews", hasSize(1)))
                 .andExpect(jsonPath("ingredients", hasSize(1)))
-                .andExpect(jsonPath("steps", hasSize(1)));
+                .andExpect(jsonPath("steps", hasSize(1)))
+                .andExpect(header().string("ETag", "\"27.3\""));
     }
     @WithMockUser(username = "testUser1", roles = {"USER"})
     @Test
     @Order(2)
     public void testGetRecipeByIdFailureBehavior() throws Exception {
 
-        when(recipeService.getRecipeById((long) anyLong()))
+        when(recipeService.getRecipeVersion(anyLong()))
+                .thenThrow(new NoSuchRecipeException("No recipe with ID 5000 could be found."));
+        when(recipeService.getRecipeById(anyLong(), any(ContentVersion.class)))
                 .thenThrow(new NoSuchRecipeException("No recipe with ID 5000 could be found."));
 
         final long recipeId = 5000;
@@ -128,7 +147,8 @@ public class RecipeControllerUnitTest {
                 Recipe.builder().id(5L).name("recipe 5").minutesToMake(25).difficultyRating(6).user(user5).submittedBy("user5").build()
         );
 
-        when(recipeService.getAllRecipes()).thenReturn(mockRecipes);
+        when(recipeService.getRecipePage(any(RecipeSort.class), any(Sort.Direction.class), isNull(), anyInt()))
+                .thenReturn(new RecipePage(mockRecipes.stream().map(RecipeDetail::of).toList(), null));
 
         mockMvc
                 .perform(get("/recipes"))
@@ -157,4 +177,45 @@ public class RecipeControllerUnitTest {
         recipe.setSteps(Collections.nCopies(1, mock(Step.class)));
         recipe.setReviews(Collections.nCopies(1, mock(Review.class)));
     }
-}
\ No newline at end of file
+
+    @WithMockUser(username = "testUser1", roles = {"USER"})
+    @Test
+    @Order(5)
+    public void testGetRecipeByIdNotModifiedBehavior() throws Exception {
+
+        when(recipeService.getRecipeVersion(anyLong()))
+                .thenReturn(ContentVersion.ofRecipe(27L, 3L, null));
+
+        mockMvc.perform(get("/recipes/27").header("If-None-Match", "\"27.3\""))
+                .andDo(print())
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"27.3\""))
+                .andExpect(content().string(""));
+
+        // answered from the version alone, without loading the recipe
+        verify(recipeService, never()).getRecipeById(anyLong(), any(ContentVersion.class));
+    }
+
+    @WithMockUser(username = "testUser1", roles = {"USER"})
+    @Test
+    @Order(6)
+    public void testGetRecipeByIdChangedAfterItsVersionWasRead() throws Exception {
+
+        Recipe mockRecipe = Recipe.builder().id(28L).name("toast").minutesToMake(5).difficultyRating(1)
+                .user(TestUtil.createTestUser("testUser1")).submittedBy("testUser1").build();
+        mockRecipe.setVersion(4L);
+
+        // a write committed between reading the version and the recipe
+        when(recipeService.getRecipeVersion(anyLong()))
+                .thenReturn(ContentVersion.ofRecipe(28L, 3L, null));
+        when(recipeService.getRecipeById(anyLong(), any(ContentVersion.class)))
+                .thenReturn(RecipeDetail.of(mockRecipe));
+
+        // the body is sent under its own version, not the one read first
+        mockMvc.perform(get("/recipes/28"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("version").value(4))
+                .andExpect(header().string("ETag", "\"28.4\""));
+    }
+}
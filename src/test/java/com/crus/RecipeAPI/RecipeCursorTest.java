@@ -0,0 +1,100 @@
+package com.crus.RecipeAPI;
+
+import com.crus.RecipeAPI.models.RecipeCursor;
+import com.crus.RecipeAPI.models.RecipeSort;
+import com.crus.RecipeAPI.models.RecipeSummary;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class RecipeCursorTest {
+
+    private static RecipeSummary summary(long id, int minutesToMake, int difficultyRating, double averageRating) {
+        return new RecipeSummary(id, "recipe " + id, minutesToMake, difficultyRating,
+                "chef", "chef", averageRating, 1L, null);
+    }
+
+    private static String token(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testEveryOrderingRoundTrips() {
+        RecipeSummary recipe = summary(42, 35, 7, 6.5);
+        for (RecipeSort sort : RecipeSort.values()) {
+            for (Sort.Direction direction : Sort.Direction.values()) {
+                RecipeCursor cursor = RecipeCursor.of(recipe, sort, direction);
+
+                assertThat(RecipeCursor.decode(cursor.encode())).isEqualTo(cursor);
+            }
+        }
+    }
+
+    @Test
+    public void testAverageRatingKeepsEveryBit() {
+        // neither is exact in binary; any rounding in the token would make
+        // the next page's "= :key" miss the ties
+        for (double average : new double[]{10.0 / 3, 0.1 + 0.2, 7.0 / 9}) {
+            RecipeCursor cursor = RecipeCursor.of(summary(1, 10, 1, average),
+                    RecipeSort.AVERAGE_RATING, Sort.Direction.DESC);
+
+            RecipeCursor decoded = RecipeCursor.decode(cursor.encode());
+
+            assertThat(decoded.key()).isInstanceOf(Double.class);
+            assertThat(Double.doubleToLongBits((Double) decoded.key()))
+                    .isEqualTo(Double.doubleToLongBits(average));
+        }
+    }
+
+    @Test
+    public void testTokensAreUrlSafe() {
+        String token = RecipeCursor.of(summary(Long.MAX_VALUE, 10, 1, 10.0 / 3),
+                RecipeSort.AVERAGE_RATING, Sort.Direction.DESC).encode();
+
+        assertThat(token).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    public void testMalformedTokensAreRejected() {
+        for (String token : new String[]{
+                "not a cursor!",
+                token("minutesToMake|ASC|10"),
+                token("minutesToMake|ASC|10|7|extra"),
+                token("calories|ASC|10|7"),
+                token("minutesToMake|SIDEWAYS|10|7"),
+                token("minutesToMake|ASC|ten|7"),
+                token("averageRating|DESC|4.5|seven")}) {
+            assertThatThrownBy(() -> RecipeCursor.decode(token))
+                    .as(token)
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Malformed page cursor.");
+        }
+    }
+
+    @Test
+    public void testPrecedesBreaksTiesOnTheId() {
+        RecipeCursor cursor = RecipeCursor.of(summary(5, 20, 3, 4.0), RecipeSort.MINUTES_TO_MAKE, Sort.Direction.ASC);
+
+        assertThat(cursor.precedes(summary(6, 20, 9, 1.0))).isTrue();
+        assertThat(cursor.precedes(summary(4, 20, 9, 1.0))).isFalse();
+        assertThat(cursor.precedes(summary(5, 20, 3, 4.0))).isFalse();
+        assertThat(cursor.precedes(summary(1, 21, 3, 4.0))).isTrue();
+        assertThat(cursor.precedes(summary(9, 19, 3, 4.0))).isFalse();
+    }
+
+    @Test
+    public void testPrecedesFollowsADescendingOrder() {
+        RecipeCursor cursor = RecipeCursor.of(summary(5, 20, 3, 10.0 / 3),
+                RecipeSort.AVERAGE_RATING, Sort.Direction.DESC);
+
+        assertThat(cursor.precedes(summary(4, 20, 3, 10.0 / 3))).isTrue();
+        assertThat(cursor.precedes(summary(6, 20, 3, 10.0 / 3))).isFalse();
+        assertThat(cursor.precedes(summary(1, 20, 3, 3.0))).isTrue();
+        assertThat(cursor.precedes(summary(9, 20, 3, 3.5))).isFalse();
+    }
+}
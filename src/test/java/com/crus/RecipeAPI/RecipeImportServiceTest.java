@@ -0,0 +1,200 @@
+package com.crus.RecipeAPI;
+
+import com.crus.RecipeAPI.models.BulkImportResult;
+import com.crus.RecipeAPI.models.CustomUserDetails;
+import com.crus.RecipeAPI.models.ImportError;
+import com.crus.RecipeAPI.models.Recipe;
+import com.crus.RecipeAPI.models.Role;
+import com.crus.RecipeAPI.models.UserMeta;
+import com.crus.RecipeAPI.repos.RecipeRepo;
+import com.crus.RecipeAPI.repos.UserRepo;
+import com.crus.RecipeAPI.services.RecipeIdSequenceInitializer;
+import com.crus.RecipeAPI.services.RecipeImportService;
+import com.crus.RecipeAPI.services.RecipeService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Imports a stream mixing valid and invalid recipes and checks what was
+ * counted, reported and stored. The chunk size is small enough for a bad row
+ * to roll back a chunk of good ones, which the row-by-row retry must save.
+ * <p>
+ * Not transactional: every chunk commits in its own transaction, so the
+ * imported recipes are deleted after every test.
+ */
+@SpringBootTest(classes = RecipeApiApplication.class,
+        properties = {"recipe.warmup.enabled=false", "recipe.bulk-import.chunk-size=3"})
+@ActiveProfiles(profiles = "test")
+public class RecipeImportServiceTest {
+
+    private static final String PREFIX = "bulk-import-test";
+
+    @Autowired
+    private RecipeImportService recipeImportService;
+
+    @Autowired
+    private RecipeIdSequenceInitializer recipeIdSequenceInitializer;
+
+    @Autowired
+    private RecipeService recipeService;
+
+    @Autowired
+    private RecipeRepo recipeRepo;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private CustomUserDetails importer;
+
+    @BeforeEach
+    void setup() {
+        List<Role> roles = new ArrayList<>();
+        roles.add(new Role(Role.Roles.ROLE_USER));
+        importer = userRepo.save(CustomUserDetails.builder()
+                .username(PREFIX + "-importer")
+                .password("not used")
+                .userMeta(UserMeta.builder()
+                        .name("importer")
+                        .email(PREFIX + "-importer@example.com")
+                        .build())
+                .authorities(roles)
+                .build());
+    }
+
+    @AfterEach
+    void teardown() throws Exception {
+        for (Long id : recipeRepo.findIdsByNameContaining(PREFIX)) {
+            recipeService.deleteRecipeById(id, null);
+        }
+        userRepo.delete(importer);
+    }
+
+    private static String recipe(String name, String ingredients, String reviews) {
+        return "{\"name\": " + name + ", \"minutesToMake\": 20, \"difficultyRating\": 4, "
+                + "\"ingredients\": " + ingredients + ", "
+                + "\"steps\": [{\"stepNumber\": 1, \"description\": \"mix\"}], "
+                + "\"reviews\": " + reviews + "}";
+    }
+
+    private static String valid(String name) {
+        return recipe("\"" + PREFIX + " " + name + "\"", "[{\"name\": \"flour\", \"amount\": \"1 cup\"}]", "[]");
+    }
+
+    private BulkImportResult importLines(String... lines) throws Exception {
+        byte[] ndjson = String.join("\n", lines).getBytes(StandardCharsets.UTF_8);
+        return recipeImportService.importRecipes(new ByteArrayInputStream(ndjson), importer);
+    }
+
+    private List<Recipe> imported() {
+        // entities with their collections, read the way a fresh request would
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            List<Recipe> recipes = recipeRepo.findAllById(recipeRepo.findIdsByNameContaining(PREFIX));
+            recipes.forEach(recipe -> {
+                recipe.getIngredients().size();
+                recipe.getSteps().size();
+                recipe.getReviews().size();
+            });
+            return recipes;
+        });
+    }
+
+    @Test
+    public void testMixedStreamImportsTheValidRecipesOnly() throws Exception {
+        BulkImportResult result = importLines(
+                recipe("\"" + PREFIX + " reviewed\"", "[{\"name\": \"egg\", \"amount\": \"2\"}]",
+                        "[{\"username\": \"someone\", \"rating\": 8, \"description\": \"good\"}]"),
+                valid("plain"),
+                // no ingredients
+                recipe("\"" + PREFIX + " empty\"", "[]", "[]"),
+                // not a recipe
+                "{\"name\": \"" + PREFIX + " typo\", \"minutesToMake\": \"soon\"}",
+                // passes the checks, fails the NOT NULL name column and takes
+                // the two recipes before it down with its chunk
+                recipe("null", "[{\"name\": \"salt\", \"amount\": \"1 pinch\"}]", "[]"),
+                // ingredient without an amount
+                recipe("\"" + PREFIX + " unmeasured\"", "[{\"name\": \"salt\"}]", "[]"),
+                valid("third"),
+                valid("fourth"));
+
+        assertThat(result.imported()).isEqualTo(4);
+        assertThat(result.failed()).isEqualTo(4);
+        assertThat(result.errorsTruncated()).isFalse();
+        assertThat(result.errors()).extracting(ImportError::index).containsExactly(2L, 3L, 4L, 5L);
+        assertThat(result.errors()).allSatisfy(error -> assertThat(error.message()).isNotBlank());
+        assertThat(result.errors().get(0).message()).contains("ingredient");
+        assertThat(result.errors().get(3).message()).contains("amount");
+
+        List<Recipe> recipes = imported();
+        assertThat(recipes).extracting(Recipe::getName).containsExactlyInAnyOrder(
+                PREFIX + " reviewed", PREFIX + " plain", PREFIX + " third", PREFIX + " fourth");
+        assertThat(recipes).allSatisfy(recipe -> {
+            assertThat(recipe.getUser().getUsername()).isEqualTo(importer.getUsername());
+            assertThat(recipe.getIngredients()).hasSize(1);
+            assertThat(recipe.getSteps()).hasSize(1);
+        });
+        Recipe reviewed = recipes.stream()
+                .filter(recipe -> recipe.getName().endsWith("reviewed"))
+                .findFirst().orElseThrow();
+        assertThat(reviewed.getReviews()).singleElement()
+                .satisfies(review -> assertThat(review.getAuthor()).isEqualTo(importer.getUsername()));
+        assertThat(reviewed.getRatingSum()).isEqualTo(8);
+        assertThat(reviewed.getRatingCount()).isEqualTo(1);
+        assertThat(reviewed.getAverageRating()).isEqualTo(8.0);
+    }
+
+    @Test
+    public void testMalformedJsonStopsTheImport() throws Exception {
+        BulkImportResult result = importLines(valid("before"), "{\"name\": ]", valid("after"));
+
+        assertThat(result.imported()).isEqualTo(1);
+        assertThat(result.errors()).singleElement().satisfies(error -> {
+            assertThat(error.index()).isEqualTo(1);
+            assertThat(error.message()).startsWith("Malformed JSON, import stopped here");
+        });
+        assertThat(imported()).extracting(Recipe::getName).containsExactly(PREFIX + " before");
+    }
+
+    @Test
+    public void testSequenceIsMovedPastExistingIds() throws Exception {
+        importLines(valid("existing"));
+        long maxId = jdbcTemplate.queryForObject("select max(id) from recipe", Long.class);
+        long nextVal = jdbcTemplate.queryForObject("select next_val from recipe_seq", Long.class);
+        try {
+            // as left behind by the AUTO_INCREMENT days
+            jdbcTemplate.update("update recipe_seq set next_val = 1");
+
+            recipeIdSequenceInitializer.alignWithExistingIds();
+
+            assertThat(jdbcTemplate.queryForObject("select next_val from recipe_seq", Long.class))
+                    .isEqualTo(maxId + Recipe.ID_ALLOCATION_SIZE);
+        } finally {
+            // the generator of this context holds a block handed out before
+            jdbcTemplate.update("update recipe_seq set next_val = ?", nextVal);
+        }
+
+        // already past the existing ids: left alone
+        recipeIdSequenceInitializer.alignWithExistingIds();
+        assertThat(jdbcTemplate.queryForObject("select next_val from recipe_seq", Long.class))
+                .isEqualTo(nextVal);
+    }
+}
@@ -0,0 +1,52 @@
+package com.crus.RecipeAPI;
+
+import com.crus.RecipeAPI.services.RecipeIngredientIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RecipeIngredientIndexTest {
+
+    private RecipeIngredientIndex index;
+
+    @BeforeEach
+    void setup() {
+        index = new RecipeIngredientIndex();
+        index.index(1L, List.of("flour"));
+        index.index(2L, List.of("Brown Sugar"));
+        index.index(3L, List.of("potato chips", "chocolate"));
+        index.index(4L, List.of("flour", "eggs", "milk"));
+    }
+
+    @Test
+    public void testFindsRecipesThatCanBeFullyMade() {
+        Map<Long, List<String>> cookable =
+                index.findCookable(List.of("flour", " brown  sugar", "chocolate"), 0);
+
+        assertThat(cookable.keySet()).containsExactly(1L, 2L);
+        assertThat(cookable.get(1L)).isEmpty();
+    }
+
+    @Test
+    public void testAllowsMissingIngredients() {
+        Map<Long, List<String>> cookable = index.findCookable(List.of("flour", "eggs"), 1);
+
+        // fewest missing first, then by id
+        assertThat(cookable.keySet()).containsExactly(1L, 2L, 4L);
+        assertThat(cookable.get(2L)).containsExactly("brown sugar");
+        assertThat(cookable.get(4L)).containsExactly("milk");
+    }
+
+    @Test
+    public void testUpdatesAndRemovalsAreReflected() {
+        index.index(3L, List.of("chocolate"));
+        index.remove(1L);
+
+        assertThat(index.findCookable(List.of("flour", "chocolate"), 0).keySet())
+                .containsExactly(3L);
+    }
+}
@@ -0,0 +1,59 @@
+package com.crus.RecipeAPI;
+
+import com.crus.RecipeAPI.models.TopRecipe;
+import com.crus.RecipeAPI.services.RecipeLeaderboard;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RecipeLeaderboardTest {
+
+    private RecipeLeaderboard leaderboard;
+
+    @BeforeEach
+    void setup() {
+        leaderboard = new RecipeLeaderboard();
+        leaderboard.index(1L, "toast", 1, 8, 2);
+        leaderboard.index(2L, "souffle", 9, 27, 3);
+        leaderboard.index(3L, "cookies", 3, 12, 3);
+        leaderboard.index(4L, "pancakes", 3, 4, 1);
+    }
+
+    @Test
+    public void testRanksByAverageThenReviewCount() {
+        // 3 and 4 both average 4.0; 3 has more reviews
+        assertThat(leaderboard.top(10, 0, 10))
+                .extracting(TopRecipe::id)
+                .containsExactly(2L, 3L, 4L, 1L);
+    }
+
+    @Test
+    public void testFiltersByDifficultyBandAndLimit() {
+        assertThat(leaderboard.top(1, 2, 5))
+                .extracting(TopRecipe::id)
+                .containsExactly(3L);
+    }
+
+    @Test
+    public void testRatingDeltasAndRemovalsAreReflected() {
+        leaderboard.applyRatingDelta(1L, 10, 1);
+        leaderboard.describe(1L, "toast", 10);
+        leaderboard.remove(2L);
+
+        assertThat(leaderboard.top(10, 0, 10))
+                .extracting(TopRecipe::id)
+                .containsExactly(1L, 3L, 4L);
+        assertThat(leaderboard.top(10, 10, 10).get(0).averageRating()).isEqualTo(6.0);
+    }
+
+    @Test
+    public void testRenameKeepsTheRecipeRanked() {
+        leaderboard.describe(3L, "oat cookies", 3);
+
+        assertThat(leaderboard.top(10, 0, 10))
+                .extracting(TopRecipe::id)
+                .containsExactly(2L, 3L, 4L, 1L);
+        assertThat(leaderboard.top(1, 3, 3).get(0).name()).isEqualTo("oat cookies");
+    }
+}
@@ -0,0 +1,57 @@
+package com.crus.RecipeAPI;
+
+import com.crus.RecipeAPI.services.RecipeNameIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RecipeNameIndexTest {
+
+    private RecipeNameIndex index;
+
+    @BeforeEach
+    void setup() {
+        index = new RecipeNameIndex();
+        index.index(1L, "test recipe", "bob");
+        index.index(2L, "another test recipe", "Sally");
+        index.index(3L, "another another test recipe", "Mark");
+        index.index(4L, "chocolate and potato chips", "Billy");
+    }
+
+    @Test
+    public void testSearchMatchesWordPrefixes() {
+        assertThat(index.search("recipe", null)).containsExactlyInAnyOrder(1L, 2L, 3L);
+        assertThat(index.search("pot", null)).containsExactly(4L);
+        assertThat(index.search("should not exist", null)).isEmpty();
+    }
+
+    @Test
+    public void testSearchRanksShorterNamesFirst() {
+        // same term frequency, so BM25 length normalisation decides
+        assertThat(index.search("test recipe", null)).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    public void testSearchRequiresEveryQueryWord() {
+        assertThat(index.search("chocolate recipe", null)).isEmpty();
+        assertThat(index.search("Chocolate, CHIPS", null)).containsExactly(4L);
+    }
+
+    @Test
+    public void testSearchFiltersBySubmitter() {
+        assertThat(index.search("recipe", "sally")).containsExactly(2L);
+    }
+
+    @Test
+    public void testUpdatesAndRemovalsAreReflected() {
+        index.index(4L, "potato recipe", "Billy");
+        index.remove(1L);
+
+        List<Long> results = index.search("recipe", null);
+        assertThat(results).containsExactlyInAnyOrder(2L, 3L, 4L);
+        assertThat(index.search("chocolate", null)).isEmpty();
+    }
+}
@@ -0,0 +1,205 @@
+package com.crus.RecipeAPI;
+
+import com.crus.RecipeAPI.models.*;
+import com.crus.RecipeAPI.repos.RecipeRepo;
+import com.crus.RecipeAPI.repos.UserRepo;
+import com.crus.RecipeAPI.services.ResponseBodyCache;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Walks GET /recipes and the keyset query behind it page by page, over
+ * recipes that tie on every sort key but the id, and checks that no recipe
+ * is skipped or repeated and that the last page says so.
+ */
+@SpringBootTest(classes = RecipeApiApplication.class,
+        properties = {"recipe.warmup.enabled=false", "recipe.reviews.write-behind.enabled=false"})
+@AutoConfigureMockMvc
+@ActiveProfiles(profiles = "test")
+@Transactional
+public class RecipePagingTest {
+
+    private static final String PREFIX = "paging-test";
+
+    // keeps a broken cursor from walking forever
+    private static final int MAX_PAGES = 1000;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RecipeRepo recipeRepo;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private ResponseBodyCache responseBodyCache;
+
+    @Autowired
+    private org.ehcache.CacheManager cacheManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final List<Long> recipeIds = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        List<Role> roles = new ArrayList<>();
+        roles.add(new Role(Role.Roles.ROLE_USER));
+        CustomUserDetails owner = userRepo.save(CustomUserDetails.builder()
+                .username(PREFIX + "-owner")
+                .password("not used")
+                .userMeta(UserMeta.builder()
+                        .name("owner")
+                        .email(PREFIX + "-owner@example.com")
+                        .build())
+                .authorities(roles)
+                .build());
+
+        // three ties per key, and an average that is not exact in binary
+        int[] minutes = {15, 15, 15, 30, 30, 30, 45};
+        int[] difficulties = {2, 2, 2, 2, 7, 7, 7};
+        long[] ratingSums = {10, 10, 10, 0, 0, 9, 9};
+        int[] ratingCounts = {3, 3, 3, 0, 0, 2, 2};
+        for (int i = 0; i < minutes.length; i++) {
+            Recipe recipe = Recipe.builder()
+                    .name(PREFIX + " recipe " + i)
+                    .minutesToMake(minutes[i])
+                    .difficultyRating(difficulties[i])
+                    .submittedBy(owner.getUsername())
+                    .user(owner)
+                    .ingredients(new ArrayList<>(List.of(Ingredient.builder().name("egg").amount("1").build())))
+                    .steps(new ArrayList<>(List.of(Step.builder().stepNumber(1).description("fry").build())))
+                    .reviews(new ArrayList<>())
+                    .build();
+            recipe.recomputeRatingAggregates();
+            recipe.applyRatingDelta(ratingSums[i], ratingCounts[i]);
+            recipeIds.add(recipeRepo.save(recipe).getId());
+        }
+        recipeRepo.flush();
+        clearCaches();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        clearCaches();
+    }
+
+    private void clearCaches() {
+        // the test data is rolled back, so nothing cached from it may survive
+        responseBodyCache.clear();
+        cacheManager.getCache("recipeById", Long.class, RecipeDetail.class).clear();
+        cacheManager.getCache("allRecipesCache", String.class, RecipePageKeys.class).clear();
+    }
+
+    private static String token(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<RecipeSummary> walkRepository(RecipeSort sort, Sort.Direction direction, int limit) {
+        List<RecipeSummary> walked = new ArrayList<>();
+        RecipeCursor after = null;
+        for (int pages = 0; pages < MAX_PAGES; pages++) {
+            List<RecipeSummary> page = recipeRepo.findSummaryPage(sort, direction, after, limit);
+            walked.addAll(page);
+            if (page.size() < limit) {
+                return walked;
+            }
+            after = RecipeCursor.of(page.get(page.size() - 1), sort, direction);
+        }
+        throw new AssertionError("Paging " + sort + " " + direction + " did not end");
+    }
+
+    @Test
+    public void testKeysetPagesNeitherSkipNorRepeat() {
+        for (RecipeSort sort : RecipeSort.values()) {
+            for (Sort.Direction direction : Sort.Direction.values()) {
+                List<RecipeSummary> walked = walkRepository(sort, direction, 2);
+                List<Long> ids = walked.stream().map(RecipeSummary::id).toList();
+
+                assertThat(ids).as("%s %s", sort, direction).doesNotHaveDuplicates().containsAll(recipeIds);
+                assertThat(walked).as("%s %s", sort, direction).isSortedAccordingTo(sort.comparator(direction));
+            }
+        }
+    }
+
+    @Test
+    @WithMockUser(username = "testuser1", roles = {"USER"})
+    public void testWalkingTheEndpointVisitsEveryRecipeOnce() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        String after = null;
+        for (int pages = 0; pages < MAX_PAGES; pages++) {
+            var request = get("/recipes").param("sort", "minutesToMake").param("limit", "2");
+            if (after != null) {
+                request.param("after", after);
+            }
+            MockHttpServletResponse response = mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse();
+            for (JsonNode recipe : objectMapper.readTree(response.getContentAsString())) {
+                ids.add(recipe.get("id").asLong());
+            }
+
+            after = response.getHeader("X-Next-Cursor");
+            if (after == null) {
+                // the last page points nowhere
+                assertThat(response.getHeader(HttpHeaders.LINK)).isNull();
+                break;
+            }
+            assertThat(response.getHeader(HttpHeaders.LINK))
+                    .contains("after=" + after)
+                    .contains("sort=minutesToMake")
+                    .endsWith("; rel=\"next\"");
+        }
+
+        assertThat(after).as("last page reached").isNull();
+        assertThat(ids).doesNotHaveDuplicates().containsAll(recipeIds);
+    }
+
+    @Test
+    @WithMockUser(username = "testuser1", roles = {"USER"})
+    public void testMalformedOrTamperedCursorsAreRejected() throws Exception {
+        String issuedForMinutes = RecipeCursor.of(
+                recipeRepo.findSummariesById(recipeIds.subList(0, 1)).get(0),
+                RecipeSort.MINUTES_TO_MAKE, Sort.Direction.ASC).encode();
+
+        for (String after : new String[]{
+                "not a cursor!",
+                token("minutesToMake|ASC|fifteen|1"),
+                token("minutesToMake|ASC|15"),
+                token("calories|ASC|15|1")}) {
+            mockMvc.perform(get("/recipes").param("sort", "minutesToMake").param("after", after))
+                    .andExpect(status().isBadRequest());
+        }
+        // a valid cursor replayed against another ordering
+        mockMvc.perform(get("/recipes").param("sort", "difficultyRating").param("after", issuedForMinutes))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/recipes").param("sort", "minutesToMake").param("direction", "desc")
+                        .param("after", issuedForMinutes))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,96 @@
+package com.crus.RecipeAPI;
+
+import com.crus.RecipeAPI.models.Ingredient;
+import com.crus.RecipeAPI.models.Recipe;
+import com.crus.RecipeAPI.models.Step;
+import com.crus.RecipeAPI.services.RecipePatcher;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class RecipePatcherTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final RecipePatcher recipePatcher = new RecipePatcher(objectMapper);
+
+    private Recipe storedRecipe() {
+        return Recipe.builder()
+                .id(7L)
+                .name("soup")
+                .minutesToMake(30)
+                .difficultyRating(3)
+                .submittedBy("bob")
+                .ingredients(new ArrayList<>(List.of(
+                        Ingredient.builder().id(1L).name("onion").amount("1").build(),
+                        Ingredient.builder().id(2L).name("water").amount("1l").build())))
+                .steps(new ArrayList<>(List.of(
+                        Step.builder().id(3L).stepNumber(1).description("chop the onion").build(),
+                        Step.builder().id(4L).stepNumber(2).description("boil").build())))
+                .build();
+    }
+
+    @Test
+    public void testMergePatchKeepsUntouchedChildrenInPlace() throws Exception {
+        Recipe recipe = storedRecipe();
+        Step chop = List.copyOf(recipe.getSteps()).get(0);
+        Step boil = List.copyOf(recipe.getSteps()).get(1);
+
+        recipePatcher.applyMergePatch(recipe, objectMapper.readTree("""
+                {"name": "onion soup",
+                 "steps": [{"id": 3, "description": "dice the onion"}, {"id": 4}]}"""));
+
+        assertThat(recipe.getName()).isEqualTo("onion soup");
+        assertThat(recipe.getSteps()).containsExactly(chop, boil);
+        assertThat(chop.getDescription()).isEqualTo("dice the onion");
+        assertThat(chop.getStepNumber()).isEqualTo(1);
+        assertThat(boil.getDescription()).isEqualTo("boil");
+        assertThat(recipe.getIngredients()).hasSize(2);
+        assertThat(recipe.getUpdatedAt()).isNotNull();
+    }
+
+    @Test
+    public void testMergePatchAddsAndRemovesChildren() throws Exception {
+        Recipe recipe = storedRecipe();
+
+        recipePatcher.applyMergePatch(recipe, objectMapper.readTree("""
+                {"ingredients": [{"id": 1}, {"name": "salt", "amount": "a pinch"}]}"""));
+
+        assertThat(recipe.getIngredients()).extracting(Ingredient::getName).containsExactly("onion", "salt");
+        assertThat(recipe.getIngredients()).extracting(Ingredient::getId).containsExactly(1L, null);
+    }
+
+    @Test
+    public void testUnchangedPatchLeavesTheRecipeClean() throws Exception {
+        Recipe recipe = storedRecipe();
+
+        recipePatcher.applyMergePatch(recipe, objectMapper.readTree("""
+                {"name": "soup", "steps": [{"id": 3}, {"id": 4, "description": "boil"}]}"""));
+
+        assertThat(recipe.getUpdatedAt()).isNull();
+    }
+
+    @Test
+    public void testMergePatchRejectsInvalidChanges() throws Exception {
+        Recipe recipe = storedRecipe();
+
+        assertThatThrownBy(() -> recipePatcher.applyMergePatch(recipe,
+                objectMapper.readTree("{\"steps\": [{\"id\": 99}]}")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> recipePatcher.applyMergePatch(recipe,
+                objectMapper.readTree("{\"minutesToMake\": null}")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> recipePatcher.applyMergePatch(recipe,
+                objectMapper.readTree("{\"reviews\": []}")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> recipePatcher.applyMergePatch(recipe,
+                objectMapper.readTree("{\"steps\": null}")))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(recipe.getSteps()).hasSize(2);
+        assertThat(recipe.getMinutesToMake()).isEqualTo(30);
+    }
+}
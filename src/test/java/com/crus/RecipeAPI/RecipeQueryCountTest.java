@@ -0,0 +1,174 @@
+package com.crus.RecipeAPI;
+
+import com.crus.RecipeAPI.models.*;
+import com.crus.RecipeAPI.repos.RecipeRepo;
+import com.crus.RecipeAPI.repos.UserRepo;
+import com.crus.RecipeAPI.services.RecipeNameIndex;
+import com.crus.RecipeAPI.services.RecipeService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the recipe list paths load a result with a fixed number of
+ * queries, independent of how many recipes, ingredients, steps, reviews and
+ * owners it spans, and without loading a single entity into the session.
+ * Serialisation is included since that is where lazy collections used to be
+ * initialised one recipe at a time.
+ */
+@SpringBootTest(classes = RecipeApiApplication.class,
+        // the startup warmup would run its own queries while these are counted
+        properties = {"spring.jpa.properties.hibernate.generate_statistics=true", "recipe.warmup.enabled=false"})
+@ActiveProfiles(profiles = "test")
+@Transactional
+public class RecipeQueryCountTest {
+
+    private static final int RECIPES = 40;
+    private static final int USERS = 8;
+    private static final String SUBMITTER = "query-count-test";
+
+    // one for the matching ids, one for the recipe rows with their owners and
+    // one per collection, each of the latter joining the authors it needs
+    private static final long MAX_QUERIES = 5;
+
+    @Autowired
+    private RecipeService recipeService;
+
+    @Autowired
+    private RecipeRepo recipeRepo;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private RecipeNameIndex recipeNameIndex;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private org.ehcache.CacheManager cacheManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final List<Long> recipeIds = new ArrayList<>();
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setup() {
+        List<CustomUserDetails> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            List<Role> roles = new ArrayList<>();
+            roles.add(new Role(Role.Roles.ROLE_USER));
+            users.add(userRepo.save(CustomUserDetails.builder()
+                    .username(SUBMITTER + "-user-" + i)
+                    .password("not used")
+                    .userMeta(UserMeta.builder()
+                            .name("Query Count " + i)
+                            .email(SUBMITTER + i + "@example.com")
+                            .build())
+                    .authorities(roles)
+                    .build()));
+        }
+
+        for (int i = 0; i < RECIPES; i++) {
+            List<Ingredient> ingredients = new ArrayList<>();
+            List<Step> steps = new ArrayList<>();
+            List<Review> reviews = new ArrayList<>();
+            for (int j = 0; j < 3; j++) {
+                ingredients.add(Ingredient.builder().name("ingredient " + j).amount("1 cup").build());
+                steps.add(Step.builder().stepNumber(j + 1).description("step " + j).build());
+                CustomUserDetails reviewer = users.get((i + j) % USERS);
+                reviews.add(Review.builder()
+                        .username(reviewer.getUsername())
+                        .rating(1 + (i + j) % 10)
+                        .description("review " + j)
+                        .user(reviewer)
+                        .build());
+            }
+            Recipe recipe = Recipe.builder()
+                    .name("querycount recipe " + i)
+                    .minutesToMake(10)
+                    .difficultyRating(5)
+                    .submittedBy(SUBMITTER)
+                    .user(users.get(i % USERS))
+                    .ingredients(ingredients)
+                    .steps(steps)
+                    .reviews(reviews)
+                    .build();
+            recipe.attachReviews();
+            recipe.recomputeRatingAggregates();
+            recipe = recipeRepo.save(recipe);
+            recipeIds.add(recipe.getId());
+            // the index is only updated after commit, which never comes here
+            recipeNameIndex.index(recipe.getId(), recipe.getName(), recipe.getSubmittedBy());
+        }
+
+        // start from an empty persistence context and cold caches, as a request would
+        entityManager.flush();
+        entityManager.clear();
+        clearCaches();
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        recipeIds.forEach(recipeNameIndex::remove);
+        clearCaches();
+    }
+
+    private void clearCaches() {
+        // the test data is rolled back, so nothing cached from it may survive
+        cacheManager.getCache("recipeById", Long.class, RecipeDetail.class).clear();
+        cacheManager.getCache("allRecipesCache", String.class, RecipePageKeys.class).clear();
+        cacheManager.getCache("recipeSearch", String.class, RecipeSearch.class).clear();
+    }
+
+    @Test
+    public void testGetRecipesByUserRunsFixedNumberOfQueries() throws Exception {
+        List<RecipeDetail> recipes = recipeService.getRecipesByUser(SUBMITTER);
+        objectMapper.writeValueAsString(recipes);
+
+        assertThat(recipes).hasSize(RECIPES);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(MAX_QUERIES);
+        assertThat(entityManager.unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+    }
+
+    @Test
+    public void testGetRecipesByNameAndMinRatingRunsFixedNumberOfQueries() throws Exception {
+        List<RecipeDetail> recipes = recipeService.getRecipesByNameAndMinRating("querycount", 0.0);
+        objectMapper.writeValueAsString(recipes);
+
+        assertThat(recipes).hasSize(RECIPES);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(MAX_QUERIES);
+        assertThat(entityManager.unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+    }
+
+    @Test
+    public void testGetRecipePageRunsFixedNumberOfQueries() throws Exception {
+        RecipePage page = recipeService.getRecipePage(RecipeSort.ID, Sort.Direction.DESC, null, RECIPES);
+        objectMapper.writeValueAsString(page.recipes());
+
+        assertThat(page.recipes()).hasSize(RECIPES);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(MAX_QUERIES);
+        assertThat(entityManager.unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+    }
+}
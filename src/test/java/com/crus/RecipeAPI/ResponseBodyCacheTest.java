@@ -0,0 +1,75 @@
+package com.crus.RecipeAPI;
+
+import com.crus.RecipeAPI.services.ResponseBodyCache;
+import com.crus.RecipeAPI.services.ResponseBodyCache.Membership;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ResponseBodyCacheTest {
+
+    private ResponseBodyCache cache;
+
+    @BeforeEach
+    void setup() {
+        cache = new ResponseBodyCache(new ObjectMapper(), new SimpleMeterRegistry(), DataSize.ofBytes(400), false);
+    }
+
+    private void put(String key, Membership membership, Long... recipeIds) {
+        cache.put(key, cache.stamp(), List.of(key), List.of(recipeIds), membership, null);
+    }
+
+    @Test
+    public void testServesTheSerialisedBody() {
+        put("recipe", Membership.FIXED, 1L);
+
+        assertThat(new String(cache.get("recipe").json(), StandardCharsets.UTF_8)).isEqualTo("[\"recipe\"]");
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsedBeyondTheByteBudget() {
+        String big = "x".repeat(90);
+        for (int i = 0; i < 4; i++) {
+            cache.put("body" + i, cache.stamp(), big, List.of(), Membership.FIXED, null);
+        }
+        cache.get("body0");
+        cache.put("body4", cache.stamp(), big, List.of(), Membership.FIXED, null);
+
+        assertThat(cache.get("body0")).isNotNull();
+        assertThat(cache.get("body1")).isNull();
+        assertThat(cache.get("body4")).isNotNull();
+    }
+
+    @Test
+    public void testRecipeAndRatingChangesDropWhatDependsOnThem() {
+        put("recipe1", Membership.FIXED, 1L);
+        put("recipe2", Membership.FIXED, 2L);
+        put("search", Membership.CATALOGUE, 2L);
+        put("byRating", Membership.RATINGS, 2L);
+
+        cache.ratingChanged(1L);
+        assertThat(cache.get("recipe1")).isNull();
+        assertThat(cache.get("search")).isNotNull();
+        assertThat(cache.get("byRating")).isNull();
+
+        cache.recipeChanged(3L);
+        assertThat(cache.get("recipe2")).isNotNull();
+        assertThat(cache.get("search")).isNull();
+    }
+
+    @Test
+    public void testDoesNotCacheABodyBuiltAcrossAnInvalidation() {
+        long stamp = cache.stamp();
+        cache.recipeChanged(1L);
+        cache.put("recipe", stamp, "stale", List.of(1L), Membership.FIXED, null);
+
+        assertThat(cache.get("recipe")).isNull();
+    }
+}
@@ -0,0 +1,206 @@
+package com.crus.RecipeAPI;
+
+import com.crus.RecipeAPI.models.CustomUserDetails;
+import com.crus.RecipeAPI.models.Ingredient;
+import com.crus.RecipeAPI.models.Recipe;
+import com.crus.RecipeAPI.models.Review;
+import com.crus.RecipeAPI.models.Role;
+import com.crus.RecipeAPI.models.Step;
+import com.crus.RecipeAPI.models.UserMeta;
+import com.crus.RecipeAPI.repos.RecipeRepo;
+import com.crus.RecipeAPI.repos.ReviewRepo;
+import com.crus.RecipeAPI.repos.UserRepo;
+import com.crus.RecipeAPI.services.RecipeService;
+import com.crus.RecipeAPI.services.ReviewService;
+import com.crus.RecipeAPI.services.ReviewWriteBehind;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks that reviews queued for write-behind end up in the database with the
+ * recipe's aggregates moved, that their author's reads wait for them, and
+ * that nothing queued is lost to a bad review or a shutdown.
+ * <p>
+ * Not transactional: the writer thread commits its own transactions, so the
+ * rows are deleted after every test. The long delay keeps reviews queued
+ * until something flushes them.
+ */
+@SpringBootTest(classes = RecipeApiApplication.class,
+        properties = {"recipe.warmup.enabled=false",
+                "recipe.reviews.write-behind.enabled=true",
+                "recipe.reviews.write-behind.max-delay=PT1M"})
+@AutoConfigureMockMvc
+@ActiveProfiles(profiles = "test")
+public class ReviewWriteBehindTest {
+
+    private static final String PREFIX = "write-behind-test";
+
+    // a recipe deleted after its review was queued
+    private static final Long MISSING_RECIPE_ID = Long.MAX_VALUE;
+
+    @Autowired
+    private ReviewWriteBehind reviewWriteBehind;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private RecipeService recipeService;
+
+    @Autowired
+    private RecipeRepo recipeRepo;
+
+    @Autowired
+    private ReviewRepo reviewRepo;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private CustomUserDetails owner;
+    private CustomUserDetails reviewer;
+    private Long recipeId;
+
+    @BeforeEach
+    void setup() {
+        owner = user("owner");
+        reviewer = user("reviewer");
+        Recipe recipe = Recipe.builder()
+                .name(PREFIX + " recipe")
+                .minutesToMake(10)
+                .difficultyRating(5)
+                .submittedBy(owner.getUsername())
+                .user(owner)
+                .ingredients(new ArrayList<>(List.of(Ingredient.builder().name("egg").amount("1").build())))
+                .steps(new ArrayList<>(List.of(Step.builder().stepNumber(1).description("fry").build())))
+                .reviews(new ArrayList<>())
+                .build();
+        recipe.recomputeRatingAggregates();
+        recipeId = recipeRepo.save(recipe).getId();
+    }
+
+    @AfterEach
+    void teardown() {
+        reviewRepo.deleteAll(reviewRepo.findByUsername(reviewer.getUsername()));
+        recipeRepo.deleteById(recipeId);
+        userRepo.deleteAll(List.of(reviewer, owner));
+    }
+
+    private CustomUserDetails user(String name) {
+        List<Role> roles = new ArrayList<>();
+        roles.add(new Role(Role.Roles.ROLE_USER));
+        return userRepo.save(CustomUserDetails.builder()
+                .username(PREFIX + "-" + name)
+                .password("not used")
+                .userMeta(UserMeta.builder()
+                        .name(name)
+                        .email(PREFIX + "-" + name + "@example.com")
+                        .build())
+                .authorities(roles)
+                .build());
+    }
+
+    private Review review(int rating) {
+        return Review.builder()
+                .username(reviewer.getUsername())
+                .user(reviewer)
+                .rating(rating)
+                .description("rated " + rating)
+                .build();
+    }
+
+    private List<Review> written() {
+        return reviewRepo.findByUsername(reviewer.getUsername());
+    }
+
+    private void assertAggregates(long sum, int count, double average) {
+        Recipe recipe = recipeRepo.findById(recipeId).orElseThrow();
+        assertThat(recipe.getRatingSum()).isEqualTo(sum);
+        assertThat(recipe.getRatingCount()).isEqualTo(count);
+        assertThat(recipe.getAverageRating()).isEqualTo(average);
+    }
+
+    @Test
+    public void testQueuedReviewsLandWithTheirAggregates() throws Exception {
+        assertThat(reviewService.queueNewReview(review(8), recipeId)).isTrue();
+        assertThat(reviewService.queueNewReview(review(3), recipeId)).isTrue();
+
+        reviewWriteBehind.awaitPending(reviewer.getUsername());
+
+        assertThat(written()).extracting(Review::getRating).containsExactlyInAnyOrder(8, 3);
+        assertAggregates(11, 2, 5.5);
+        assertThat(recipeService.getAverageRating(recipeId)).isEqualTo(5.5);
+    }
+
+    @Test
+    public void testBadReviewDoesNotCostTheOthersTheirBatch() {
+        assertThat(reviewWriteBehind.offer(review(8), recipeId)).isTrue();
+        assertThat(reviewWriteBehind.offer(review(1), MISSING_RECIPE_ID)).isTrue();
+        assertThat(reviewWriteBehind.offer(review(4), recipeId)).isTrue();
+
+        reviewWriteBehind.awaitPending(reviewer.getUsername());
+
+        assertThat(written()).extracting(Review::getRating).containsExactlyInAnyOrder(8, 4);
+        assertAggregates(12, 2, 6.0);
+    }
+
+    @Test
+    public void testAwaitPendingBlocksUntilTheAuthorsReviewsAreWritten() throws Exception {
+        reviewService.queueNewReview(review(7), recipeId);
+        // without a flush the writer holds it for the whole delay
+        assertThat(written()).isEmpty();
+
+        reviewWriteBehind.awaitPending(reviewer.getUsername());
+
+        assertThat(written()).singleElement().extracting(Review::getRating).isEqualTo(7);
+        assertAggregates(7, 1, 7.0);
+    }
+
+    @Test
+    public void testAuthorsReadSeesTheirQueuedReview() throws Exception {
+        reviewService.queueNewReview(review(9), recipeId);
+
+        mockMvc.perform(get("/review/user/" + reviewer.getUsername())
+                        .with(SecurityMockMvcRequestPostProcessors.user(reviewer.getUsername()).roles("USER")))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("rated 9")));
+    }
+
+    @Test
+    public void testShutdownWritesWhatIsStillQueued() throws Exception {
+        ReviewWriteBehind stopping = new ReviewWriteBehind(reviewRepo, recipeService, transactionManager,
+                true, 100, Duration.ofMinutes(1), 100);
+        assertThat(stopping.offer(review(6), recipeId)).isTrue();
+        assertThat(stopping.offer(review(2), recipeId)).isTrue();
+
+        stopping.shutdown();
+
+        assertThat(written()).extracting(Review::getRating).containsExactlyInAnyOrder(6, 2);
+        assertAggregates(8, 2, 4.0);
+        // and it takes nothing more, leaving those to the direct insert
+        assertThat(stopping.offer(review(5), recipeId)).isFalse();
+    }
+}